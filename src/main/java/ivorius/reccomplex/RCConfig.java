@@ -21,6 +21,7 @@ import ivorius.reccomplex.utils.expression.ResourceExpression;
 import ivorius.reccomplex.world.gen.feature.decoration.RCBiomeDecorator;
 import ivorius.reccomplex.world.gen.feature.structure.Structure;
 import ivorius.reccomplex.world.gen.feature.structure.StructureRegistry;
+import ivorius.reccomplex.world.gen.feature.structure.generic.DecodedStructureCache;
 import ivorius.reccomplex.world.gen.feature.structure.generic.StructureSaveHandler;
 import ivorius.reccomplex.world.gen.feature.structure.generic.transformers.TransformerMulti;
 import ivorius.reccomplex.world.storage.loot.GenericItemCollectionRegistry;
@@ -82,6 +83,14 @@ public class RCConfig
 
     public static int[] blockSelectorModifierKeys;
 
+    public static int decodedStructureCacheSize;
+    public static int mazeComponentCacheSize;
+    public static int instanceDataCacheSize;
+    public static boolean batchBlockPlacement;
+    public static boolean shardStructureData;
+    public static float deferredGenerationBudget;
+    public static float retrogenBudget;
+
     private static boolean lightweightMode;
 
     private static ResourceExpression structureLoadMatcher = new ResourceExpression(StructureRegistry.INSTANCE::has);
@@ -100,6 +109,7 @@ public class RCConfig
 
     public static float mazePlacementReversesPerRoom;
     public static long mazeTimeout;
+    public static int mazeSolverThreads;
 
     public static final Map<String, Boolean> globalToggles = new HashMap<>();
 
@@ -126,6 +136,14 @@ public class RCConfig
 
             memorizeDecoration = config.getBoolean("memorizeDecoration", CATEGORY_GENERAL, false, "Memorize decoration spawns like trees or mushrooms (for /#whatisthis). Since decoration is so common, it is recommended to use this only for debugging / balancing purposes.");
             memorizeSaplings = config.getBoolean("memorizeSaplings", CATEGORY_GENERAL, false, "Memorize sapling spawns (for /#whatisthis). Since saplings are so common, it is recommended to use this only for debugging / balancing purposes.");
+
+            decodedStructureCacheSize = config.getInt("decodedStructureCacheSize", CATEGORY_GENERAL, DecodedStructureCache.DEFAULT_CAPACITY, 0, 10000, "How many decoded structures to keep in memory for generation. Higher values use more memory but avoid decoding big structures repeatedly. Set to 0 to disable.");
+            mazeComponentCacheSize = config.getInt("mazeComponentCacheSize", CATEGORY_GENERAL, 32, 0, 10000, "How many mazes to keep transformed components of in memory. Higher values use more memory but make repeated mazes start faster. Set to 0 to disable.");
+            instanceDataCacheSize = config.getInt("instanceDataCacheSize", CATEGORY_GENERAL, 32, 0, 4096, "Roughly how many megabytes of loaded structure instance data to keep in memory, so that structures spanning many chunks don't load it again for every chunk. Set to 0 to disable.");
+            shardStructureData = config.getBoolean("shardStructureData", CATEGORY_GENERAL, true, "Whether to save generated structure data in one file per region, only loading and saving the regions in use. Existing data is moved over automatically, in both directions.");
+            deferredGenerationBudget = config.getFloat("deferredGenerationBudget", CATEGORY_GENERAL, 0.0f, 0.0f, 1000.0f, "Milliseconds per server tick to spend placing natural structures that were planned during chunk population. Spreads out the lag spikes of big structures, at the cost of them appearing a little after their chunks. Set to 0 to generate structures right away.");
+            retrogenBudget = config.getFloat("retrogenBudget", CATEGORY_GENERAL, 10.0f, 0.1f, 1000.0f, "Milliseconds per server tick to spend on retrogen jobs started with the retro command.");
+            batchBlockPlacement = config.getBoolean("batchBlockPlacement", CATEGORY_GENERAL, true, "Whether structures write blocks directly into chunks, and update light and clients once per chunk afterwards. Disable this to place each block through the world, in case of problems with other mods' blocks.");
         }
 
         if (configID == null || configID.equals(CATEGORY_BALANCING))
@@ -173,6 +191,7 @@ public class RCConfig
 
             mazePlacementReversesPerRoom = config.getFloat("mazePlacementReversesPerRoom", CATEGORY_BALANCING, 3, -1, 100, "Maximum number of reverses per room the maze generator can do. A higher number results in a better generation success rate, but may freeze the server temporarily.");
             mazeTimeout = config.getInt("mazeTimeout", CATEGORY_BALANCING, 20000, -1, 600000, "Maze generation timeout, in milliseconds. After the time is over, the maze generation will just give up.");
+            mazeSolverThreads = config.getInt("mazeSolverThreads", CATEGORY_BALANCING, 2, 1, 32, "Number of threads shared by all maze generations. Takes effect after a restart.");
 
             universalTransformer = null;
             Collections.addAll(universalTransformerPresets, config.getStringList("universalTransformerPresets", CATEGORY_BALANCING, new String[0], "Transformer preset names that are gonna be applied to every single generating structure. Use this if you need to enforce specific rules (e.g. \"don't ever spawn wood blocks\" (with a replace transformer)."));
@@ -31,11 +31,15 @@ import ivorius.reccomplex.random.Poem;
 import ivorius.reccomplex.utils.FMLUtils;
 import ivorius.reccomplex.utils.presets.PresetRegistry;
 import ivorius.reccomplex.world.gen.feature.GenerationSanityChecker;
-import ivorius.reccomplex.world.gen.feature.RCWorldgenMonitor;
+import ivorius.reccomplex.world.gen.feature.InstanceDataCache;
+import ivorius.reccomplex.world.gen.feature.sapling.SaplingIndex;
+import ivorius.reccomplex.world.gen.feature.RCProfiler;
 import ivorius.reccomplex.world.gen.feature.selector.NaturalStructureSelector;
 import ivorius.reccomplex.world.gen.feature.structure.StructureRegistry;
+import ivorius.reccomplex.world.gen.feature.structure.generic.DecodedStructureCache;
 import ivorius.reccomplex.world.gen.feature.structure.generic.StructureSaveHandler;
 import ivorius.reccomplex.world.gen.feature.structure.generic.generation.*;
+import ivorius.reccomplex.world.gen.feature.structure.generic.maze.MazeComponentCache;
 import ivorius.reccomplex.world.gen.feature.structure.generic.maze.rules.MazeRuleRegistry;
 import ivorius.reccomplex.world.gen.feature.structure.generic.maze.rules.saved.MazeRuleConnect;
 import ivorius.reccomplex.world.gen.feature.structure.generic.maze.rules.saved.MazeRuleConnectAll;
@@ -311,6 +315,11 @@ public class RCRegistryHandler
         StructureRegistry.INSTANCE.registerModule(new NaturalGeneration.Cache());
         StructureRegistry.INSTANCE.registerModule(new VanillaDecorationGeneration.Cache());
         StructureRegistry.INSTANCE.registerModule(new VanillaGeneration.Cache());
+        StructureRegistry.INSTANCE.registerModule(new StaticGeneration.Cache());
+        StructureRegistry.INSTANCE.registerModule(new DecodedStructureCache());
+        StructureRegistry.INSTANCE.registerModule(new MazeComponentCache());
+        StructureRegistry.INSTANCE.registerModule(new InstanceDataCache());
+        StructureRegistry.INSTANCE.registerModule(new SaplingIndex());
 
         SerializableStringTypeRegistry<GenericPlacer.Factor> placerFactorRegistry = FactorRegistry.INSTANCE.getTypeRegistry();
         placerFactorRegistry.registerType("limit", FactorLimit.class, new FactorLimit.Serializer());
@@ -340,7 +349,7 @@ public class RCRegistryHandler
         // So it's placeable in furnaces
         GameRegistry.registerFuelHandler(fuel -> fuel.getItem() instanceof GeneratingItem ? 1 : 0);
 
-        RCWorldgenMonitor.create();
+        RCProfiler.create();
     }
 
     protected static <T> void dumpAll(PresetRegistry<T> presets)
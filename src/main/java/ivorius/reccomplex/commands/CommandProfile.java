@@ -0,0 +1,119 @@
+/*
+ *  Copyright (c) 2014, Lukas Tenbrink.
+ *  * http://ivorius.net
+ */
+
+package ivorius.reccomplex.commands;
+
+import ivorius.mcopts.commands.CommandExpecting;
+import ivorius.mcopts.commands.parameters.Parameters;
+import ivorius.mcopts.commands.parameters.expect.Expect;
+import ivorius.reccomplex.RCConfig;
+import ivorius.reccomplex.RecurrentComplex;
+import ivorius.reccomplex.world.gen.feature.RCProfiler;
+import ivorius.reccomplex.world.gen.feature.StructureGenerationScheduler;
+import ivorius.reccomplex.world.gen.feature.structure.generic.maze.MazeSolverPool;
+import net.minecraft.command.CommandException;
+import net.minecraft.command.ICommandSender;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.util.text.TextComponentString;
+
+import java.io.File;
+import java.io.IOException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.List;
+
+public class CommandProfile extends CommandExpecting
+{
+    public static final int TOP_ROWS = 10;
+
+    @Override
+    public String getName()
+    {
+        return RCConfig.commandPrefix + "profile";
+    }
+
+    public int getRequiredPermissionLevel()
+    {
+        return 2;
+    }
+
+    @Override
+    public void expect(Expect expect)
+    {
+        expect
+                .flag("start")
+                .flag("stop")
+                .flag("reset")
+                .named("dump").any("csv", "json").descriptionU("format");
+    }
+
+    @Override
+    public void execute(MinecraftServer server, ICommandSender commandSender, String[] args) throws CommandException
+    {
+        Parameters parameters = Parameters.of(args, expect()::declare);
+
+        commandSender.sendMessage(new TextComponentString(String.format("blocks placed: %d",
+                RCProfiler.structureCounts().values().stream().mapToLong(counts -> counts.blocks.sum()).sum())));
+        for (RCProfiler.Counter counter : RCProfiler.Counter.values())
+        {
+            RCProfiler.Throughput throughput = RCProfiler.throughput(counter);
+            commandSender.sendMessage(new TextComponentString(String.format("%s: %d in %.1f ms (%.0f/s)",
+                    counter.description, throughput.count(), throughput.nanos() / 1_000_000.0, throughput.perSecond())));
+        }
+
+        commandSender.sendMessage(new TextComponentString(String.format("deferred generation: %d chunks queued, %.2f ms last tick",
+                StructureGenerationScheduler.queueDepth(), StructureGenerationScheduler.lastTickNanos() / 1_000_000.0)));
+        commandSender.sendMessage(new TextComponentString(String.format("maze solver: %d started, %d timed out, %.2f ms mean, %.2f ms p99, %d reverses",
+                MazeSolverPool.started(), MazeSolverPool.timedOut(), MazeSolverPool.meanMillis(), MazeSolverPool.p99Millis(), MazeSolverPool.reverses())));
+
+        List<RCProfiler.Row> rows = RCProfiler.rows();
+        for (RCProfiler.Row row : rows.subList(0, Math.min(rows.size(), TOP_ROWS)))
+            commandSender.sendMessage(new TextComponentString(String.format("%s %s: %d in %.1f ms (mean %.2f ms, p99 < %.2f ms, max %.2f ms)",
+                    row.phase.id, row.subject, row.count, row.totalNanos / 1_000_000.0, row.meanNanos() / 1_000_000.0, row.p99 / 1_000_000.0, row.maxNanos / 1_000_000.0)));
+
+        if (parameters.has("dump"))
+        {
+            String format = parameters.get("dump").require();
+            if (!format.equals("csv") && !format.equals("json"))
+                throw new CommandException("Unknown format: " + format);
+
+            File file = new File(server.getEntityWorld().getSaveHandler().getWorldDirectory(),
+                    String.format("rc-profile-%s.%s", new SimpleDateFormat("yyyy-MM-dd_HH-mm-ss").format(new Date()), format));
+            try
+            {
+                if (format.equals("csv"))
+                    RCProfiler.writeCSV(file);
+                else
+                    RCProfiler.writeJSON(file);
+            }
+            catch (IOException e)
+            {
+                RecurrentComplex.logger.error("Failed writing profile", e);
+                throw new CommandException("Failed writing profile: " + e.getMessage());
+            }
+            commandSender.sendMessage(new TextComponentString("Wrote profile to " + file.getAbsolutePath()));
+        }
+
+        if (parameters.has("reset"))
+        {
+            MazeSolverPool.resetStats();
+            RCProfiler.reset();
+            commandSender.sendMessage(new TextComponentString("Reset all counters."));
+        }
+
+        if (parameters.has("start"))
+        {
+            RCProfiler.setEnabled(true);
+            commandSender.sendMessage(new TextComponentString("Started profiling structure generation."));
+        }
+        else if (parameters.has("stop"))
+        {
+            RCProfiler.setEnabled(false);
+            commandSender.sendMessage(new TextComponentString("Stopped profiling structure generation."));
+        }
+        else if (!RCProfiler.isEnabled())
+            commandSender.sendMessage(new TextComponentString("Structure generation isn't being profiled; use --start to profile it."));
+    }
+}
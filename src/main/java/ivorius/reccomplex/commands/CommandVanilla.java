@@ -20,8 +20,9 @@ import ivorius.reccomplex.random.Person;
 import ivorius.reccomplex.utils.RCBlockAreas;
 import ivorius.reccomplex.utils.RCStrings;
 import ivorius.reccomplex.utils.RCStructureBoundingBoxes;
+import ivorius.reccomplex.utils.accessor.RCAccessorMapGenBase;
 import ivorius.reccomplex.utils.accessor.RCAccessorMapGenStructure;
-import ivorius.reccomplex.utils.accessor.SafeReflector;
+import ivorius.reccomplex.utils.accessor.RCAccessorWorldProvider;
 import ivorius.reccomplex.world.gen.feature.structure.MapGenStructureHook;
 import net.minecraft.command.CommandException;
 import net.minecraft.command.ICommandSender;
@@ -39,9 +40,7 @@ import net.minecraft.world.biome.BiomeProviderSingle;
 import net.minecraft.world.chunk.ChunkPrimer;
 import net.minecraft.world.gen.MapGenBase;
 import net.minecraft.world.gen.structure.*;
-import net.minecraftforge.fml.relauncher.ReflectionHelper;
 
-import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -54,8 +53,6 @@ import java.util.stream.Stream;
  */
 public class CommandVanilla extends CommandSplit
 {
-    private static Method recursiveGenerate;
-
     public CommandVanilla()
     {
         super(RCConfig.commandPrefix + "vanilla");
@@ -95,7 +92,7 @@ public class CommandVanilla extends CommandSplit
                     ChunkPos chunkPos = pos.chunkCoord();
                     Random random = new Random(RCStrings.seed(seed));
 
-                    ReflectionHelper.setPrivateValue(MapGenBase.class, gen, random, "rand", "field_75038_b");
+                    RCAccessorMapGenBase.setRand(gen, random);
                     recursiveGenerate(gen, world, chunkPos);
 
                     StructureStart structureStart = MapGenStructureHook.getStructureStart(gen, chunkPos);
@@ -137,7 +134,7 @@ public class CommandVanilla extends CommandSplit
 
     public static void setBiomeProvider(WorldProvider provider, BiomeProvider biomeProvider)
     {
-        ReflectionHelper.setPrivateValue(WorldProvider.class, provider, biomeProvider, "biomeProvider", "field_76578_c");
+        RCAccessorWorldProvider.setBiomeProvider(provider, biomeProvider);
     }
 
     public static List<ITextComponent> sightNames(World world, BlockPos pos)
@@ -157,7 +154,7 @@ public class CommandVanilla extends CommandSplit
     {
         return Arrays.stream(Type.values())
                 .map(t -> t.generator(false))
-                .peek(m -> ReflectionHelper.setPrivateValue(MapGenBase.class, m, world, "world", "field_75039_c"))
+                .peek(m -> RCAccessorMapGenBase.setWorld(m, world))
                 .filter(m -> m.isInsideStructure(pos));
     }
 
@@ -172,13 +169,8 @@ public class CommandVanilla extends CommandSplit
         // ChunkPrimer mostly doesn't get used
         ChunkPrimer primer = new ChunkPrimer();
 
-        if (recursiveGenerate == null)
-            recursiveGenerate = ReflectionHelper.findMethod(MapGenBase.class, "recursiveGenerate", "func_180701_a",
-                    World.class, Integer.TYPE, Integer.TYPE, Integer.TYPE, Integer.TYPE, ChunkPrimer.class);
-
-        ReflectionHelper.setPrivateValue(MapGenBase.class, gen, world, "world", "field_75039_c");
-
-        SafeReflector.invoke(gen, recursiveGenerate, null, world, pos.x, pos.z, 0, 0, primer);
+        RCAccessorMapGenBase.setWorld(gen, world);
+        RCAccessorMapGenBase.recursiveGenerate(gen, world, pos.x, pos.z, 0, 0, primer);
     }
 
     public enum Type
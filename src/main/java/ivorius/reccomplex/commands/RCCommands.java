@@ -151,6 +151,7 @@ public class RCCommands
         event.registerServerCommand(new CommandDecorate());
 
         event.registerServerCommand(new CommandEval());
+        event.registerServerCommand(new CommandProfile());
     }
 
     @SideOnly(Side.CLIENT)
@@ -121,6 +121,8 @@ public class CommandFill extends CommandExpecting implements CommandVirtual
         SelectionOwner selectionOwner = RCCommands.getSelectionOwner(sender, null, true);
         RCCommands.assertSize(sender, selectionOwner);
 
+        PositionedBlockExpression.Argument.Cursor cursor = new PositionedBlockExpression.Argument.Cursor(world);
+
         if (parameters.has("flood"))
         {
             List<EnumFacing> directions = parameters.get("flood").orElse("").to(RCP::directions).require();
@@ -137,8 +139,7 @@ public class CommandFill extends CommandExpecting implements CommandVirtual
                 for (EnumFacing facing : directions)
                 {
                     BlockPos offset = pos.offset(facing);
-                    if (matcher.evaluate(() -> PositionedBlockExpression.Argument.at(world, offset))
-                            && visited.add(offset))
+                    if (matcher.test(cursor.move(offset)) && visited.add(offset))
                         dirty.add(offset);
                 }
 
@@ -154,7 +155,7 @@ public class CommandFill extends CommandExpecting implements CommandVirtual
 //            HeightMapFreezer freezer = HeightMapFreezer.freeze(BlockAreas.toBoundingBox(selectionOwner.getSelection()), sender.getEntityWorld());
             runShape(shape, selectionOwner.getSelection(), pos ->
             {
-                if (matcher.evaluate(() -> PositionedBlockExpression.Argument.at(world, pos)))
+                if (matcher.test(cursor.move(pos)))
                 {
                     setFrom(world, dst, pos);
 //                freezer.markBlock(pos, state);
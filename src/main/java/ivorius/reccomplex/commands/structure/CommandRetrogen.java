@@ -5,115 +5,125 @@
 
 package ivorius.reccomplex.commands.structure;
 
-import ivorius.ivtoolkit.util.IvStreams;
+import ivorius.mcopts.commands.CommandSplit;
+import ivorius.mcopts.commands.SimpleCommand;
+import ivorius.mcopts.commands.parameters.MCP;
+import ivorius.mcopts.commands.parameters.Parameters;
+import ivorius.mcopts.commands.parameters.expect.MCE;
 import ivorius.reccomplex.RCConfig;
 import ivorius.reccomplex.RecurrentComplex;
-import ivorius.mcopts.commands.CommandExpecting;
-import ivorius.mcopts.commands.parameters.*;
-import ivorius.mcopts.commands.parameters.expect.Expect;
-import ivorius.mcopts.commands.parameters.expect.MCE;
-import ivorius.reccomplex.commands.parameters.expect.RCE;
 import ivorius.reccomplex.commands.parameters.RCP;
-import ivorius.reccomplex.files.RCFiles;
-import ivorius.reccomplex.files.loading.FileSuffixFilter;
-import ivorius.reccomplex.world.gen.feature.WorldGenStructures;
-import ivorius.reccomplex.world.gen.feature.structure.Structure;
+import ivorius.reccomplex.commands.parameters.expect.RCE;
+import ivorius.reccomplex.world.gen.feature.RetrogenScheduler;
 import net.minecraft.command.CommandException;
 import net.minecraft.command.ICommandSender;
 import net.minecraft.server.MinecraftServer;
-import net.minecraft.util.math.ChunkPos;
-import net.minecraft.world.World;
 import net.minecraft.world.WorldServer;
-import net.minecraft.world.chunk.storage.RegionFileCache;
-import org.apache.commons.lang3.tuple.Pair;
-
-import javax.annotation.Nonnull;
-import java.io.File;
-import java.util.Arrays;
-import java.util.Random;
-import java.util.function.Predicate;
-import java.util.stream.IntStream;
-import java.util.stream.Stream;
 
 /**
  * Created by lukas on 25.05.14.
  */
-public class CommandRetrogen extends CommandExpecting
+public class CommandRetrogen extends CommandSplit
 {
-    public static Stream<Pair<Integer, Integer>> existingRegions(File worldDir)
-    {
-        File regionsDirectory = RCFiles.getValidatedFolder(new File(worldDir, "region"), false);
-        if (regionsDirectory == null) return Stream.empty();
-
-        String[] mcas = regionsDirectory.list(new FileSuffixFilter("mca"));
-        if (mcas == null) throw new IllegalStateException();
-
-        return Arrays.stream(mcas).map(s -> s.split("\\."))
-                .filter(p -> p.length == 4 && p[0].equals("r")) // Is region file
-                .map(p -> Pair.of(Integer.parseInt(p[1]), Integer.parseInt(p[2])))
-                .filter(rfc -> rfc.getLeft() != null && rfc.getRight() != null); // Has coords
-    }
-
-    public static Stream<ChunkPos> existingChunks(World world)
-    {
-        // Each region is 32x32 chunks
-        File worldDirectory = world.getSaveHandler().getWorldDirectory();
-        return existingRegions(worldDirectory)
-                .map(rfc -> new ChunkPos(rfc.getLeft() << 5, rfc.getRight() << 5))
-                .map(rflc -> Pair.of(RegionFileCache.createOrLoadRegionFile(worldDirectory, rflc.x, rflc.z), rflc))
-                .flatMap(r -> IvStreams.flatMapToObj(IntStream.range(0, 32), x -> IntStream.range(0, 32).mapToObj(z -> Pair.of(r.getLeft(), add(r.getRight(), x, z)))))
-                .filter(p -> p.getLeft().chunkExists(p.getRight().x & 31, p.getRight().z & 31)) // Region has chunk
-                .map(Pair::getRight);
-    }
-
-    @Nonnull
-    protected static ChunkPos add(ChunkPos pos, int x, int z)
-    {
-        return new ChunkPos(x + pos.x, z + pos.z);
-    }
-
-    public static Random getRandom(WorldServer world, ChunkPos pos)
-    {
-        return world.setRandomSeed(pos.x, pos.z, 0xDEADBEEF);
-    }
-
-    public static long retrogen(WorldServer world, Predicate<Structure> structurePredicate)
+    public CommandRetrogen()
     {
-        return existingChunks(world)
-                .filter(pos -> world.getChunkFromChunkCoords(pos.x, pos.z).isTerrainPopulated())
-                .filter(pos -> WorldGenStructures.decorate(world, getRandom(world, pos), pos, structurePredicate))
-                .count();
-    }
-
-    @Override
-    public String getName()
-    {
-        return RCConfig.commandPrefix + "retro";
-    }
+        super(RCConfig.commandPrefix + "retro");
 
-    public int getRequiredPermissionLevel()
-    {
-        return 2;
-    }
-
-    @Override
-    public void expect(Expect expect)
-    {
-        expect
+        add(new SimpleCommand("start", expect -> expect
                 .named("exp").words(RCE::structurePredicate).descriptionU("resource expression: only generate these structures")
-                .named("dimension", "d").then(MCE::dimension);
+                .named("dimension", "d").then(MCE::dimension))
+        {
+            @Override
+            public void execute(MinecraftServer server, ICommandSender sender, String[] args) throws CommandException
+            {
+                Parameters parameters = Parameters.of(args, expect()::declare);
+
+                // Validate now, but keep the expression itself so the job can be resumed after a restart
+                parameters.get("exp").to(RCP::structurePredicate).optional();
+                String expression = parameters.get("exp").optional().orElse(null);
+                WorldServer world = dimension(server, sender, parameters);
+
+                if (!RetrogenScheduler.start(world, expression))
+                    throw RecurrentComplex.translations.commandException("commands.rcretro.running");
+
+                sender.sendMessage(RecurrentComplex.translations.format("commands.rcretro.start", world.provider.getDimension()));
+            }
+        });
+
+        add(new SimpleCommand("progress", expect -> expect.named("dimension", "d").then(MCE::dimension))
+        {
+            @Override
+            public void execute(MinecraftServer server, ICommandSender sender, String[] args) throws CommandException
+            {
+                WorldServer world = dimension(server, sender, Parameters.of(args, expect()::declare));
+
+                RetrogenScheduler.Progress progress = RetrogenScheduler.progress(world);
+                if (progress == null)
+                    throw RecurrentComplex.translations.commandException("commands.rcretro.none");
+
+                if (progress.scanning)
+                    sender.sendMessage(RecurrentComplex.translations.format("commands.rcretro.scanning"));
+                else
+                    sender.sendMessage(RecurrentComplex.translations.format("commands.rcretro.progress",
+                            progress.chunksDone, progress.chunks,
+                            String.format("%.1f", progress.chunks > 0 ? progress.chunksDone * 100.0 / progress.chunks : 100),
+                            progress.regionsDone, progress.regions));
+
+                sender.sendMessage(RecurrentComplex.translations.format("commands.rcretro.count",
+                        progress.generatedChunks, progress.visitedChunks));
+
+                if (progress.paused)
+                    sender.sendMessage(RecurrentComplex.translations.format("commands.rcretro.paused"));
+            }
+        });
+
+        add(new SimpleCommand("pause", expect -> expect.named("dimension", "d").then(MCE::dimension))
+        {
+            @Override
+            public void execute(MinecraftServer server, ICommandSender sender, String[] args) throws CommandException
+            {
+                WorldServer world = dimension(server, sender, Parameters.of(args, expect()::declare));
+
+                if (!RetrogenScheduler.setPaused(world, true))
+                    throw RecurrentComplex.translations.commandException("commands.rcretro.none");
+
+                sender.sendMessage(RecurrentComplex.translations.format("commands.rcretro.paused"));
+            }
+        });
+
+        add(new SimpleCommand("resume", expect -> expect.named("dimension", "d").then(MCE::dimension))
+        {
+            @Override
+            public void execute(MinecraftServer server, ICommandSender sender, String[] args) throws CommandException
+            {
+                WorldServer world = dimension(server, sender, Parameters.of(args, expect()::declare));
+
+                if (!RetrogenScheduler.setPaused(world, false))
+                    throw RecurrentComplex.translations.commandException("commands.rcretro.none");
+
+                sender.sendMessage(RecurrentComplex.translations.format("commands.rcretro.resumed"));
+            }
+        });
+
+        add(new SimpleCommand("cancel", expect -> expect.named("dimension", "d").then(MCE::dimension))
+        {
+            @Override
+            public void execute(MinecraftServer server, ICommandSender sender, String[] args) throws CommandException
+            {
+                WorldServer world = dimension(server, sender, Parameters.of(args, expect()::declare));
+
+                if (!RetrogenScheduler.cancel(world))
+                    throw RecurrentComplex.translations.commandException("commands.rcretro.none");
+
+                sender.sendMessage(RecurrentComplex.translations.format("commands.rcretro.cancelled"));
+            }
+        });
+
+        permitFor(2);
     }
 
-    @Override
-    public void execute(MinecraftServer server, ICommandSender commandSender, String[] args) throws CommandException
+    protected static WorldServer dimension(MinecraftServer server, ICommandSender sender, Parameters parameters) throws CommandException
     {
-        Parameters parameters = Parameters.of(args, expect()::declare);
-
-        Predicate<Structure> structurePredicate = parameters.get("exp").to(RCP::structurePredicate).optional().orElse(null);
-        WorldServer world = parameters.get("dimension").to(MCP.dimension(server, commandSender)).require();
-
-        long count = retrogen(world, structurePredicate);
-
-        commandSender.sendMessage(RecurrentComplex.translations.format("commands.rcretro.count", String.valueOf(count)));
+        return parameters.get("dimension").to(MCP.dimension(server, sender)).require();
     }
 }
@@ -4,6 +4,7 @@ import gnu.trove.map.TIntObjectMap;
 import gnu.trove.map.hash.TIntObjectHashMap;
 
 import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import net.minecraft.world.WorldProvider;
 
@@ -102,6 +103,8 @@ public class DimensionDictionary
 
     private static final Set<String> SET_UNCATEGORIZED = Collections.singleton(UNCATEGORIZED);
 
+    private static final AtomicInteger version = new AtomicInteger();
+
     static
     {
         registerType(UNCATEGORIZED);
@@ -131,6 +134,7 @@ public class DimensionDictionary
         dTypes.addAll(types);
 
         types.forEach(DimensionDictionary::registerType);
+        version.incrementAndGet();
     }
 
     /**
@@ -150,6 +154,7 @@ public class DimensionDictionary
             else
                 dTypes.removeAll(types);
         }
+        version.incrementAndGet();
     }
 
     /**
@@ -160,7 +165,10 @@ public class DimensionDictionary
     public static void registerType(String type)
     {
         if (!types.containsKey(type))
+        {
             types.put(type, new Type());
+            version.incrementAndGet();
+        }
     }
 
     /**
@@ -186,6 +194,7 @@ public class DimensionDictionary
 
         for (String sub : subtypes)
             registerGetType(sub).supertypes.add(type);
+        version.incrementAndGet();
     }
 
     /**
@@ -201,6 +210,7 @@ public class DimensionDictionary
 
         for (String supertype : supertypes)
             registerGetType(supertype).subtypes.add(type);
+        version.incrementAndGet();
     }
 
     /**
@@ -288,6 +298,16 @@ public class DimensionDictionary
         return t == null ? Collections.<String>emptySet() : Collections.unmodifiableSet(t.subtypes);
     }
 
+    /**
+     * Changes whenever any dimension or type registration changes. Does not cover {@link Handler} dimensions.
+     *
+     * @return The current version of the dictionary.
+     */
+    public static int version()
+    {
+        return version.get();
+    }
+
     /**
      * Returns a set of all registered types.
      * @return A set of all registered types.
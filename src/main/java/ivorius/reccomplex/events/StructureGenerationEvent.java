@@ -49,6 +49,10 @@ public class StructureGenerationEvent extends WorldEvent
         }
     }
 
+    /**
+     * Fired once the structure's blocks were placed. Not fired for structures planned for deferred generation
+     * (see {@link ivorius.reccomplex.world.gen.feature.StructureGenerator#plan()}), which are placed chunk by chunk later.
+     */
     public static class Post extends StructureGenerationEvent
     {
         public Post(Structure structure, StructureSpawnContext spawnContext)
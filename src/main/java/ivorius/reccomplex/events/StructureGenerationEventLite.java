@@ -84,6 +84,10 @@ public class StructureGenerationEventLite extends WorldEvent
         }
     }
 
+    /**
+     * Fired once the structure's blocks were placed. Not fired for structures planned for deferred generation
+     * (see {@link ivorius.reccomplex.world.gen.feature.StructureGenerator#plan()}), which are placed chunk by chunk later.
+     */
     public static class Post extends StructureGenerationEventLite
     {
         public Post(World world, @Nonnull String structureName, @Nonnull StructureBoundingBox boundingBox, int generationLayer, boolean firstTime)
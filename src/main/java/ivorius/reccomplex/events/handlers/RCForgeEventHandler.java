@@ -17,6 +17,8 @@ import ivorius.reccomplex.commands.RCCommands;
 import ivorius.reccomplex.events.ItemGenerationEvent;
 import ivorius.reccomplex.gui.GuiHider;
 import ivorius.reccomplex.item.ItemInputHandler;
+import ivorius.reccomplex.world.gen.feature.RetrogenScheduler;
+import ivorius.reccomplex.world.gen.feature.StructureGenerationScheduler;
 import ivorius.reccomplex.world.gen.feature.WorldGenStructures;
 import ivorius.reccomplex.world.gen.feature.WorldRandomData;
 import ivorius.reccomplex.world.gen.feature.structure.StructureRegistry;
@@ -54,6 +56,7 @@ import net.minecraftforge.event.CommandEvent;
 import net.minecraftforge.event.RegistryEvent;
 import net.minecraftforge.event.entity.EntityJoinWorldEvent;
 import net.minecraftforge.event.terraingen.PopulateChunkEvent;
+import net.minecraftforge.event.world.ChunkEvent;
 import net.minecraftforge.fml.client.event.ConfigChangedEvent;
 import net.minecraftforge.fml.common.FMLCommonHandler;
 import net.minecraftforge.fml.common.eventhandler.SubscribeEvent;
@@ -85,6 +88,13 @@ public class RCForgeEventHandler
         WorldGenStructures.decorate((WorldServer) event.getWorld(), event.getRand(), new ChunkPos(event.getChunkX(), event.getChunkZ()), null);
     }
 
+    @SubscribeEvent
+    public void onChunkLoad(ChunkEvent.Load event)
+    {
+        if (!event.getWorld().isRemote)
+            RetrogenScheduler.onChunkLoad(event.getChunk());
+    }
+
     @SubscribeEvent
     public void onEntityDrop(EntityJoinWorldEvent event)
     {
@@ -184,6 +194,12 @@ public class RCForgeEventHandler
         {
             RecurrentComplex.communicationHandler.handleMessages(event.type == TickEvent.Type.SERVER, true);
         }
+
+        if (event.type == TickEvent.Type.SERVER && event.phase == TickEvent.Phase.END)
+        {
+            StructureGenerationScheduler.tick();
+            RetrogenScheduler.tick();
+        }
     }
 
     @SubscribeEvent
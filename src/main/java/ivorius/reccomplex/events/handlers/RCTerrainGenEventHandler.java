@@ -23,6 +23,9 @@ import net.minecraftforge.fml.common.eventhandler.Event;
 import net.minecraftforge.fml.common.eventhandler.SubscribeEvent;
 
 import javax.annotation.Nullable;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.util.Random;
 
 /**
@@ -30,16 +33,37 @@ import java.util.Random;
  */
 public class RCTerrainGenEventHandler
 {
+    // Only present in Forge builds with amount data for decoration events
+    private static final MethodHandle hasAmountData;
+    private static final MethodHandle getModifiedAmount;
+    private static final MethodHandle setModifiedAmount;
+
+    static
+    {
+        MethodHandle has = null, get = null, set = null;
+        try
+        {
+            MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+            has = lookup.findVirtual(DecorateBiomeEvent.Decorate.class, "hasAmountData", MethodType.methodType(Boolean.TYPE));
+            get = lookup.findVirtual(DecorateBiomeEvent.Decorate.class, "getModifiedAmount", MethodType.methodType(Integer.TYPE));
+            set = lookup.findVirtual(DecorateBiomeEvent.Decorate.class, "setModifiedAmount", MethodType.methodType(Void.TYPE, Integer.TYPE));
+        }
+        catch (NoSuchMethodException | IllegalAccessException ignored)
+        {
+            has = null;
+        }
+        hasAmountData = has;
+        getModifiedAmount = get;
+        setModifiedAmount = set;
+    }
+
     private static boolean hasAmountData(DecorateBiomeEvent.Decorate event)
     {
         try
         {
-            // Ensure
-            event.getClass().getDeclaredMethod("getModifiedAmount");
-            event.getClass().getDeclaredMethod("setModifiedAmount", int.class);
-            return (boolean) event.getClass().getDeclaredMethod("hasAmountData").invoke(event);
+            return hasAmountData != null && (boolean) hasAmountData.invokeExact(event);
         }
-        catch (Exception e)
+        catch (Throwable e)
         {
             return false;
         }
@@ -49,9 +73,9 @@ public class RCTerrainGenEventHandler
     {
         try
         {
-            return (int) event.getClass().getDeclaredMethod("getModifiedAmount").invoke(event);
+            return (int) getModifiedAmount.invokeExact(event);
         }
-        catch (Exception ignored)
+        catch (Throwable ignored)
         {
             return -1;
         }
@@ -61,9 +85,9 @@ public class RCTerrainGenEventHandler
     {
         try
         {
-            event.getClass().getDeclaredMethod("setModifiedAmount", int.class).invoke(event, amount);
+            setModifiedAmount.invokeExact(event, amount);
         }
-        catch (Exception ignored)
+        catch (Throwable ignored)
         {
         }
     }
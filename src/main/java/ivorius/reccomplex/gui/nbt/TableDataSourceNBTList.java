@@ -10,10 +10,10 @@ import ivorius.reccomplex.gui.table.TableDelegate;
 import ivorius.reccomplex.gui.table.TableNavigator;
 import ivorius.reccomplex.gui.table.cell.*;
 import ivorius.reccomplex.gui.table.datasource.TableDataSourceSegmented;
+import ivorius.reccomplex.utils.accessor.RCAccessorNBT;
 import net.minecraft.nbt.NBTBase;
 import net.minecraft.nbt.NBTTagList;
 import net.minecraft.util.text.TextFormatting;
-import net.minecraftforge.fml.relauncher.ReflectionHelper;
 import net.minecraftforge.fml.relauncher.Side;
 import net.minecraftforge.fml.relauncher.SideOnly;
 
@@ -120,7 +120,7 @@ public class TableDataSourceNBTList extends TableDataSourceSegmented
                             {
                                 while (!nbt.hasNoTags())
                                     nbt.removeTag(nbt.tagCount() - 1);
-                                ReflectionHelper.setPrivateValue(NBTTagList.class, nbt, (byte) id, "tagType", "field_74746_b");
+                                RCAccessorNBT.setTagType(nbt, (byte) id);
                                 delegate.reloadData();
                             }))
                             .collect(Collectors.toList())
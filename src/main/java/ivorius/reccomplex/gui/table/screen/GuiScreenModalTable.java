@@ -9,11 +9,11 @@ import com.google.common.collect.Lists;
 import ivorius.reccomplex.gui.table.GuiTable;
 import ivorius.reccomplex.gui.table.TableDelegate;
 import ivorius.reccomplex.gui.table.TableNavigator;
+import ivorius.reccomplex.utils.accessor.RCAccessorGui;
 import net.minecraft.client.gui.GuiButton;
 import net.minecraft.client.gui.GuiScreen;
 import net.minecraftforge.client.event.GuiScreenEvent;
 import net.minecraftforge.common.MinecraftForge;
-import net.minecraftforge.fml.relauncher.ReflectionHelper;
 import net.minecraftforge.fml.relauncher.Side;
 import net.minecraftforge.fml.relauncher.SideOnly;
 import org.lwjgl.input.Keyboard;
@@ -68,7 +68,7 @@ public class GuiScreenModalTable extends GuiScreen implements TableDelegate, Tab
                     }
                     ////////
 //                    this.selectedButton = event.button;
-                    ReflectionHelper.setPrivateValue(GuiScreen.class, this, event.getButton(), "selectedButton", "field_146290_a");
+                    RCAccessorGui.setSelectedButton(this, event.getButton());
                     ////////
                     event.getButton().playPressSound(this.mc.getSoundHandler());
                     this.actionPerformed(event.getButton());
@@ -0,0 +1,114 @@
+/*
+ *  Copyright (c) 2014, Lukas Tenbrink.
+ *  * http://ivorius.net
+ */
+
+package ivorius.reccomplex.utils;
+
+import gnu.trove.list.TDoubleList;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Weighted random selection in constant time, using Vose's alias method.
+ * Building the table is linear in the number of items; it is immutable afterwards.
+ */
+public class AliasTable<T>
+{
+    protected final List<T> items;
+    protected final double[] probability;
+    protected final int[] alias;
+    protected final boolean empty;
+
+    /**
+     * @param items   The items to choose from.
+     * @param weights The items' weights, in the same order. Items with weights <= 0 are never chosen.
+     */
+    public AliasTable(List<T> items, TDoubleList weights)
+    {
+        if (items.size() != weights.size())
+            throw new IllegalArgumentException("Item and weight count differ");
+
+        this.items = new ArrayList<>(items);
+
+        int size = items.size();
+        probability = new double[size];
+        alias = new int[size];
+
+        double total = 0;
+        int heaviest = 0;
+        for (int i = 0; i < size; i++)
+        {
+            total += Math.max(0, weights.get(i));
+            if (weights.get(i) > weights.get(heaviest))
+                heaviest = i;
+        }
+
+        empty = total <= 0;
+        if (empty)
+            return;
+
+        // Scale so that the average bucket is 1; split into under- and overfull buckets
+        double[] scaled = new double[size];
+        int[] small = new int[size], large = new int[size];
+        int smallCount = 0, largeCount = 0;
+        for (int i = 0; i < size; i++)
+        {
+            scaled[i] = Math.max(0, weights.get(i)) * size / total;
+            if (scaled[i] < 1)
+                small[smallCount++] = i;
+            else
+                large[largeCount++] = i;
+        }
+
+        while (smallCount > 0 && largeCount > 0)
+        {
+            int less = small[--smallCount], more = large[--largeCount];
+
+            probability[less] = scaled[less];
+            alias[less] = more;
+
+            scaled[more] = (scaled[more] + scaled[less]) - 1;
+            if (scaled[more] < 1)
+                small[smallCount++] = more;
+            else
+                large[largeCount++] = more;
+        }
+
+        // Whatever remains is full, save for rounding errors
+        while (largeCount > 0)
+            probability[large[--largeCount]] = 1;
+        while (smallCount > 0)
+        {
+            int less = small[--smallCount];
+            probability[less] = scaled[less] > 0 ? 1 : 0;
+            alias[less] = heaviest;
+        }
+    }
+
+    public int size()
+    {
+        return items.size();
+    }
+
+    /**
+     * @return Whether there is nothing to select, i.e. no item with a positive weight.
+     */
+    public boolean isEmpty()
+    {
+        return empty;
+    }
+
+    @Nullable
+    public T select(Random random)
+    {
+        if (empty)
+            return null;
+
+        int column = random.nextInt(items.size());
+        return items.get(random.nextDouble() < probability[column] ? column : alias[column]);
+    }
+}
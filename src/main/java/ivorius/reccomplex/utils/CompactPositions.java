@@ -0,0 +1,205 @@
+/*
+ *  Copyright (c) 2014, Lukas Tenbrink.
+ *  * http://ivorius.net
+ */
+
+package ivorius.reccomplex.utils;
+
+import gnu.trove.TLongCollection;
+import gnu.trove.map.TLongDoubleMap;
+import gnu.trove.procedure.TLongDoubleProcedure;
+
+import javax.annotation.Nullable;
+import java.io.*;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * A compact, versioned binary encoding for sets of block positions (packed with {@link PackedBlockPos}), optionally
+ * with a value per position. Meant for data that is saved along with structure entries and kept around forever.
+ * <p>
+ * The format is a bounds header, followed either by a bitset over the bounds or, if that would be larger,
+ * by the positions' coordinates relative to the bounds. Values follow as floats, in the same order.
+ */
+public class CompactPositions
+{
+    public static final int VERSION = 1;
+
+    protected static final int FLAG_SPARSE = 1;
+    protected static final int FLAG_VALUES = 1 << 1;
+
+    public static byte[] write(TLongCollection positions, @Nullable TLongDoubleMap values)
+    {
+        long[] packed = positions.toArray();
+
+        int minX = Integer.MAX_VALUE, minY = Integer.MAX_VALUE, minZ = Integer.MAX_VALUE;
+        int maxX = Integer.MIN_VALUE, maxY = Integer.MIN_VALUE, maxZ = Integer.MIN_VALUE;
+        for (long pos : packed)
+        {
+            minX = Math.min(minX, PackedBlockPos.x(pos));
+            minY = Math.min(minY, PackedBlockPos.y(pos));
+            minZ = Math.min(minZ, PackedBlockPos.z(pos));
+            maxX = Math.max(maxX, PackedBlockPos.x(pos));
+            maxY = Math.max(maxY, PackedBlockPos.y(pos));
+            maxZ = Math.max(maxZ, PackedBlockPos.z(pos));
+        }
+
+        int sizeX = packed.length > 0 ? maxX - minX + 1 : 0;
+        int sizeY = packed.length > 0 ? maxY - minY + 1 : 0;
+        int sizeZ = packed.length > 0 ? maxZ - minZ + 1 : 0;
+
+        // Sort by index within the bounds, so both encodings list values in the same order
+        long volume = (long) sizeX * sizeY * sizeZ;
+        long[] indices = new long[packed.length];
+        for (int i = 0; i < packed.length; i++)
+        {
+            long pos = packed[i];
+            indices[i] = ((long) (PackedBlockPos.x(pos) - minX) * sizeY + (PackedBlockPos.y(pos) - minY)) * sizeZ + (PackedBlockPos.z(pos) - minZ);
+        }
+        Arrays.sort(indices);
+
+        boolean sparse = volume > Integer.MAX_VALUE || volume / 8 > (long) packed.length * 3;
+        int flags = (sparse ? FLAG_SPARSE : 0) | (values != null ? FLAG_VALUES : 0);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes))
+        {
+            out.writeByte(VERSION);
+            out.writeByte(flags);
+            writeVarInt(out, packed.length);
+
+            if (packed.length == 0)
+                return bytes.toByteArray();
+
+            out.writeInt(minX);
+            out.writeInt(minY);
+            out.writeInt(minZ);
+            writeVarInt(out, sizeX);
+            writeVarInt(out, sizeY);
+            writeVarInt(out, sizeZ);
+
+            if (sparse)
+            {
+                for (long index : indices)
+                {
+                    writeVarInt(out, (int) (index / sizeZ / sizeY));
+                    writeVarInt(out, (int) (index / sizeZ % sizeY));
+                    writeVarInt(out, (int) (index % sizeZ));
+                }
+            }
+            else
+            {
+                BitSet bitSet = new BitSet((int) volume);
+                for (long index : indices)
+                    bitSet.set((int) index);
+
+                byte[] bits = bitSet.toByteArray();
+                writeVarInt(out, bits.length);
+                out.write(bits);
+            }
+
+            if (values != null)
+            {
+                for (long index : indices)
+                {
+                    int x = (int) (index / sizeZ / sizeY), y = (int) (index / sizeZ % sizeY), z = (int) (index % sizeZ);
+                    out.writeFloat((float) values.get(PackedBlockPos.pack(minX + x, minY + y, minZ + z)));
+                }
+            }
+        }
+        catch (IOException e)
+        {
+            // Can't happen in memory
+            throw new IllegalStateException(e);
+        }
+
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Reads positions written by {@link #write(TLongCollection, TLongDoubleMap)}. Positions without values are
+     * reported with a value of 0.
+     *
+     * @return Whether the data could be read.
+     */
+    public static boolean read(byte[] data, TLongDoubleProcedure consumer)
+    {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data)))
+        {
+            int version = in.readUnsignedByte();
+            if (version != VERSION)
+                return false;
+
+            int flags = in.readUnsignedByte();
+            int count = readVarInt(in);
+            if (count == 0)
+                return true;
+
+            int minX = in.readInt(), minY = in.readInt(), minZ = in.readInt();
+            int sizeX = readVarInt(in), sizeY = readVarInt(in), sizeZ = readVarInt(in);
+
+            long[] positions = new long[count];
+            if ((flags & FLAG_SPARSE) != 0)
+            {
+                for (int i = 0; i < count; i++)
+                    positions[i] = PackedBlockPos.pack(minX + readVarInt(in), minY + readVarInt(in), minZ + readVarInt(in));
+            }
+            else
+            {
+                byte[] bits = new byte[readVarInt(in)];
+                in.readFully(bits);
+                BitSet bitSet = BitSet.valueOf(bits);
+
+                int i = 0;
+                for (int index = bitSet.nextSetBit(0); index >= 0 && i < count; index = bitSet.nextSetBit(index + 1))
+                {
+                    int x = index / sizeZ / sizeY, y = index / sizeZ % sizeY, z = index % sizeZ;
+                    positions[i++] = PackedBlockPos.pack(minX + x, minY + y, minZ + z);
+                }
+
+                if (i < count)
+                    return false;
+            }
+
+            float[] values = new float[count];
+            if ((flags & FLAG_VALUES) != 0)
+            {
+                for (int i = 0; i < count; i++)
+                    values[i] = in.readFloat();
+            }
+
+            // Only report once everything could be read
+            for (int i = 0; i < count; i++)
+                consumer.execute(positions[i], values[i]);
+
+            return true;
+        }
+        catch (IOException e)
+        {
+            return false;
+        }
+    }
+
+    protected static void writeVarInt(DataOutput out, int value) throws IOException
+    {
+        while ((value & ~0x7F) != 0)
+        {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    protected static int readVarInt(DataInput in) throws IOException
+    {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7)
+        {
+            int b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0)
+                return value;
+        }
+        throw new IOException("VarInt too long");
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ *  Copyright (c) 2014, Lukas Tenbrink.
+ *  * http://ivorius.net
+ */
+
+package ivorius.reccomplex.utils;
+
+import net.minecraft.util.math.BlockPos;
+
+/**
+ * Block positions packed into longs, in the same layout as {@link BlockPos#toLong()}, but packed and unpacked
+ * without allocating. Good for primitive collections of positions.
+ */
+public class PackedBlockPos
+{
+    public static final int X_BITS = 26, Z_BITS = 26, Y_BITS = 64 - X_BITS - Z_BITS;
+    public static final int Y_SHIFT = Z_BITS, X_SHIFT = Y_SHIFT + Y_BITS;
+
+    public static final long X_MASK = (1L << X_BITS) - 1, Y_MASK = (1L << Y_BITS) - 1, Z_MASK = (1L << Z_BITS) - 1;
+
+    public static long pack(int x, int y, int z)
+    {
+        return (x & X_MASK) << X_SHIFT | (y & Y_MASK) << Y_SHIFT | (z & Z_MASK);
+    }
+
+    public static long pack(BlockPos pos)
+    {
+        return pack(pos.getX(), pos.getY(), pos.getZ());
+    }
+
+    public static int x(long packed)
+    {
+        return (int) (packed << (64 - X_SHIFT - X_BITS) >> (64 - X_BITS));
+    }
+
+    public static int y(long packed)
+    {
+        return (int) (packed << (64 - Y_SHIFT - Y_BITS) >> (64 - Y_BITS));
+    }
+
+    public static int z(long packed)
+    {
+        return (int) (packed << (64 - Z_BITS) >> (64 - Z_BITS));
+    }
+
+    public static BlockPos.MutableBlockPos unpack(long packed, BlockPos.MutableBlockPos pos)
+    {
+        return pos.setPos(x(packed), y(packed), z(packed));
+    }
+
+    public static long offset(long packed, int x, int y, int z)
+    {
+        return pack(x(packed) + x, y(packed) + y, z(packed) + z);
+    }
+}
@@ -7,8 +7,10 @@ package ivorius.reccomplex.utils.accessor;
 
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
+import ivorius.reccomplex.RecurrentComplex;
 import net.minecraftforge.common.BiomeDictionary;
 
+import java.lang.invoke.MethodHandle;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -19,6 +21,9 @@ import java.util.Map;
  */
 public class RCAccessorBiomeDictionary
 {
+    private static final MethodHandle byName = SafeReflector.getter(BiomeDictionary.Type.class, "byName");
+    private static final MethodHandle subTypes = SafeReflector.getter(BiomeDictionary.Type.class, "subTypes");
+
     public static BiomeDictionary.Type getTypeWeak(String var)
     {
         return getMap().get(var.toUpperCase());
@@ -26,7 +31,15 @@ public class RCAccessorBiomeDictionary
 
     public static Map<String, BiomeDictionary.Type> getMap()
     {
-        return SafeReflector.get(BiomeDictionary.Type.class, null, "byName");
+        try
+        {
+            //noinspection unchecked
+            return (Map<String, BiomeDictionary.Type>) byName.invoke();
+        }
+        catch (Throwable e)
+        {
+            throw new RuntimeException(e);
+        }
     }
 
     public static void addSubtypes(BiomeDictionary.Type type, BiomeDictionary.Type... subtypes)
@@ -41,9 +54,20 @@ public class RCAccessorBiomeDictionary
 
     public static List<BiomeDictionary.Type> getSubtypes(BiomeDictionary.Type type)
     {
-        return SafeReflector.get(BiomeDictionary.Type.class, type, new ArrayList<>(), "subTypes");
+        try
+        {
+            //noinspection unchecked
+            return (List<BiomeDictionary.Type>) subTypes.invoke(type);
+        }
+        catch (Throwable e)
+        {
+            RecurrentComplex.logger.error(e);
+        }
+
+        return new ArrayList<>();
     }
 
+    // Final, so it can't be set through a method handle
     public static void setSubtypes(BiomeDictionary.Type type, List<BiomeDictionary.Type> types)
     {
         SafeReflector.of(BiomeDictionary.Type.class, field -> field.set(type, types), "subTypes");
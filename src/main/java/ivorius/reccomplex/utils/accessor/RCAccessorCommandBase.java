@@ -5,36 +5,28 @@
 
 package ivorius.reccomplex.utils.accessor;
 
+import ivorius.reccomplex.RecurrentComplex;
 import net.minecraft.command.CommandBase;
 import net.minecraft.command.ICommandListener;
-import net.minecraftforge.fml.relauncher.ReflectionHelper;
 
-import java.lang.reflect.Field;
+import java.lang.invoke.MethodHandle;
 
 /**
  * Created by lukas on 18.01.15.
  */
 public class RCAccessorCommandBase
 {
-    private static Field commandAdmin;
-
-    private static void initializeUniqueID()
-    {
-        if (commandAdmin == null)
-            commandAdmin = ReflectionHelper.findField(CommandBase.class, "commandListener", "field_71533_a");
-    }
+    private static final MethodHandle commandAdmin = SafeReflector.getter(CommandBase.class, "commandListener", "field_71533_a");
 
     public static ICommandListener getCommandAdmin()
     {
-        initializeUniqueID();
-
         try
         {
-            return (ICommandListener) commandAdmin.get(null);
+            return (ICommandListener) commandAdmin.invokeExact();
         }
-        catch (IllegalAccessException e)
+        catch (Throwable e)
         {
-            e.printStackTrace();
+            RecurrentComplex.logger.error(e);
         }
 
         return null;
@@ -5,10 +5,10 @@
 
 package ivorius.reccomplex.utils.accessor;
 
-import net.minecraftforge.fml.relauncher.ReflectionHelper;
+import ivorius.reccomplex.RecurrentComplex;
 import net.minecraft.entity.Entity;
 
-import java.lang.reflect.Field;
+import java.lang.invoke.MethodHandle;
 import java.util.UUID;
 
 /**
@@ -16,39 +16,30 @@ import java.util.UUID;
  */
 public class RCAccessorEntity
 {
-    private static Field uniqueID;
-
-    private static void initializeUniqueID()
-    {
-        if (uniqueID == null)
-            uniqueID = ReflectionHelper.findField(Entity.class, "entityUniqueID", "field_96093_i");
-    }
+    private static final MethodHandle getUniqueID = SafeReflector.getter(Entity.class, "entityUniqueID", "field_96093_i");
+    private static final MethodHandle setUniqueID = SafeReflector.setter(Entity.class, "entityUniqueID", "field_96093_i");
 
     public static void setEntityUniqueID(Entity entity, UUID uuid)
     {
-        initializeUniqueID();
-
         try
         {
-            uniqueID.set(entity, uuid);
+            setUniqueID.invokeExact(entity, uuid);
         }
-        catch (IllegalAccessException e)
+        catch (Throwable e)
         {
-            e.printStackTrace();
+            RecurrentComplex.logger.error(e);
         }
     }
 
     public static UUID getEntityUniqueID(Entity entity)
     {
-        initializeUniqueID();
-
         try
         {
-            return (UUID) uniqueID.get(entity);
+            return (UUID) getUniqueID.invokeExact(entity);
         }
-        catch (IllegalAccessException e)
+        catch (Throwable e)
         {
-            e.printStackTrace();
+            RecurrentComplex.logger.error(e);
         }
 
         return null;
@@ -0,0 +1,49 @@
+/*
+ *  Copyright (c) 2014, Lukas Tenbrink.
+ *  * http://ivorius.net
+ */
+
+package ivorius.reccomplex.utils.accessor;
+
+import ivorius.reccomplex.RecurrentComplex;
+import net.minecraft.client.gui.GuiButton;
+import net.minecraft.client.gui.GuiChat;
+import net.minecraft.client.gui.GuiScreen;
+import net.minecraft.client.gui.GuiTextField;
+import net.minecraftforge.fml.relauncher.Side;
+import net.minecraftforge.fml.relauncher.SideOnly;
+
+import java.lang.invoke.MethodHandle;
+
+@SideOnly(Side.CLIENT)
+public class RCAccessorGui
+{
+    private static final MethodHandle inputField = SafeReflector.getter(GuiChat.class, "inputField", "field_146415_a");
+    private static final MethodHandle selectedButton = SafeReflector.setter(GuiScreen.class, "selectedButton", "field_146290_a");
+
+    public static GuiTextField getInputField(GuiChat chat)
+    {
+        try
+        {
+            return (GuiTextField) inputField.invokeExact(chat);
+        }
+        catch (Throwable e)
+        {
+            RecurrentComplex.logger.error(e);
+        }
+
+        return null;
+    }
+
+    public static void setSelectedButton(GuiScreen screen, GuiButton button)
+    {
+        try
+        {
+            selectedButton.invokeExact(screen, button);
+        }
+        catch (Throwable e)
+        {
+            RecurrentComplex.logger.error(e);
+        }
+    }
+}
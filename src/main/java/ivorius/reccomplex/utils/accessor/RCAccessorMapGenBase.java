@@ -0,0 +1,59 @@
+/*
+ *  Copyright (c) 2014, Lukas Tenbrink.
+ *  * http://ivorius.net
+ */
+
+package ivorius.reccomplex.utils.accessor;
+
+import ivorius.reccomplex.RecurrentComplex;
+import net.minecraft.world.World;
+import net.minecraft.world.chunk.ChunkPrimer;
+import net.minecraft.world.gen.MapGenBase;
+
+import java.lang.invoke.MethodHandle;
+import java.util.Random;
+
+public class RCAccessorMapGenBase
+{
+    private static final MethodHandle world = SafeReflector.setter(MapGenBase.class, "world", "field_75039_c");
+    private static final MethodHandle rand = SafeReflector.setter(MapGenBase.class, "rand", "field_75038_b");
+
+    private static final MethodHandle recursiveGenerate = SafeReflector.method(MapGenBase.class, "recursiveGenerate", "func_180701_a",
+            World.class, Integer.TYPE, Integer.TYPE, Integer.TYPE, Integer.TYPE, ChunkPrimer.class);
+
+    public static void setWorld(MapGenBase gen, World world)
+    {
+        try
+        {
+            RCAccessorMapGenBase.world.invokeExact(gen, world);
+        }
+        catch (Throwable e)
+        {
+            RecurrentComplex.logger.error(e);
+        }
+    }
+
+    public static void setRand(MapGenBase gen, Random rand)
+    {
+        try
+        {
+            RCAccessorMapGenBase.rand.invokeExact(gen, rand);
+        }
+        catch (Throwable e)
+        {
+            RecurrentComplex.logger.error(e);
+        }
+    }
+
+    public static void recursiveGenerate(MapGenBase gen, World world, int chunkX, int chunkZ, int originalX, int originalZ, ChunkPrimer primer)
+    {
+        try
+        {
+            recursiveGenerate.invokeExact(gen, world, chunkX, chunkZ, originalX, originalZ, primer);
+        }
+        catch (Throwable e)
+        {
+            RecurrentComplex.logger.error(e);
+        }
+    }
+}
@@ -5,25 +5,93 @@
 
 package ivorius.reccomplex.utils.accessor;
 
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import ivorius.reccomplex.RecurrentComplex;
 import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.World;
 import net.minecraft.world.gen.structure.MapGenStructure;
 import net.minecraft.world.gen.structure.StructureStart;
-import net.minecraftforge.fml.relauncher.ReflectionHelper;
 
-import java.lang.reflect.Method;
+import java.lang.invoke.MethodHandle;
 
 /**
  * Created by lukas on 30.06.17.
  */
 public class RCAccessorMapGenStructure
 {
-    private static Method getStructureAt;
+    private static final MethodHandle structureMap = SafeReflector.getter(MapGenStructure.class, "structureMap", "field_75053_d");
+
+    private static final MethodHandle getStructureAt = SafeReflector.method(MapGenStructure.class, "getStructureAt", "func_175797_c",
+            BlockPos.class);
+    private static final MethodHandle canSpawnStructureAtCoords = SafeReflector.method(MapGenStructure.class, "canSpawnStructureAtCoords", "func_75047_a",
+            Integer.TYPE, Integer.TYPE);
+    private static final MethodHandle initializeStructureData = SafeReflector.method(MapGenStructure.class, "initializeStructureData", "func_143027_a",
+            World.class);
+    private static final MethodHandle setStructureStart = SafeReflector.method(MapGenStructure.class, "setStructureStart", "func_143026_a",
+            Integer.TYPE, Integer.TYPE, StructureStart.class);
+
+    public static Long2ObjectMap<StructureStart> getStructureMap(MapGenStructure gen)
+    {
+        try
+        {
+            //noinspection unchecked
+            return (Long2ObjectMap<StructureStart>) structureMap.invokeExact(gen);
+        }
+        catch (Throwable e)
+        {
+            throw new RuntimeException(e);
+        }
+    }
 
     public static StructureStart getStructureAt(MapGenStructure gen, BlockPos pos)
     {
-        if (getStructureAt == null)
-            getStructureAt = ReflectionHelper.findMethod(MapGenStructure.class, "getStructureAt", "func_175797_c", BlockPos.class);
+        try
+        {
+            return (StructureStart) getStructureAt.invokeExact(gen, pos);
+        }
+        catch (Throwable e)
+        {
+            RecurrentComplex.logger.error(e);
+        }
+
+        return null;
+    }
+
+    public static boolean canSpawnStructureAtCoords(MapGenStructure gen, int chunkX, int chunkZ)
+    {
+        try
+        {
+            return (boolean) canSpawnStructureAtCoords.invokeExact(gen, chunkX, chunkZ);
+        }
+        catch (Throwable e)
+        {
+            RecurrentComplex.logger.error(e);
+        }
+
+        return false;
+    }
 
-        return SafeReflector.invoke(gen, getStructureAt, null, pos);
+    public static void initializeStructureData(MapGenStructure gen, World world)
+    {
+        try
+        {
+            initializeStructureData.invokeExact(gen, world);
+        }
+        catch (Throwable e)
+        {
+            RecurrentComplex.logger.error(e);
+        }
+    }
+
+    public static void setStructureStart(MapGenStructure gen, int x, int z, StructureStart start)
+    {
+        try
+        {
+            setStructureStart.invokeExact(gen, x, z, start);
+        }
+        catch (Throwable e)
+        {
+            RecurrentComplex.logger.error(e);
+        }
     }
 }
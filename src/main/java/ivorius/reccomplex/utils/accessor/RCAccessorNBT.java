@@ -5,34 +5,103 @@
 
 package ivorius.reccomplex.utils.accessor;
 
-import net.minecraftforge.fml.relauncher.ReflectionHelper;
-import net.minecraft.nbt.NBTBase;
-import net.minecraft.nbt.NBTTagCompound;
+import ivorius.reccomplex.RecurrentComplex;
+import net.minecraft.nbt.*;
 
 import java.io.DataOutput;
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
+import java.lang.invoke.MethodHandle;
 
 /**
  * Created by lukas on 18.01.15.
  */
 public class RCAccessorNBT
 {
-    private static Method methodSetNBTTagName;
+    private static final MethodHandle writeEntry = SafeReflector.method(NBTTagCompound.class, "writeEntry", "func_150298_a",
+            String.class, NBTBase.class, DataOutput.class);
+
+    private static final MethodHandle byteData = SafeReflector.setter(NBTTagByte.class, "data", "field_74756_a");
+    private static final MethodHandle shortData = SafeReflector.setter(NBTTagShort.class, "data", "field_74752_a");
+    private static final MethodHandle intData = SafeReflector.setter(NBTTagInt.class, "data", "field_74748_a");
+    private static final MethodHandle longData = SafeReflector.setter(NBTTagLong.class, "data", "field_74753_a");
+    private static final MethodHandle floatData = SafeReflector.setter(NBTTagFloat.class, "data", "field_74750_a");
+    private static final MethodHandle doubleData = SafeReflector.setter(NBTTagDouble.class, "data", "field_74755_a");
+    private static final MethodHandle byteArrayData = SafeReflector.setter(NBTTagByteArray.class, "data", "field_74754_a");
+    private static final MethodHandle stringData = SafeReflector.setter(NBTTagString.class, "data", "field_74751_a");
+    private static final MethodHandle intArrayData = SafeReflector.setter(NBTTagIntArray.class, "intArray", "field_74749_a");
+    private static final MethodHandle listTagType = SafeReflector.setter(NBTTagList.class, "tagType", "field_74746_b");
 
     public static void writeEntry(String name, NBTBase nbt, DataOutput dataOutput)
     {
-        if (methodSetNBTTagName == null)
-            methodSetNBTTagName = ReflectionHelper.findMethod(NBTTagCompound.class, "writeEntry", "func_150298_a",
-                    String.class, NBTBase.class, DataOutput.class);
+        try
+        {
+            writeEntry.invokeExact(name, nbt, dataOutput);
+        }
+        catch (Throwable e)
+        {
+            RecurrentComplex.logger.error(e);
+        }
+    }
+
+    public static void setData(NBTTagByte nbt, byte data)
+    {
+        set(byteData, nbt, data);
+    }
+
+    public static void setData(NBTTagShort nbt, short data)
+    {
+        set(shortData, nbt, data);
+    }
+
+    public static void setData(NBTTagInt nbt, int data)
+    {
+        set(intData, nbt, data);
+    }
+
+    public static void setData(NBTTagLong nbt, long data)
+    {
+        set(longData, nbt, data);
+    }
+
+    public static void setData(NBTTagFloat nbt, float data)
+    {
+        set(floatData, nbt, data);
+    }
+
+    public static void setData(NBTTagDouble nbt, double data)
+    {
+        set(doubleData, nbt, data);
+    }
 
+    public static void setData(NBTTagByteArray nbt, byte[] data)
+    {
+        set(byteArrayData, nbt, data);
+    }
+
+    public static void setData(NBTTagString nbt, String data)
+    {
+        set(stringData, nbt, data);
+    }
+
+    public static void setData(NBTTagIntArray nbt, int[] data)
+    {
+        set(intArrayData, nbt, data);
+    }
+
+    public static void setTagType(NBTTagList nbt, byte type)
+    {
+        set(listTagType, nbt, type);
+    }
+
+    // Only used by the editor, so not worth an exactly typed call each
+    private static void set(MethodHandle setter, NBTBase nbt, Object value)
+    {
         try
         {
-            methodSetNBTTagName.invoke(null, name, nbt, dataOutput);
+            setter.invoke(nbt, value);
         }
-        catch (IllegalAccessException | InvocationTargetException e)
+        catch (Throwable e)
         {
-            e.printStackTrace();
+            RecurrentComplex.logger.error(e);
         }
     }
 }
@@ -0,0 +1,29 @@
+/*
+ *  Copyright (c) 2014, Lukas Tenbrink.
+ *  * http://ivorius.net
+ */
+
+package ivorius.reccomplex.utils.accessor;
+
+import ivorius.reccomplex.RecurrentComplex;
+import net.minecraft.world.WorldProvider;
+import net.minecraft.world.biome.BiomeProvider;
+
+import java.lang.invoke.MethodHandle;
+
+public class RCAccessorWorldProvider
+{
+    private static final MethodHandle biomeProvider = SafeReflector.setter(WorldProvider.class, "biomeProvider", "field_76578_c");
+
+    public static void setBiomeProvider(WorldProvider provider, BiomeProvider biomeProvider)
+    {
+        try
+        {
+            RCAccessorWorldProvider.biomeProvider.invokeExact(provider, biomeProvider);
+        }
+        catch (Throwable e)
+        {
+            RecurrentComplex.logger.error(e);
+        }
+    }
+}
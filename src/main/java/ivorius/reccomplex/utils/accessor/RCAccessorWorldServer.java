@@ -5,54 +5,61 @@
 
 package ivorius.reccomplex.utils.accessor;
 
-import net.minecraftforge.fml.relauncher.ReflectionHelper;
+import ivorius.reccomplex.RecurrentComplex;
 import net.minecraft.world.WorldServer;
+import net.minecraftforge.fml.relauncher.ReflectionHelper;
 
-import java.lang.reflect.*;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
 
 /**
  * Created by lukas on 28.03.15.
  */
 public class RCAccessorWorldServer
 {
-    private static Class<?> worldServerServerBlockEventListClass;
-    private static Field blockEventQueueField;
-    private static Constructor<?> blockEventListConstructor;
+    private static final Class<?> serverBlockEventListClass;
+    // Final, so it can't be set through a method handle; only needed for broken worlds anyway
+    private static final Field blockEventQueueField = ReflectionHelper.findField(WorldServer.class, "blockEventQueue", "field_147490_S");
+    private static final MethodHandle blockEventQueue;
+    private static final MethodHandle newBlockEventList;
 
-    public static void ensureBlockEventArray(WorldServer worldServer)
+    static
     {
-        if (worldServerServerBlockEventListClass == null)
+        try
         {
-            try
-            {
-                worldServerServerBlockEventListClass = Class.forName("net.minecraft.world.WorldServer$ServerBlockEventList");
-            }
-            catch (ClassNotFoundException e)
-            {
-                e.printStackTrace();
-            }
+            serverBlockEventListClass = Class.forName("net.minecraft.world.WorldServer$ServerBlockEventList");
+
+            Constructor<?> constructor = serverBlockEventListClass.getDeclaredConstructors()[0];
+            constructor.setAccessible(true);
+
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            newBlockEventList = lookup.unreflectConstructor(constructor);
+            blockEventQueue = lookup.unreflectGetter(blockEventQueueField);
         }
-        if (blockEventQueueField == null)
-            blockEventQueueField = ReflectionHelper.findField(WorldServer.class, "blockEventQueue", "field_147490_S");
-        if (blockEventListConstructor == null)
+        catch (ClassNotFoundException | IllegalAccessException e)
         {
-            blockEventListConstructor = worldServerServerBlockEventListClass.getDeclaredConstructors()[0];
-            blockEventListConstructor.setAccessible(true);
+            throw new RuntimeException(e);
         }
+    }
 
+    public static void ensureBlockEventArray(WorldServer worldServer)
+    {
         try
         {
-            if (blockEventQueueField.get(worldServer) == null)
+            if (blockEventQueue.invoke(worldServer) == null)
             {
-                Object instance = Array.newInstance(worldServerServerBlockEventListClass, 2);
-                Array.set(instance, 0, blockEventListConstructor.newInstance());
-                Array.set(instance, 1, blockEventListConstructor.newInstance());
+                Object instance = Array.newInstance(serverBlockEventListClass, 2);
+                Array.set(instance, 0, newBlockEventList.invoke());
+                Array.set(instance, 1, newBlockEventList.invoke());
                 blockEventQueueField.set(worldServer, instance);
             }
         }
-        catch (IllegalAccessException | InstantiationException | InvocationTargetException e)
+        catch (Throwable e)
         {
-            e.printStackTrace();
+            RecurrentComplex.logger.error(e);
         }
     }
 }
@@ -8,9 +8,12 @@ package ivorius.reccomplex.utils.accessor;
 import ivorius.reccomplex.RecurrentComplex;
 import net.minecraftforge.fml.relauncher.ReflectionHelper;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.util.Arrays;
 
 /**
  * Created by lukas on 13.12.16.
@@ -77,6 +80,45 @@ public class SafeReflector
         return defaultVal;
     }
 
+    /**
+     * Resolves a private method into a method handle, to be kept in a static final field and called with invokeExact.
+     */
+    public static MethodHandle method(Class<?> clazz, String name, String obfName, Class<?>... params)
+    {
+        try
+        {
+            return MethodHandles.lookup().unreflect(ReflectionHelper.findMethod(clazz, name, obfName, params));
+        }
+        catch (IllegalAccessException e)
+        {
+            throw new RuntimeException("Unable to resolve: " + name, e);
+        }
+    }
+
+    public static MethodHandle getter(Class<?> clazz, String... names)
+    {
+        try
+        {
+            return MethodHandles.lookup().unreflectGetter(ReflectionHelper.findField(clazz, names));
+        }
+        catch (IllegalAccessException e)
+        {
+            throw new RuntimeException("Unable to resolve: " + Arrays.toString(names), e);
+        }
+    }
+
+    public static MethodHandle setter(Class<?> clazz, String... names)
+    {
+        try
+        {
+            return MethodHandles.lookup().unreflectSetter(ReflectionHelper.findField(clazz, names));
+        }
+        catch (IllegalAccessException e)
+        {
+            throw new RuntimeException("Unable to resolve: " + Arrays.toString(names), e);
+        }
+    }
+
     public interface FieldTask
     {
         void execute(Field field) throws Exception;
@@ -5,7 +5,11 @@
 
 package ivorius.reccomplex.utils.algebra;
 
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.function.Function;
+import java.util.function.Predicate;
 
 /**
  * Created by lukas on 23.02.15.
@@ -14,39 +18,99 @@ public abstract class BoolAlgebra
 {
     public static final Function<String, Boolean> CONSTANT_EVALUATOR = Boolean::valueOf;
 
+    /**
+     * Compiles an expression into a tree of predicates, which short-circuits like the expression and doesn't box.
+     *
+     * @param variables Compiles the expression's variables.
+     * @return The compiled expression, or null if it contains operators that can't be compiled.
+     */
+    @Nullable
+    public static <V, A> Predicate<A> compile(Algebra.Expression<Boolean, V> expression, Function<V, Predicate<A>> variables)
+    {
+        if (expression instanceof Algebra.Constant)
+        {
+            Boolean value = ((Algebra.Constant<Boolean, V>) expression).value;
+            if (value == null)
+                return null;
+
+            boolean constant = value;
+            return a -> constant;
+        }
+        else if (expression instanceof Algebra.Variable)
+            return variables.apply(((Algebra.Variable<Boolean, V>) expression).value);
+        else if (expression instanceof Algebra.Operation)
+        {
+            Algebra.Operation<Boolean, V> operation = (Algebra.Operation<Boolean, V>) expression;
+
+            List<Predicate<A>> arguments = new ArrayList<>(operation.expressions.length);
+            for (Algebra.Expression<Boolean, V> argument : operation.expressions)
+            {
+                Predicate<A> compiled = compile(argument, variables);
+                if (compiled == null)
+                    return null;
+                arguments.add(compiled);
+            }
+
+            if (operation.operator instanceof Algebras.Parentheses)
+                return arguments.get(0);
+            else if (operation.operator instanceof Compilable)
+                return ((Compilable) operation.operator).compile(arguments);
+        }
+
+        return null;
+    }
+
     public static Algebras.Unary<Boolean> not(String symbol)
     {
-        return new Algebras.Unary<Boolean>(5f, Algebras.Unary.Notation.PREFIX, symbol)
+        return new CompilableUnary(5f, Algebras.Unary.Notation.PREFIX, symbol)
         {
             @Override
             public <V> Boolean evaluate(Function<V, Boolean> variableEvaluator, Algebra.Expression<Boolean, V> expression)
             {
                 return !expression.evaluate(variableEvaluator);
             }
+
+            @Override
+            public <A> Predicate<A> compile(List<Predicate<A>> arguments)
+            {
+                return arguments.get(0).negate();
+            }
         };
     }
 
     public static Algebras.Infix<Boolean> and(String symbol)
     {
-        return new Algebras.Infix<Boolean>(4f, symbol)
+        return new CompilableInfix(4f, symbol)
         {
             @Override
             public <V> Boolean evaluate(Function<V, Boolean> variableEvaluator, Algebra.Expression<Boolean, V> left, Algebra.Expression<Boolean, V> right)
             {
                 return left.evaluate(variableEvaluator) && right.evaluate(variableEvaluator);
             }
+
+            @Override
+            public <A> Predicate<A> compile(List<Predicate<A>> arguments)
+            {
+                return arguments.get(0).and(arguments.get(1));
+            }
         };
     }
 
     public static Algebras.Infix<Boolean> or(String symbol)
     {
-        return new Algebras.Infix<Boolean>(4f, symbol)
+        return new CompilableInfix(4f, symbol)
         {
             @Override
             public <V> Boolean evaluate(Function<V, Boolean> variableEvaluator, Algebra.Expression<Boolean, V> left, Algebra.Expression<Boolean, V> right)
             {
                 return left.evaluate(variableEvaluator) || right.evaluate(variableEvaluator);
             }
+
+            @Override
+            public <A> Predicate<A> compile(List<Predicate<A>> arguments)
+            {
+                return arguments.get(0).or(arguments.get(1));
+            }
         };
     }
 
@@ -76,7 +140,7 @@ public abstract class BoolAlgebra
 
     public static Algebra.Operator<Boolean> conditional(String left, String right)
     {
-        return new Algebra.Operator<Boolean>(2f, true, true, left, right)
+        return new CompilableOperator(2f, true, true, left, right)
         {
             @Override
             public <V> Boolean evaluate(Function<V, Boolean> variableEvaluator, Algebra.Expression<Boolean, V>[] expressions)
@@ -85,6 +149,13 @@ public abstract class BoolAlgebra
                         ? expressions[1].evaluate(variableEvaluator)
                         : expressions[2].evaluate(variableEvaluator);
             }
+
+            @Override
+            public <A> Predicate<A> compile(List<Predicate<A>> arguments)
+            {
+                Predicate<A> condition = arguments.get(0), ifTrue = arguments.get(1), ifFalse = arguments.get(2);
+                return a -> condition.test(a) ? ifTrue.test(a) : ifFalse.test(a);
+            }
         };
     }
 
@@ -92,4 +163,36 @@ public abstract class BoolAlgebra
     {
         return new Algebras.Parentheses<>(1f, left, right);
     }
+
+    /**
+     * An operator that can be compiled by {@link #compile(Algebra.Expression, Function)}.
+     */
+    public interface Compilable
+    {
+        <A> Predicate<A> compile(List<Predicate<A>> arguments);
+    }
+
+    protected static abstract class CompilableOperator extends Algebra.Operator<Boolean> implements Compilable
+    {
+        public CompilableOperator(float precedence, boolean hasLeftArgument, boolean hasRightArgument, String... symbols)
+        {
+            super(precedence, hasLeftArgument, hasRightArgument, symbols);
+        }
+    }
+
+    protected static abstract class CompilableUnary extends Algebras.Unary<Boolean> implements Compilable
+    {
+        public CompilableUnary(float precedence, Notation notation, String symbol)
+        {
+            super(precedence, notation, symbol);
+        }
+    }
+
+    protected static abstract class CompilableInfix extends Algebras.Infix<Boolean> implements Compilable
+    {
+        public CompilableInfix(float precedence, String symbol)
+        {
+            super(precedence, symbol);
+        }
+    }
 }
@@ -7,6 +7,7 @@ package ivorius.reccomplex.utils.algebra;
 
 import ivorius.reccomplex.RCConfig;
 
+import javax.annotation.Nullable;
 import java.util.function.Function;
 import java.util.function.Predicate;
 
@@ -17,6 +18,10 @@ public class BoolFunctionExpressionCache<A, U> extends FunctionExpressionCache<B
 {
     public static final String GLOBAL_PREFIX = "global:";
 
+    // Set while parsing, which can happen during super construction - no initializer!
+    @Nullable
+    protected Predicate<SupplierCache<A>> compiledExpression;
+
     public BoolFunctionExpressionCache(Algebra<Boolean> algebra)
     {
         super(algebra);
@@ -38,6 +43,23 @@ public class BoolFunctionExpressionCache<A, U> extends FunctionExpressionCache<B
         addType(new VariableTypeGlobal(GLOBAL_PREFIX, ""));
     }
 
+    @Override
+    protected void parseExpression()
+    {
+        super.parseExpression();
+
+        @SuppressWarnings("unchecked") Algebra.Expression<Boolean, Function<SupplierCache<? super A>, Boolean>> expression = (Algebra.Expression<Boolean, Function<SupplierCache<? super A>, Boolean>>) this.parsedExpression;
+        compiledExpression = expression != null
+                ? BoolAlgebra.compile(expression, fun -> a -> fun.apply(a))
+                : null;
+    }
+
+    @Override
+    public Boolean evaluate(SupplierCache<A> a)
+    {
+        return compiledExpression != null ? compiledExpression.test(a) : super.evaluate(a);
+    }
+
     @Override
     public boolean test(A a)
     {
@@ -20,6 +20,11 @@ public class SupplierCache<T>
         this.supplier = supplier;
     }
 
+    private SupplierCache(T t)
+    {
+        this.t = t;
+    }
+
     public static <T> SupplierCache<T> of(Supplier<? extends T> supplier)
     {
         return new SupplierCache<>(supplier);
@@ -27,7 +32,7 @@ public class SupplierCache<T>
 
     public static <T> SupplierCache<T> direct(T t)
     {
-        return new SupplierCache<>(() -> t);
+        return t != null ? new SupplierCache<>(t) : new SupplierCache<>(() -> null);
     }
 
     public T get()
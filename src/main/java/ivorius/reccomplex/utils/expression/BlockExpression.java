@@ -11,6 +11,7 @@ import ivorius.ivtoolkit.blocks.BlockStates;
 import ivorius.ivtoolkit.gui.IntegerRange;
 import ivorius.ivtoolkit.tools.MCRegistry;
 import ivorius.reccomplex.utils.IntegerRanges;
+import ivorius.reccomplex.utils.algebra.Algebra;
 import ivorius.reccomplex.utils.algebra.BoolFunctionExpressionCache;
 import ivorius.reccomplex.utils.algebra.RCBoolAlgebra;
 import ivorius.reccomplex.utils.algebra.SupplierCache;
@@ -26,12 +27,22 @@ import net.minecraftforge.fml.common.Loader;
 import net.minecraftforge.fml.common.event.FMLInterModComms;
 import org.apache.commons.lang3.tuple.Pair;
 
+import javax.annotation.Nullable;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 
 /**
  * Created by lukas on 03.03.15.
+ * <p>
+ * Since the result only depends on the block state, expressions that are used a lot are compiled: evaluated once for
+ * every registered state, and afterwards looked up by state ID. Compiled tables are shared between all expressions
+ * with the same string.
  */
 public class BlockExpression extends BoolFunctionExpressionCache<IBlockState, Object>
 {
@@ -40,8 +51,24 @@ public class BlockExpression extends BoolFunctionExpressionCache<IBlockState, Ob
     public static final String METADATA_PREFIX = "metadata=";
     public static final String PROPERTY_PREFIX = "property[";
 
+    /**
+     * Interpreted evaluations before an expression is compiled, so that short-lived expressions and those seeing few
+     * blocks don't pay for evaluating every registered state.
+     */
+    public static final int COMPILE_THRESHOLD = 64;
+
+    private static final AtomicInteger stateIDVersion = new AtomicInteger();
+    // By class, registry and expression
+    private static final ConcurrentMap<List<Object>, Compiled> sharedCompiled = new ConcurrentHashMap<>();
+
     public final MCRegistry registry;
 
+    @Nullable
+    protected volatile Compiled compiled;
+    protected boolean compilable;
+    // Racy, but a few evaluations more or less don't matter
+    protected int evaluations;
+
     public BlockExpression(MCRegistry registry)
     {
         super(RCBoolAlgebra.algebra(), true, TextFormatting.GREEN + "Any Block");
@@ -54,6 +81,115 @@ public class BlockExpression extends BoolFunctionExpressionCache<IBlockState, Ob
         addTypes(new PropertyVariableType(PROPERTY_PREFIX, ""), t -> t.alias("$[", ""));
     }
 
+    /**
+     * Call when block state IDs change, i.e. after registries were remapped.
+     */
+    public static void invalidateCompiled()
+    {
+        stateIDVersion.incrementAndGet();
+        sharedCompiled.clear();
+    }
+
+    @Override
+    protected void parseExpression()
+    {
+        compiled = null;
+        compilable = true;
+        evaluations = 0;
+        super.parseExpression();
+    }
+
+    @Override
+    protected Algebra.VariableParser<Function<? extends SupplierCache<? super IBlockState>, Boolean>> variableParser()
+    {
+        Algebra.VariableParser<Function<? extends SupplierCache<? super IBlockState>, Boolean>> parser = super.variableParser();
+        return var ->
+        {
+            VariableType<Boolean, ? super IBlockState, ? super Object> type = type(var);
+            // Globals can change at any moment, so their results can't be baked
+            if (type instanceof VariableTypeGlobal || (type instanceof AliasType && ((AliasType) type).parent instanceof VariableTypeGlobal))
+                compilable = false;
+            return parser.apply(var);
+        };
+    }
+
+    @Override
+    public Boolean evaluate(IBlockState state)
+    {
+        Compiled compiled = compiled();
+
+        if (compiled != null)
+        {
+            int id = Block.getStateId(state);
+            if (!compiled.ambiguous.get(id))
+                return compiled.matches.get(id);
+        }
+
+        return super.evaluate(state);
+    }
+
+    @Nullable
+    protected Compiled compiled()
+    {
+        if (!compilable || parsedExpression == null)
+            return null;
+
+        Compiled compiled = this.compiled;
+        int version = stateIDVersion.get();
+
+        if (compiled == null || compiled.version != version)
+        {
+            if (evaluations < COMPILE_THRESHOLD)
+            {
+                evaluations++;
+                return null;
+            }
+
+            List<Object> key = Arrays.asList(getClass(), registry, expression);
+            compiled = sharedCompiled.get(key);
+
+            if (compiled == null || compiled.version != version)
+            {
+                // If two threads race, both results are equivalent
+                compiled = compile(version);
+                sharedCompiled.put(key, compiled);
+            }
+
+            this.compiled = compiled;
+        }
+
+        return compiled;
+    }
+
+    protected Compiled compile(int version)
+    {
+        Compiled compiled = new Compiled(version);
+        BitSet seen = new BitSet();
+
+        for (Block block : Block.REGISTRY)
+        {
+            for (IBlockState state : block.getBlockState().getValidStates())
+            {
+                int id = Block.getStateId(state);
+                boolean matches = super.evaluate(state);
+
+                // States whose properties aren't all stored in metadata share an ID; those we have to evaluate each time
+                if (seen.get(id))
+                {
+                    if (compiled.matches.get(id) != matches)
+                        compiled.ambiguous.set(id);
+                }
+                else
+                {
+                    seen.set(id);
+                    compiled.matches.set(id, matches);
+                }
+            }
+        }
+
+        return compiled;
+    }
+
     public static String of(MCRegistry registry, Block block)
     {
         return registry.idFromBlock(block).toString();
@@ -69,6 +205,19 @@ public class BlockExpression extends BoolFunctionExpressionCache<IBlockState, Ob
         return String.format("%s & %s%d-%d", registry.idFromBlock(block), METADATA_PREFIX, range.min, range.max);
     }
 
+    protected static class Compiled
+    {
+        public final int version;
+
+        public final BitSet matches = new BitSet();
+        public final BitSet ambiguous = new BitSet();
+
+        public Compiled(int version)
+        {
+            this.version = version;
+        }
+    }
+
     public class IDVariableType extends VariableType<Boolean, IBlockState, Object>
     {
         public MCRegistry registry;
@@ -7,7 +7,9 @@ package ivorius.reccomplex.utils.expression;
 
 import ivorius.ivtoolkit.tools.MCRegistry;
 import ivorius.reccomplex.utils.RCBlockLogic;
+import ivorius.reccomplex.utils.algebra.Algebra;
 import ivorius.reccomplex.utils.algebra.BoolFunctionExpressionCache;
+import ivorius.reccomplex.utils.algebra.ExpressionCache;
 import ivorius.reccomplex.utils.algebra.RCBoolAlgebra;
 import ivorius.reccomplex.utils.algebra.SupplierCache;
 import ivorius.ivtoolkit.world.MockWorld;
@@ -37,6 +39,8 @@ public class PositionedBlockExpression extends BoolFunctionExpressionCache<Posit
 
     public final MCRegistry registry;
 
+    protected boolean positional;
+
     public PositionedBlockExpression(MCRegistry registry)
     {
         super(RCBoolAlgebra.algebra(), true, TextFormatting.GREEN + "Any Block");
@@ -49,6 +53,56 @@ public class PositionedBlockExpression extends BoolFunctionExpressionCache<Posit
         addType(new BlocksVariableType(PositionedBlockExpression.BLOCKS_PREFIX, ""));
     }
 
+    @Override
+    protected void parseExpression()
+    {
+        positional = false;
+        super.parseExpression();
+    }
+
+    @Override
+    protected Algebra.VariableParser<Function<? extends SupplierCache<? super Argument>, Boolean>> variableParser()
+    {
+        Algebra.VariableParser<Function<? extends SupplierCache<? super Argument>, Boolean>> parser = super.variableParser();
+        return var ->
+        {
+            VariableType<Boolean, ? super Argument, ? super Object> type = type(var);
+            if (type != null && dependsOnPosition(type, var.substring(type.prefix.length())))
+                positional = true;
+            return parser.apply(var);
+        };
+    }
+
+    protected static boolean dependsOnPosition(VariableType<?, ?, ?> type, String var)
+    {
+        if (type instanceof AliasType)
+            type = ((AliasType<?, ?, ?, ?>) type).parent;
+
+        if (type instanceof IsVariableType)
+            return !(var.equals("liquid") || var.equals("water") || var.equals("lava"));
+        if (type instanceof SustainVariableType)
+            return !var.equals("mushrooms");
+
+        return false;
+    }
+
+    /**
+     * @return Whether the result may depend on more than the block state, e.g. on the position or its neighbors.
+     * If not, one result holds for every block of the same state.
+     */
+    public boolean dependsOnPosition()
+    {
+        return positional;
+    }
+
+    /**
+     * Evaluates the expression at the cursor's current position, without allocating.
+     */
+    public boolean test(Argument.Cursor cursor)
+    {
+        return evaluate(cursor.supplier);
+    }
+
     public static class Argument
     {
         public MockWorld world;
@@ -62,6 +116,11 @@ public class PositionedBlockExpression extends BoolFunctionExpressionCache<Posit
             this.state = state;
         }
 
+        public IBlockState state()
+        {
+            return state;
+        }
+
         public static Argument at(MockWorld world, BlockPos pos)
         {
             return new Argument(world, pos, world.getBlockState(pos));
@@ -76,6 +135,51 @@ public class PositionedBlockExpression extends BoolFunctionExpressionCache<Posit
         {
             return at(new MockWorld.Cache(cache), pos);
         }
+
+        /**
+         * A reusable argument for evaluating many positions of the same world, e.g. while casting rays.
+         * Its pos is mutable, so variables must not hold on to it. The block state is only read once asked for,
+         * through {@link #state()}. Not thread safe; create one per operation.
+         */
+        public static class Cursor extends Argument
+        {
+            protected final BlockPos.MutableBlockPos mutablePos = new BlockPos.MutableBlockPos();
+            protected final SupplierCache<Argument> supplier = SupplierCache.direct(this);
+
+            public Cursor(MockWorld world)
+            {
+                super(world, null, null);
+                pos = mutablePos;
+            }
+
+            public Cursor(World world)
+            {
+                this(new MockWorld.Real(world));
+            }
+
+            public Cursor(WorldCache cache)
+            {
+                this(new MockWorld.Cache(cache));
+            }
+
+            public Cursor move(int x, int y, int z)
+            {
+                mutablePos.setPos(x, y, z);
+                state = null;
+                return this;
+            }
+
+            public Cursor move(BlockPos pos)
+            {
+                return move(pos.getX(), pos.getY(), pos.getZ());
+            }
+
+            @Override
+            public IBlockState state()
+            {
+                return state != null ? state : (state = world.getBlockState(mutablePos));
+            }
+        }
     }
 
     public static class BlockVariableType extends DelegatingVariableType<Boolean, Argument, Object, IBlockState, Object, BlockExpression>
@@ -91,7 +195,15 @@ public class PositionedBlockExpression extends BoolFunctionExpressionCache<Posit
         @Override
         public IBlockState convertEvaluateArgument(String var, Argument argument)
         {
-            return argument.state;
+            return argument.state();
+        }
+
+        @Override
+        public Function<SupplierCache<Argument>, Boolean> parse(String var) throws ParseException
+        {
+            // Straight to the state, so we neither allocate nor miss the compiled table
+            BlockExpression c = ExpressionCache.of(createCache(), var);
+            return a -> c.evaluate(a.get().state());
         }
 
         @Override
@@ -114,21 +226,21 @@ public class PositionedBlockExpression extends BoolFunctionExpressionCache<Posit
             switch (var)
             {
                 case "leaves":
-                    return argument -> argument.get().state.getMaterial() == Material.LEAVES
-                            || argument.get().state.getBlock().isLeaves(argument.get().state, argument.get().world.asWorld(), argument.get().pos);
+                    return argument -> argument.get().state().getMaterial() == Material.LEAVES
+                            || argument.get().state().getBlock().isLeaves(argument.get().state(), argument.get().world.asWorld(), argument.get().pos);
                 case "air":
-                    return argument -> argument.get().state.getMaterial() == Material.AIR
-                            || argument.get().state.getBlock().isAir(argument.get().state, argument.get().world.asWorld(), argument.get().pos);
+                    return argument -> argument.get().state().getMaterial() == Material.AIR
+                            || argument.get().state().getBlock().isAir(argument.get().state(), argument.get().world.asWorld(), argument.get().pos);
                 case "foliage":
-                    return argument -> RCBlockLogic.isFoliage(argument.get().state, argument.get().world.asWorld(), argument.get().pos);
+                    return argument -> RCBlockLogic.isFoliage(argument.get().state(), argument.get().world.asWorld(), argument.get().pos);
                 case "replaceable":
-                    return argument -> argument.get().state.getBlock().isReplaceable(argument.get().world.asWorld(), argument.get().pos);
+                    return argument -> argument.get().state().getBlock().isReplaceable(argument.get().world.asWorld(), argument.get().pos);
                 case "liquid":
-                    return argument -> argument.get().state.getMaterial() instanceof MaterialLiquid;
+                    return argument -> argument.get().state().getMaterial() instanceof MaterialLiquid;
                 case "water":
-                    return argument -> argument.get().state.getMaterial() == Material.WATER;
+                    return argument -> argument.get().state().getMaterial() == Material.WATER;
                 case "lava":
-                    return argument -> argument.get().state.getMaterial() == Material.LAVA;
+                    return argument -> argument.get().state().getMaterial() == Material.LAVA;
                 default:
                     throw new ParseException("Unknown Type: " + var, 0); // TODO WHERE??
             }
@@ -156,9 +268,9 @@ public class PositionedBlockExpression extends BoolFunctionExpressionCache<Posit
             switch (var)
             {
                 case "trees":
-                    return argument -> argument.get().state.getBlock().canSustainPlant(argument.get().state, argument.get().world.asWorld(), argument.get().pos, EnumFacing.UP, (BlockSapling) Blocks.SAPLING);
+                    return argument -> argument.get().state().getBlock().canSustainPlant(argument.get().state(), argument.get().world.asWorld(), argument.get().pos, EnumFacing.UP, (BlockSapling) Blocks.SAPLING);
                 case "mushrooms":
-                    return argument -> argument.get().state.getBlock() == Blocks.DIRT || argument.get().state.getBlock() == Blocks.GRASS || argument.get().state.getBlock() == Blocks.MYCELIUM;
+                    return argument -> argument.get().state().getBlock() == Blocks.DIRT || argument.get().state().getBlock() == Blocks.GRASS || argument.get().state().getBlock() == Blocks.MYCELIUM;
                 case "cacti":
                     return argument -> Blocks.CACTUS.canBlockStay(argument.get().world.asWorld(), argument.get().pos);
                 default:
@@ -187,9 +299,9 @@ public class PositionedBlockExpression extends BoolFunctionExpressionCache<Posit
             switch (var)
             {
                 case "movement":
-                    return argument -> argument.get().state.getMaterial().blocksMovement();
+                    return argument -> argument.get().state().getMaterial().blocksMovement();
                 case "light":
-                    return argument -> argument.get().state.getMaterial().blocksLight();
+                    return argument -> argument.get().state().getMaterial().blocksLight();
                 default:
                     throw new ParseException("Unknown Type: " + var, 0); // TODO WHERE??
             }
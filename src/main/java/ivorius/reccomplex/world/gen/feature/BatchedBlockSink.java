@@ -0,0 +1,231 @@
+/*
+ *  Copyright (c) 2014, Lukas Tenbrink.
+ *  * http://ivorius.net
+ */
+
+package ivorius.reccomplex.world.gen.feature;
+
+import gnu.trove.list.TLongList;
+import gnu.trove.list.array.TLongArrayList;
+import gnu.trove.map.TLongObjectMap;
+import gnu.trove.map.hash.TLongObjectHashMap;
+import net.minecraft.block.Block;
+import net.minecraft.block.BlockFalling;
+import net.minecraft.block.BlockLiquid;
+import net.minecraft.block.state.IBlockState;
+import net.minecraft.init.Blocks;
+import net.minecraft.network.play.server.SPacketChunkData;
+import net.minecraft.server.management.PlayerChunkMapEntry;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.world.World;
+import net.minecraft.world.WorldServer;
+import net.minecraft.world.chunk.Chunk;
+import net.minecraft.world.chunk.storage.ExtendedBlockStorage;
+import net.minecraftforge.fluids.IFluidBlock;
+
+import javax.annotation.Nonnull;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Writes blocks straight into the chunks' block storage, and does height map, light and client updates
+ * once per touched column / chunk on {@link #flush()}.
+ * <p>
+ * Blocks with tile entities or block callbacks and writes that want neighbor updates go through the world as usual,
+ * since they rely on those callbacks - e.g. liquids and falling blocks schedule their ticks when added.
+ */
+public class BatchedBlockSink implements BlockSink
+{
+    // Whether the block does anything on onBlockAdded / breakBlock
+    private static final Map<Block, Boolean> callbacks = new ConcurrentHashMap<>();
+
+    protected final WorldServer world;
+
+    protected final TLongObjectMap<Batch> batches = new TLongObjectHashMap<>();
+    protected Batch lastBatch;
+
+    protected final ChunkRelighter relighter;
+
+    protected long blocksPlaced;
+
+    public BatchedBlockSink(WorldServer world)
+    {
+        this.world = world;
+        this.relighter = new ChunkRelighter(world);
+    }
+
+    @Override
+    public boolean setBlockState(@Nonnull BlockPos pos, @Nonnull IBlockState state, int flags)
+    {
+        if (world.isOutsideBuildHeight(pos))
+            return false;
+
+        if ((flags & 1) != 0)
+            return setBlockStateDirect(pos, state, flags);
+
+        Batch batch = batch(pos.getX() >> 4, pos.getZ() >> 4);
+        ExtendedBlockStorage[] storageArray = batch.chunk.getBlockStorageArray();
+        int x = pos.getX() & 15, y = pos.getY(), z = pos.getZ() & 15;
+
+        ExtendedBlockStorage storage = storageArray[y >> 4];
+        IBlockState prev = storage != null ? storage.get(x, y & 15, z) : Blocks.AIR.getDefaultState();
+
+        if (prev == state)
+            return false;
+
+        if (needsCallbacks(prev) || needsCallbacks(state))
+            return setBlockStateDirect(pos, state, flags);
+
+        if (storage == null)
+        {
+            if (state.getBlock() == Blocks.AIR)
+                return false;
+
+            storage = storageArray[y >> 4] = new ExtendedBlockStorage(y >> 4 << 4, world.provider.hasSkyLight());
+            batch.createdSection = true;
+        }
+
+        int prevLight = prev.getLightValue(world, pos);
+        int prevOpacity = prev.getLightOpacity(world, pos);
+        storage.set(x, y & 15, z, state);
+
+        // Like World.setBlockState, opacity changes also block or release light
+        if (prevLight != state.getLightValue(world, pos) || prevOpacity != state.getLightOpacity(world, pos))
+            batch.lightUpdates.add(pos.toLong());
+
+        relighter.mark(batch.chunk, x, y, z);
+        batch.sectionMask |= 1 << (y >> 4);
+        batch.sync |= (flags & 2) != 0;
+
+        blocksPlaced++;
+        return true;
+    }
+
+    protected static boolean needsCallbacks(IBlockState state)
+    {
+        Block block = state.getBlock();
+        return block.hasTileEntity(state) || block.getTickRandomly()
+                || callbacks.computeIfAbsent(block, BatchedBlockSink::hasCallbacks);
+    }
+
+    protected static boolean hasCallbacks(Block block)
+    {
+        if (block instanceof BlockLiquid || block instanceof IFluidBlock || block instanceof BlockFalling)
+            return true;
+
+        return overrides(block.getClass(), new String[]{"onBlockAdded", "func_176213_c"}, World.class, BlockPos.class, IBlockState.class)
+                || overrides(block.getClass(), new String[]{"breakBlock", "func_180663_b"}, World.class, BlockPos.class, IBlockState.class);
+    }
+
+    private static boolean overrides(Class<?> clazz, String[] names, Class<?>... params)
+    {
+        for (String name : names)
+        {
+            try
+            {
+                return clazz.getMethod(name, params).getDeclaringClass() != Block.class;
+            }
+            catch (NoSuchMethodException ignored)
+            {
+            }
+        }
+
+        return true; // Can't tell, so better be safe
+    }
+
+    protected boolean setBlockStateDirect(@Nonnull BlockPos pos, @Nonnull IBlockState state, int flags)
+    {
+        if (world.setBlockState(pos.toImmutable(), state, flags))
+        {
+            blocksPlaced++;
+            return true;
+        }
+
+        return false;
+    }
+
+    @Nonnull
+    protected Batch batch(int chunkX, int chunkZ)
+    {
+        if (lastBatch != null && lastBatch.chunk.x == chunkX && lastBatch.chunk.z == chunkZ)
+            return lastBatch;
+
+        long key = ChunkPos.asLong(chunkX, chunkZ);
+        Batch batch = batches.get(key);
+        if (batch == null)
+            batches.put(key, batch = new Batch(world.getChunkFromChunkCoords(chunkX, chunkZ)));
+
+        return lastBatch = batch;
+    }
+
+    @Override
+    public boolean defersLighting()
+    {
+        return true;
+    }
+
+    @Override
+    public void flush()
+    {
+        batches.forEachValue(batch ->
+        {
+            if (batch.createdSection)
+                batch.chunk.generateSkylightMap();
+            return true;
+        });
+
+        relighter.relight();
+
+        batches.forEachValue(batch ->
+        {
+            finish(batch);
+            return true;
+        });
+
+        batches.clear();
+        lastBatch = null;
+    }
+
+    protected void finish(Batch batch)
+    {
+        Chunk chunk = batch.chunk;
+
+        batch.lightUpdates.forEach(packed ->
+        {
+            // Sky and block light, like World.setBlockState - opacity changes below the height map need both
+            world.checkLight(BlockPos.fromLong(packed));
+            return true;
+        });
+
+        chunk.markDirty();
+
+        if (batch.sync && batch.sectionMask != 0)
+        {
+            PlayerChunkMapEntry entry = world.getPlayerChunkMap().getEntry(chunk.x, chunk.z);
+            if (entry != null && entry.isSentToPlayers())
+                entry.sendPacket(new SPacketChunkData(chunk, batch.sectionMask));
+        }
+    }
+
+    @Override
+    public long blocksPlaced()
+    {
+        return blocksPlaced;
+    }
+
+    protected static class Batch
+    {
+        public final Chunk chunk;
+        public final TLongList lightUpdates = new TLongArrayList();
+
+        public int sectionMask;
+        public boolean createdSection;
+        public boolean sync;
+
+        public Batch(Chunk chunk)
+        {
+            this.chunk = chunk;
+        }
+    }
+}
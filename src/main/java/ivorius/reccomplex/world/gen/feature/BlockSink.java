@@ -0,0 +1,83 @@
+/*
+ *  Copyright (c) 2014, Lukas Tenbrink.
+ *  * http://ivorius.net
+ */
+
+package ivorius.reccomplex.world.gen.feature;
+
+import ivorius.reccomplex.RCConfig;
+import net.minecraft.block.state.IBlockState;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.WorldServer;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Receives all blocks a structure places. Implementations may defer expensive world updates until {@link #flush()}.
+ */
+public interface BlockSink
+{
+    @Nonnull
+    static BlockSink of(@Nonnull WorldServer world)
+    {
+        return RCConfig.batchBlockPlacement ? new BatchedBlockSink(world) : new Direct(world);
+    }
+
+    /**
+     * @return Whether the block was changed.
+     */
+    boolean setBlockState(@Nonnull BlockPos pos, @Nonnull IBlockState state, int flags);
+
+    /**
+     * @return Whether height maps and light are only updated on {@link #flush()}.
+     */
+    boolean defersLighting();
+
+    /**
+     * Apply all outstanding updates to the world.
+     */
+    void flush();
+
+    long blocksPlaced();
+
+    class Direct implements BlockSink
+    {
+        protected final WorldServer world;
+        protected long blocksPlaced;
+
+        public Direct(WorldServer world)
+        {
+            this.world = world;
+        }
+
+        @Override
+        public boolean setBlockState(@Nonnull BlockPos pos, @Nonnull IBlockState state, int flags)
+        {
+            if (world.setBlockState(pos.toImmutable(), state, flags))
+            {
+                blocksPlaced++;
+                return true;
+            }
+
+            return false;
+        }
+
+        @Override
+        public boolean defersLighting()
+        {
+            return false;
+        }
+
+        @Override
+        public void flush()
+        {
+
+        }
+
+        @Override
+        public long blocksPlaced()
+        {
+            return blocksPlaced;
+        }
+    }
+}
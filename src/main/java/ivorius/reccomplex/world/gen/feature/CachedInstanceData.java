@@ -0,0 +1,24 @@
+/*
+ *  Copyright (c) 2014, Lukas Tenbrink.
+ *  * http://ivorius.net
+ */
+
+package ivorius.reccomplex.world.gen.feature;
+
+/**
+ * Instance data that tells the {@link InstanceDataCache} whether and at what cost it can be kept around.
+ * Instance data not implementing this is never cached.
+ */
+public interface CachedInstanceData
+{
+    /**
+     * @return Whether the data is left untouched after loading, so several generators may use it at the same time.
+     * False if anything, like a lazily filled cache, is written during generation.
+     */
+    boolean isShareable();
+
+    /**
+     * @return A rough guess of how much memory the loaded data takes, in bytes.
+     */
+    long estimateSize();
+}
@@ -0,0 +1,108 @@
+/*
+ *  Copyright (c) 2014, Lukas Tenbrink.
+ *  * http://ivorius.net
+ */
+
+package ivorius.reccomplex.world.gen.feature;
+
+import gnu.trove.map.TLongObjectMap;
+import gnu.trove.map.hash.TLongObjectHashMap;
+import net.minecraft.nbt.NBTTagCompound;
+import net.minecraft.util.math.ChunkPos;
+
+/**
+ * Set of chunk coordinates, stored as one 32x32 bit map per region.
+ * <p>
+ * Saved as a flat int array: region x, region z, then one int (x bits) per chunk row (z), for each region.
+ */
+public class ChunkBitSet
+{
+    public static final int REGION_SHIFT = 5;
+    public static final int REGION_SIZE = 1 << REGION_SHIFT;
+    public static final int REGION_MASK = REGION_SIZE - 1;
+
+    protected final TLongObjectMap<int[]> regions = new TLongObjectHashMap<>();
+
+    public boolean contains(int chunkX, int chunkZ)
+    {
+        int[] rows = regions.get(ChunkPos.asLong(chunkX >> REGION_SHIFT, chunkZ >> REGION_SHIFT));
+        return rows != null && (rows[chunkZ & REGION_MASK] & (1 << (chunkX & REGION_MASK))) != 0;
+    }
+
+    public boolean contains(ChunkPos pos)
+    {
+        return contains(pos.x, pos.z);
+    }
+
+    /**
+     * @return Whether the chunk was newly added.
+     */
+    public boolean add(int chunkX, int chunkZ)
+    {
+        long key = ChunkPos.asLong(chunkX >> REGION_SHIFT, chunkZ >> REGION_SHIFT);
+        int[] rows = regions.get(key);
+        if (rows == null)
+            regions.put(key, rows = new int[REGION_SIZE]);
+
+        int row = rows[chunkZ & REGION_MASK];
+        int bit = 1 << (chunkX & REGION_MASK);
+        if ((row & bit) != 0)
+            return false;
+
+        rows[chunkZ & REGION_MASK] = row | bit;
+        return true;
+    }
+
+    public boolean add(ChunkPos pos)
+    {
+        return add(pos.x, pos.z);
+    }
+
+    public int size()
+    {
+        int[] size = new int[1];
+        regions.forEachValue(rows ->
+        {
+            for (int row : rows)
+                size[0] += Integer.bitCount(row);
+            return true;
+        });
+        return size[0];
+    }
+
+    public void clear()
+    {
+        regions.clear();
+    }
+
+    public void readFromNBT(NBTTagCompound compound, String key)
+    {
+        clear();
+
+        int[] data = compound.getIntArray(key);
+        for (int i = 0; i + 2 + REGION_SIZE <= data.length; i += 2 + REGION_SIZE)
+        {
+            int[] rows = new int[REGION_SIZE];
+            System.arraycopy(data, i + 2, rows, 0, REGION_SIZE);
+            regions.put(ChunkPos.asLong(data[i], data[i + 1]), rows);
+        }
+    }
+
+    public void writeToNBT(NBTTagCompound compound, String key)
+    {
+        int[] data = new int[regions.size() * (2 + REGION_SIZE)];
+        int[] index = new int[1];
+
+        regions.forEachEntry((region, rows) ->
+        {
+            int i = index[0];
+            data[i] = (int) (region & 0xFFFFFFFFL);
+            data[i + 1] = (int) (region >>> 32);
+            System.arraycopy(rows, 0, data, i + 2, REGION_SIZE);
+            index[0] += 2 + REGION_SIZE;
+            return true;
+        });
+
+        compound.setIntArray(key, data);
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ *  Copyright (c) 2014, Lukas Tenbrink.
+ *  * http://ivorius.net
+ */
+
+package ivorius.reccomplex.world.gen.feature;
+
+import gnu.trove.map.TLongObjectMap;
+import gnu.trove.map.hash.TLongObjectHashMap;
+import ivorius.reccomplex.RecurrentComplex;
+import ivorius.reccomplex.utils.accessor.SafeReflector;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.world.EnumSkyBlock;
+import net.minecraft.world.World;
+import net.minecraft.world.chunk.Chunk;
+
+import java.lang.invoke.MethodHandle;
+import java.util.Arrays;
+
+/**
+ * Collects changed chunk columns and recalculates their height map and sky light in one go per chunk.
+ */
+public class ChunkRelighter
+{
+    private static final MethodHandle relightBlock = SafeReflector.method(Chunk.class, "relightBlock", "func_76615_h",
+            Integer.TYPE, Integer.TYPE, Integer.TYPE);
+    private static final MethodHandle propagateSkylightOcclusion = SafeReflector.method(Chunk.class, "propagateSkylightOcclusion", "func_76595_e",
+            Integer.TYPE, Integer.TYPE);
+
+    protected final World world;
+    protected final TLongObjectMap<Columns> chunks = new TLongObjectHashMap<>();
+    protected Columns last;
+
+    public ChunkRelighter(World world)
+    {
+        this.world = world;
+    }
+
+    /**
+     * Mark a column as changed.
+     *
+     * @param y The highest changed y in the column.
+     */
+    public void mark(Chunk chunk, int x, int y, int z)
+    {
+        Columns columns = last;
+        if (columns == null || columns.chunk != chunk)
+        {
+            long key = ChunkPos.asLong(chunk.x, chunk.z);
+            columns = chunks.get(key);
+            if (columns == null)
+                chunks.put(key, columns = new Columns(chunk));
+            last = columns;
+        }
+
+        int index = (z << 4) | x;
+        if (y > columns.tops[index])
+            columns.tops[index] = y;
+    }
+
+    public void relight()
+    {
+        if (chunks.isEmpty())
+            return;
+
+        long start = System.nanoTime();
+        int[] relit = new int[1];
+
+        chunks.forEachValue(columns ->
+        {
+            relit[0] += relight(columns);
+            return true;
+        });
+
+        chunks.clear();
+        last = null;
+
+        RCProfiler.count(RCProfiler.Counter.COLUMNS_RELIT, relit[0], System.nanoTime() - start);
+    }
+
+    protected int relight(Columns columns)
+    {
+        Chunk chunk = columns.chunk;
+        int[] heightMap = chunk.getHeightMap();
+        boolean skyLight = world.provider.hasSkyLight();
+        BlockPos.MutableBlockPos pos = new BlockPos.MutableBlockPos();
+
+        int relit = 0;
+
+        try
+        {
+            for (int index = 0; index < 256; index++)
+            {
+                int top = columns.tops[index];
+                if (top < 0)
+                    continue;
+
+                int x = index & 15, z = index >> 4;
+                int before = heightMap[index];
+
+                relightBlock.invokeExact(chunk, x, top + 1, z);
+                relit++;
+
+                // Nothing moved, so no light needs to spread to the neighbors
+                if (heightMap[index] == before)
+                    continue;
+
+                propagateSkylightOcclusion.invokeExact(chunk, x, z);
+                if (skyLight)
+                    world.checkLightFor(EnumSkyBlock.SKY, pos.setPos((chunk.x << 4) | x, Math.max(before, heightMap[index]), (chunk.z << 4) | z));
+            }
+        }
+        catch (Throwable throwable)
+        {
+            RecurrentComplex.logger.error("Failed relighting chunk", throwable);
+        }
+
+        return relit;
+    }
+
+    protected static class Columns
+    {
+        public final Chunk chunk;
+        public final int[] tops = new int[256];
+
+        public Columns(Chunk chunk)
+        {
+            this.chunk = chunk;
+            Arrays.fill(tops, -1);
+        }
+    }
+}
@@ -31,8 +31,7 @@ public class GenerationSanityChecker
         // Sanity check for chunk population
         GameRegistry.registerWorldGenerator((Random random, int chunkX, int chunkZ, World world, IChunkGenerator chunkGenerator, IChunkProvider chunkProvider) ->
         {
-            ChunkPos pos = new ChunkPos(chunkX, chunkZ);
-            if (!WorldStructureGenerationData.get(world).checkChunk(pos))
+            if (!WorldStructureGenerationData.get(world).checkChunk(chunkX, chunkZ))
                 return;
 
             if (FAILED_DIMENSIONS.add(world.provider.getDimension()))
@@ -46,7 +45,7 @@ public class GenerationSanityChecker
 
             // This IChunkGenerator setup will work, but it's not preferred.
 
-            WorldGenStructures.decorate((WorldServer) world, random, pos, null);
+            WorldGenStructures.decorate((WorldServer) world, random, new ChunkPos(chunkX, chunkZ), null);
         }, 1);
     }
 }
@@ -9,16 +9,13 @@ import gnu.trove.map.TIntObjectMap;
 import gnu.trove.map.hash.TIntObjectHashMap;
 import ivorius.ivtoolkit.world.chunk.gen.StructureBoundingBoxes;
 import ivorius.reccomplex.utils.RCStructureBoundingBoxes;
-import ivorius.reccomplex.utils.accessor.SafeReflector;
 import net.minecraft.block.state.IBlockState;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.ChunkPos;
 import net.minecraft.world.World;
 import net.minecraft.world.chunk.Chunk;
 import net.minecraft.world.gen.structure.StructureBoundingBox;
-import net.minecraftforge.fml.relauncher.ReflectionHelper;
 
-import java.lang.reflect.Method;
 import java.util.Arrays;
 
 /**
@@ -26,9 +23,6 @@ import java.util.Arrays;
  */
 public class HeightMapFreezer
 {
-    protected static Method relightBlock;
-    protected static Method propagateSkylightOcclusion;
-
     protected StructureBoundingBox boundingBox;
 
     protected World world;
@@ -112,38 +106,22 @@ public class HeightMapFreezer
 
     public void melt()
     {
-        if (relightBlock == null)
-            relightBlock = ReflectionHelper.findMethod(Chunk.class, "relightBlock", "func_76615_h",
-                    Integer.TYPE, Integer.TYPE, Integer.TYPE);
-        if (propagateSkylightOcclusion == null)
-            propagateSkylightOcclusion = ReflectionHelper.findMethod(Chunk.class, "propagateSkylightOcclusion", "func_76595_e",
-                    Integer.TYPE, Integer.TYPE);
-
-        // Restore
+        ChunkRelighter relighter = new ChunkRelighter(world);
+
         RCStructureBoundingBoxes.streamMutablePositions(boundingBox).forEach(pos ->
         {
             Entry entry = entry(pos);
             int surfaceIndex = chunkSurfaceIndex(pos);
+
+            // Restore
             //noinspection ConstantConditions
             entry.chunk.getHeightMap()[surfaceIndex] = entry.original[surfaceIndex];
-        });
 
-        // Relight
-        RCStructureBoundingBoxes.streamMutablePositions(boundingBox).forEach(pos ->
-        {
-            Entry entry = entry(pos);
-            int surfaceIndex = chunkSurfaceIndex(pos);
-            //noinspection ConstantConditions
             if (entry.heightMap[surfaceIndex] >= entry.original[surfaceIndex])
-            {
-                SafeReflector.invoke(entry.chunk, relightBlock, null,
-                        pos.getX() & 15, entry.heightMap[surfaceIndex] + 1, pos.getZ() & 15);
-                SafeReflector.invoke(entry.chunk, propagateSkylightOcclusion, null,
-                        pos.getX() & 15, pos.getZ() & 15);
-                if (world.provider.hasSkyLight())
-                    world.checkLight(new BlockPos(pos.getX(), entry.heightMap[surfaceIndex], pos.getZ()));
-            }
+                relighter.mark(entry.chunk, pos.getX() & 15, entry.heightMap[surfaceIndex], pos.getZ() & 15);
         });
+
+        relighter.relight();
     }
 
     private class Entry
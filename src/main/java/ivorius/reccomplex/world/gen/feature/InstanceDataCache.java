@@ -0,0 +1,147 @@
+/*
+ *  Copyright (c) 2014, Lukas Tenbrink.
+ *  * http://ivorius.net
+ */
+
+package ivorius.reccomplex.world.gen.feature;
+
+import ivorius.ivtoolkit.math.AxisAlignedTransform2D;
+import ivorius.reccomplex.RCConfig;
+import ivorius.reccomplex.files.SimpleLeveledRegistry;
+import ivorius.reccomplex.nbt.NBTStorable;
+import ivorius.reccomplex.world.gen.feature.structure.Structure;
+import ivorius.reccomplex.world.gen.feature.structure.StructureRegistry;
+import ivorius.reccomplex.world.gen.feature.structure.context.StructureLoadContext;
+import ivorius.reccomplex.world.gen.feature.structure.generic.transformers.TransformerMulti;
+import net.minecraft.nbt.NBTBase;
+import net.minecraft.world.gen.structure.StructureBoundingBox;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.*;
+import java.util.function.Supplier;
+
+/**
+ * Keeps the loaded instance data of recently generated structures around, so that complementing a structure in each
+ * of its chunks doesn't read its instance data from NBT again every time.
+ * <p>
+ * Entries are keyed by structure entry UUID and only handed out for the very same NBT, structure and load context
+ * they were loaded from. They are evicted least-recently-used once their estimated size exceeds the budget, and
+ * dropped whenever the structure registry changes. Cached instance data is used by several generators at once, so
+ * only data that is {@link CachedInstanceData#isShareable() shareable} is kept.
+ */
+public class InstanceDataCache extends SimpleLeveledRegistry.Module<StructureRegistry>
+{
+    private final LinkedHashMap<UUID, Entry> cache = new LinkedHashMap<>(16, 0.75f, true);
+    private long size;
+
+    /**
+     * @return Whether the instance data, including everything it contains, may be cached.
+     */
+    public static boolean isShareable(@Nullable Object instanceData)
+    {
+        return instanceData == null || (instanceData instanceof CachedInstanceData && ((CachedInstanceData) instanceData).isShareable());
+    }
+
+    public static long estimateSize(@Nullable Object instanceData)
+    {
+        return instanceData instanceof CachedInstanceData ? ((CachedInstanceData) instanceData).estimateSize() : 16;
+    }
+
+    @Nullable
+    @SuppressWarnings("unchecked")
+    public <S extends NBTStorable> S get(@Nonnull UUID key, @Nonnull NBTBase nbt, @Nonnull Structure<S> structure, @Nonnull TransformerMulti foreignTransformer, @Nonnull StructureLoadContext context, @Nonnull Supplier<S> loader)
+    {
+        long budget = RCConfig.instanceDataCacheSize * 1024L * 1024L;
+        if (budget <= 0)
+            return loader.get();
+
+        Entry entry;
+        synchronized (cache)
+        {
+            entry = cache.get(key);
+        }
+
+        if (entry != null && entry.matches(nbt, structure, foreignTransformer, context))
+            return (S) entry.instanceData;
+
+        // Load outside the lock; if two threads race, both results are equivalent
+        S instanceData = loader.get();
+        if (instanceData == null || !isShareable(instanceData))
+            return instanceData;
+
+        Entry loaded = new Entry(nbt, structure, foreignTransformer, context, instanceData, estimateSize(instanceData));
+        if (loaded.size > budget)
+            return instanceData;
+
+        synchronized (cache)
+        {
+            Entry replaced = cache.put(key, loaded);
+            if (replaced != null)
+                size -= replaced.size;
+            size += loaded.size;
+
+            for (Iterator<Entry> iterator = cache.values().iterator(); size > budget && iterator.hasNext(); )
+            {
+                size -= iterator.next().size;
+                iterator.remove();
+            }
+        }
+
+        return instanceData;
+    }
+
+    public int size()
+    {
+        synchronized (cache)
+        {
+            return cache.size();
+        }
+    }
+
+    @Override
+    public void invalidate()
+    {
+        synchronized (cache)
+        {
+            cache.clear();
+            size = 0;
+        }
+    }
+
+    private static class Entry
+    {
+        private final NBTBase nbt;
+        private final Structure<?> structure;
+        private final TransformerMulti foreignTransformer;
+
+        private final AxisAlignedTransform2D transform;
+        private final StructureBoundingBox boundingBox;
+        private final boolean generateAsSource;
+
+        private final NBTStorable instanceData;
+        private final long size;
+
+        public Entry(NBTBase nbt, Structure<?> structure, TransformerMulti foreignTransformer, StructureLoadContext context, NBTStorable instanceData, long size)
+        {
+            this.nbt = nbt;
+            this.structure = structure;
+            this.foreignTransformer = foreignTransformer;
+            this.transform = context.transform;
+            this.boundingBox = new StructureBoundingBox(context.boundingBox);
+            this.generateAsSource = context.generateAsSource;
+            this.instanceData = instanceData;
+            this.size = size;
+        }
+
+        public boolean matches(NBTBase nbt, Structure<?> structure, TransformerMulti foreignTransformer, StructureLoadContext context)
+        {
+            StructureBoundingBox bb = context.boundingBox;
+            return this.nbt == nbt && this.structure == structure && this.foreignTransformer == foreignTransformer
+                    && transform.getRotation() == context.transform.getRotation() && transform.isMirrorX() == context.transform.isMirrorX()
+                    && generateAsSource == context.generateAsSource
+                    && boundingBox.minX == bb.minX && boundingBox.minY == bb.minY && boundingBox.minZ == bb.minZ
+                    && boundingBox.maxX == bb.maxX && boundingBox.maxY == bb.maxY && boundingBox.maxZ == bb.maxZ;
+        }
+    }
+}
@@ -0,0 +1,443 @@
+/*
+ *  Copyright (c) 2014, Lukas Tenbrink.
+ *  * http://ivorius.net
+ */
+
+package ivorius.reccomplex.world.gen.feature;
+
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import ivorius.reccomplex.RecurrentComplex;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Tracks what worldgen is doing on each thread, as a stack of phases, to blame cascading chunk generation on the
+ * structure causing it.
+ * <p>
+ * While enabled, phases are also timed into histograms by phase and structure (or transformer type),
+ * and blocks placed and cascading chunk loads are counted per structure. Throughput of the generation pipeline
+ * around the structures is counted by {@link Counter}. While disabled, starting and stopping phases allocates nothing.
+ */
+public class RCProfiler
+{
+    public static final int HISTOGRAM_BUCKETS = 64;
+
+    protected static final ThreadLocal<Frames> frames = ThreadLocal.withInitial(Frames::new);
+
+    protected static volatile boolean enabled;
+
+    protected static final Map<Phase, ConcurrentMap<Object, Timing>> timings = new EnumMap<>(Phase.class);
+    protected static final ConcurrentMap<String, StructureCounts> structures = new ConcurrentHashMap<>();
+    protected static final Map<Counter, Throughput> counters = new EnumMap<>(Counter.class);
+
+    static
+    {
+        for (Phase phase : Phase.values())
+            timings.put(phase, new ConcurrentHashMap<>());
+        for (Counter counter : Counter.values())
+            counters.put(counter, new Throughput());
+    }
+
+    public static boolean isEnabled()
+    {
+        return enabled;
+    }
+
+    public static void setEnabled(boolean enabled)
+    {
+        RCProfiler.enabled = enabled;
+    }
+
+    /**
+     * @param subject The structure ID, transformer type or whatever else the phase works on; null to inherit the
+     *                enclosing phase's structure.
+     */
+    public static void start(Phase phase, @Nullable Object subject)
+    {
+        frames.get().push(phase, subject, enabled ? System.nanoTime() : 0);
+    }
+
+    public static void stop()
+    {
+        Frames frames = RCProfiler.frames.get();
+        if (frames.depth == 0)
+            return;
+
+        int index = --frames.depth;
+        long start = frames.starts[index];
+        Object subject = frames.subjects[index];
+        frames.subjects[index] = null;
+
+        if (start != 0 && enabled && subject != null)
+            timing(frames.phases[index], subject).add(System.nanoTime() - start);
+    }
+
+    /**
+     * @return The structure the current thread is working on, if any.
+     */
+    @Nullable
+    public static String currentStructure()
+    {
+        Frames frames = RCProfiler.frames.get();
+        return frames.depth > 0 ? frames.structures[frames.depth - 1] : null;
+    }
+
+    @Nullable
+    public static Phase currentPhase()
+    {
+        Frames frames = RCProfiler.frames.get();
+        return frames.depth > 0 ? frames.phases[frames.depth - 1] : null;
+    }
+
+    public static void blocksPlaced(@Nullable String structure, long count)
+    {
+        if (enabled && structure != null && count > 0)
+            structureCounts(structure).blocks.add(count);
+    }
+
+    public static void cascadingChunkLoad(@Nullable String structure)
+    {
+        if (enabled && structure != null)
+            structureCounts(structure).cascades.increment();
+    }
+
+    public static void count(Counter counter, long count, long nanos)
+    {
+        if (enabled)
+            counters.get(counter).add(count, nanos);
+    }
+
+    protected static Timing timing(Phase phase, Object subject)
+    {
+        return timings.get(phase).computeIfAbsent(subject, s -> new Timing());
+    }
+
+    protected static StructureCounts structureCounts(String structure)
+    {
+        return structures.computeIfAbsent(structure, s -> new StructureCounts());
+    }
+
+    public static void reset()
+    {
+        timings.values().forEach(Map::clear);
+        structures.clear();
+        counters.values().forEach(Throughput::reset);
+    }
+
+    public static void create()
+    {
+        WorldgenMonitor.create("Recurrent Complex", message ->
+        {
+            // Runs on the thread that loaded the chunk, so our stack knows who's to blame
+            Phase phase = currentPhase();
+            if (phase != null)
+            {
+                String structure = currentStructure();
+                cascadingChunkLoad(structure);
+                RecurrentComplex.logger.warn("Cascading chunk generation happening while " + phase.description
+                        + (structure != null ? " " + structure : ""));
+            }
+        });
+    }
+
+    protected static String name(Object subject)
+    {
+        return subject instanceof Class ? ((Class<?>) subject).getSimpleName() : String.valueOf(subject);
+    }
+
+    /**
+     * @return All timings, the most expensive first.
+     */
+    public static List<Row> rows()
+    {
+        List<Row> rows = new ArrayList<>();
+        timings.forEach((phase, map) -> map.forEach((subject, timing) -> rows.add(new Row(phase, name(subject), timing))));
+        rows.sort(Comparator.comparingLong((Row r) -> r.totalNanos).reversed());
+        return rows;
+    }
+
+    public static Map<String, StructureCounts> structureCounts()
+    {
+        return new TreeMap<>(structures);
+    }
+
+    public static Throughput throughput(Counter counter)
+    {
+        return counters.get(counter);
+    }
+
+    public static void writeCSV(File file) throws IOException
+    {
+        try (PrintWriter writer = new PrintWriter(file, StandardCharsets.UTF_8.name()))
+        {
+            writer.println("phase,subject,count,total_ms,mean_ms,p50_ms,p90_ms,p99_ms,max_ms,blocks,cascades");
+
+            Map<String, StructureCounts> structures = structureCounts();
+            for (Row row : rows())
+            {
+                StructureCounts counts = row.phase.perStructure ? structures.get(row.subject) : null;
+                writer.println(String.format(Locale.ROOT, "%s,%s,%d,%.3f,%.3f,%.3f,%.3f,%.3f,%.3f,%s,%s",
+                        row.phase.id, csv(row.subject), row.count, millis(row.totalNanos), millis(row.meanNanos()),
+                        millis(row.p50), millis(row.p90), millis(row.p99), millis(row.maxNanos),
+                        counts != null ? String.valueOf(counts.blocks.sum()) : "",
+                        counts != null ? String.valueOf(counts.cascades.sum()) : ""));
+            }
+        }
+    }
+
+    public static void writeJSON(File file) throws IOException
+    {
+        JsonObject json = new JsonObject();
+
+        JsonArray timings = new JsonArray();
+        for (Row row : rows())
+        {
+            JsonObject object = new JsonObject();
+            object.addProperty("phase", row.phase.id);
+            object.addProperty("subject", row.subject);
+            object.addProperty("count", row.count);
+            object.addProperty("totalNanos", row.totalNanos);
+            object.addProperty("maxNanos", row.maxNanos);
+            object.addProperty("p50Nanos", row.p50);
+            object.addProperty("p90Nanos", row.p90);
+            object.addProperty("p99Nanos", row.p99);
+
+            JsonArray histogram = new JsonArray();
+            for (long bucket : row.histogram)
+                histogram.add(bucket);
+            object.add("histogram", histogram);
+
+            timings.add(object);
+        }
+        json.add("timings", timings);
+
+        JsonObject structures = new JsonObject();
+        structureCounts().forEach((structure, counts) ->
+        {
+            JsonObject object = new JsonObject();
+            object.addProperty("blocks", counts.blocks.sum());
+            object.addProperty("cascades", counts.cascades.sum());
+            structures.add(structure, object);
+        });
+        json.add("structures", structures);
+
+        JsonObject counters = new JsonObject();
+        for (Counter counter : Counter.values())
+        {
+            Throughput throughput = throughput(counter);
+            JsonObject object = new JsonObject();
+            object.addProperty("count", throughput.count());
+            object.addProperty("nanos", throughput.nanos());
+            counters.add(counter.id, object);
+        }
+        json.add("counters", counters);
+
+        try (PrintWriter writer = new PrintWriter(file, StandardCharsets.UTF_8.name()))
+        {
+            new GsonBuilder().setPrettyPrinting().create().toJson(json, writer);
+        }
+    }
+
+    protected static String csv(String value)
+    {
+        return value.contains(",") || value.contains("\"") ? "\"" + value.replace("\"", "\"\"") + "\"" : value;
+    }
+
+    protected static double millis(long nanos)
+    {
+        return nanos / 1_000_000.0;
+    }
+
+    public enum Phase
+    {
+        PLACE("place", "placing", true),
+        PREPARE("prepare", "preparing", true),
+        GENERATE("generate", "generating", true),
+        COMPLEMENT("complement", "complementing", true),
+        PREPARE_TRANSFORMER("prepare_transformer", "preparing a transformer of", false),
+        TRANSFORMER("transformer", "transforming", false),
+        LOOT("loot", "generating loot in", true),
+        DECORATION("decoration", "simulating vanilla decoration", false);
+
+        public final String id;
+        public final String description;
+        // Whether the subject is a structure ID
+        public final boolean perStructure;
+
+        Phase(String id, String description, boolean perStructure)
+        {
+            this.id = id;
+            this.description = description;
+            this.perStructure = perStructure;
+        }
+    }
+
+    public enum Counter
+    {
+        COLUMNS_RELIT("columns_relit", "columns relit"),
+        DEFERRED_CHUNKS("deferred_chunks", "deferred chunks generated"),
+        RETROGEN_CHUNKS("retrogen_chunks", "retrogen chunks visited");
+
+        public final String id;
+        public final String description;
+
+        Counter(String id, String description)
+        {
+            this.id = id;
+            this.description = description;
+        }
+    }
+
+    protected static class Frames
+    {
+        public Phase[] phases = new Phase[8];
+        public Object[] subjects = new Object[8];
+        public String[] structures = new String[8];
+        public long[] starts = new long[8];
+        public int depth;
+
+        public void push(Phase phase, @Nullable Object subject, long start)
+        {
+            if (depth == phases.length)
+            {
+                phases = Arrays.copyOf(phases, depth * 2);
+                subjects = Arrays.copyOf(subjects, depth * 2);
+                structures = Arrays.copyOf(structures, depth * 2);
+                starts = Arrays.copyOf(starts, depth * 2);
+            }
+
+            String parent = depth > 0 ? structures[depth - 1] : null;
+            boolean ownStructure = phase.perStructure && subject instanceof String;
+
+            phases[depth] = phase;
+            // Phases without a subject of their own are timed for their structure
+            subjects[depth] = subject != null ? subject : phase.perStructure ? parent : null;
+            structures[depth] = ownStructure ? (String) subject : parent;
+            starts[depth] = start;
+            depth++;
+        }
+    }
+
+    public static class Timing
+    {
+        protected final LongAdder count = new LongAdder();
+        protected final LongAdder nanos = new LongAdder();
+        protected final LongAccumulator max = new LongAccumulator(Math::max, 0);
+        // Bucket i counts durations of less than 2^i nanoseconds, but at least 2^(i-1)
+        protected final AtomicLongArray histogram = new AtomicLongArray(HISTOGRAM_BUCKETS);
+
+        public void add(long nanos)
+        {
+            nanos = Math.max(nanos, 0);
+            count.increment();
+            this.nanos.add(nanos);
+            max.accumulate(nanos);
+            histogram.incrementAndGet(Math.min(HISTOGRAM_BUCKETS - 1, 64 - Long.numberOfLeadingZeros(nanos)));
+        }
+    }
+
+    public static class Throughput
+    {
+        protected final LongAdder count = new LongAdder();
+        protected final LongAdder nanos = new LongAdder();
+
+        public void add(long count, long nanos)
+        {
+            this.count.add(count);
+            this.nanos.add(nanos);
+        }
+
+        public long count()
+        {
+            return count.sum();
+        }
+
+        public long nanos()
+        {
+            return nanos.sum();
+        }
+
+        public double perSecond()
+        {
+            long nanos = nanos();
+            return nanos > 0 ? count() / (nanos / 1_000_000_000.0) : 0;
+        }
+
+        public void reset()
+        {
+            count.reset();
+            nanos.reset();
+        }
+    }
+
+    public static class StructureCounts
+    {
+        public final LongAdder blocks = new LongAdder();
+        public final LongAdder cascades = new LongAdder();
+    }
+
+    public static class Row
+    {
+        @Nonnull
+        public final Phase phase;
+        @Nonnull
+        public final String subject;
+
+        public final long count, totalNanos, maxNanos;
+        public final long[] histogram;
+        // Upper bounds of the histogram buckets holding the percentile
+        public final long p50, p90, p99;
+
+        public Row(@Nonnull Phase phase, @Nonnull String subject, Timing timing)
+        {
+            this.phase = phase;
+            this.subject = subject;
+            this.count = timing.count.sum();
+            this.totalNanos = timing.nanos.sum();
+            this.maxNanos = timing.max.get();
+
+            histogram = new long[HISTOGRAM_BUCKETS];
+            for (int i = 0; i < HISTOGRAM_BUCKETS; i++)
+                histogram[i] = timing.histogram.get(i);
+
+            p50 = percentile(0.5);
+            p90 = percentile(0.9);
+            p99 = percentile(0.99);
+        }
+
+        public long meanNanos()
+        {
+            return count > 0 ? totalNanos / count : 0;
+        }
+
+        protected long percentile(double fraction)
+        {
+            long total = 0;
+            for (long bucket : histogram)
+                total += bucket;
+
+            long needed = (long) Math.ceil(total * fraction);
+            long seen = 0;
+            for (int i = 0; i < HISTOGRAM_BUCKETS; i++)
+            {
+                seen += histogram[i];
+                if (seen >= needed && seen > 0)
+                    return Math.min(i >= 63 ? Long.MAX_VALUE : 1L << i, maxNanos);
+            }
+            return maxNanos;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ *  Copyright (c) 2014, Lukas Tenbrink.
+ *  * http://ivorius.net
+ */
+
+package ivorius.reccomplex.world.gen.feature;
+
+import net.minecraft.util.math.ChunkPos;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Striped locks over 32x32 chunk regions, so that work in unrelated regions can run in parallel.
+ * <p>
+ * Generating in one chunk may populate others on the same thread, nesting tasks. To stay deadlock free,
+ * a thread only ever blocks on a lock while it holds none; nested tasks whose lock is busy are deferred
+ * until the outermost task on the thread has finished.
+ */
+public class RegionLocks
+{
+    public static final int REGION_SHIFT = 5;
+
+    protected final ReentrantLock[] stripes;
+    protected final int stripeShift;
+
+    protected final ThreadLocal<Deque<Runnable>> deferred = ThreadLocal.withInitial(ArrayDeque::new);
+    protected final ThreadLocal<int[]> depth = ThreadLocal.withInitial(() -> new int[1]);
+
+    /**
+     * @param stripeBits Log 2 of the number of locks.
+     */
+    public RegionLocks(int stripeBits)
+    {
+        stripes = new ReentrantLock[1 << stripeBits];
+        for (int i = 0; i < stripes.length; i++)
+            stripes[i] = new ReentrantLock();
+        stripeShift = 32 - stripeBits;
+    }
+
+    public ReentrantLock lockFor(int dimension, int chunkX, int chunkZ)
+    {
+        long key = ChunkPos.asLong(chunkX >> REGION_SHIFT, chunkZ >> REGION_SHIFT) * 31 + dimension;
+        int hash = (int) (key ^ (key >>> 32)) * 0x9E3779B9;
+        return stripes[stripeShift == 32 ? 0 : hash >>> stripeShift];
+    }
+
+    /**
+     * Runs the task holding the region's lock.
+     *
+     * @return Whether the task ran right away; false if it was deferred.
+     */
+    public boolean run(int dimension, int chunkX, int chunkZ, Runnable task)
+    {
+        ReentrantLock lock = lockFor(dimension, chunkX, chunkZ);
+        int[] depth = this.depth.get();
+
+        if (depth[0] == 0)
+            lock.lock();
+        else if (!lock.tryLock())
+        {
+            deferred.get().add(() -> run(dimension, chunkX, chunkZ, task));
+            return false;
+        }
+
+        depth[0]++;
+        try
+        {
+            task.run();
+        }
+        finally
+        {
+            depth[0]--;
+            lock.unlock();
+        }
+
+        if (depth[0] == 0)
+        {
+            Deque<Runnable> deferred = this.deferred.get();
+            Runnable next;
+            while ((next = deferred.poll()) != null)
+                next.run();
+        }
+
+        return true;
+    }
+
+    /**
+     * @return The number of tasks waiting for the current thread's outermost task to finish.
+     */
+    public int deferredCount()
+    {
+        return deferred.get().size();
+    }
+}
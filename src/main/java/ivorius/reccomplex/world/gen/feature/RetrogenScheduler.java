@@ -0,0 +1,489 @@
+/*
+ *  Copyright (c) 2014, Lukas Tenbrink.
+ *  * http://ivorius.net
+ */
+
+package ivorius.reccomplex.world.gen.feature;
+
+import gnu.trove.iterator.TLongIterator;
+import gnu.trove.set.TLongSet;
+import gnu.trove.set.hash.TLongHashSet;
+import ivorius.reccomplex.RCConfig;
+import ivorius.reccomplex.RecurrentComplex;
+import ivorius.reccomplex.files.loading.FileSuffixFilter;
+import ivorius.reccomplex.utils.algebra.ExpressionCache;
+import ivorius.reccomplex.utils.expression.ResourceExpression;
+import ivorius.reccomplex.world.gen.feature.structure.Structure;
+import ivorius.reccomplex.world.gen.feature.structure.StructureRegistry;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.world.WorldServer;
+import net.minecraft.world.chunk.Chunk;
+import net.minecraft.world.gen.ChunkProviderServer;
+import net.minecraftforge.common.DimensionManager;
+
+import javax.annotation.Nullable;
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Predicate;
+
+/**
+ * Runs retrogen jobs in the background, a few chunks per server tick.
+ * <p>
+ * Which chunks exist is read from the region file headers on a separate thread. Chunks that a job had to load are
+ * queued for unloading once the job has moved on, unless a player is watching them. The time budget is shared by all
+ * dimensions, starting with a different one each tick.
+ */
+public class RetrogenScheduler
+{
+    public static final int REGION_CHUNKS = 32 * 32;
+
+    private static ExecutorService scanner;
+
+    protected static final Map<WorldServer, Run> runs = new WeakHashMap<>();
+
+    // Rotates, so that no dimension is starved by those before it
+    private static int firstWorld;
+
+    // The world of the visit that's running, and the chunks it loaded so far, by ChunkPos.asLong
+    private static WorldServer visiting;
+    private static final TLongSet visitLoaded = new TLongHashSet();
+
+    protected static synchronized ExecutorService scanner()
+    {
+        if (scanner == null)
+        {
+            scanner = Executors.newSingleThreadExecutor(runnable ->
+            {
+                Thread thread = new Thread(runnable, "Recurrent Complex Retrogen Scanner");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+
+        return scanner;
+    }
+
+    public static Random getRandom(WorldServer world, ChunkPos pos)
+    {
+        return world.setRandomSeed(pos.x, pos.z, 0xDEADBEEF);
+    }
+
+    @Nullable
+    public static Predicate<Structure> structurePredicate(@Nullable String expression)
+    {
+        if (expression == null)
+            return null;
+
+        ResourceExpression matcher = ExpressionCache.of(new ResourceExpression(s -> !s.isEmpty()), expression);
+        return structure -> matcher.test(StructureRegistry.INSTANCE.resourceLocation(structure));
+    }
+
+    /**
+     * @return False if the dimension has a job already.
+     */
+    public static boolean start(WorldServer world, @Nullable String structureExpression)
+    {
+        WorldRetrogenData data = WorldRetrogenData.get(world);
+        if (data.getJob() != null)
+            return false;
+
+        data.setJob(new WorldRetrogenData.Job(structureExpression));
+        runs.remove(world);
+        return true;
+    }
+
+    public static boolean setPaused(WorldServer world, boolean paused)
+    {
+        WorldRetrogenData data = WorldRetrogenData.get(world);
+        WorldRetrogenData.Job job = data.getJob();
+        if (job == null)
+            return false;
+
+        job.paused = paused;
+        data.markDirty();
+
+        Run run = runs.get(world);
+        if (paused && run != null)
+            unloadBehind(world, run, Integer.MAX_VALUE);
+
+        return true;
+    }
+
+    public static boolean cancel(WorldServer world)
+    {
+        WorldRetrogenData data = WorldRetrogenData.get(world);
+        if (data.getJob() == null)
+            return false;
+
+        data.setJob(null);
+        stop(world);
+        return true;
+    }
+
+    @Nullable
+    public static Progress progress(WorldServer world)
+    {
+        WorldRetrogenData.Job job = WorldRetrogenData.get(world).getJob();
+        if (job == null)
+            return null;
+
+        Progress progress = new Progress(job);
+
+        List<Region> regions = run(world, job).regions();
+        progress.scanning = regions == null;
+        if (regions != null)
+        {
+            progress.regions = regions.size();
+            for (Region region : regions)
+            {
+                int chunks = region.chunks.cardinality();
+                progress.chunks += chunks;
+
+                int compare = region.compareTo(job.regionX, job.regionZ);
+                if (compare < 0)
+                {
+                    progress.regionsDone++;
+                    progress.chunksDone += chunks;
+                }
+                else if (compare == 0)
+                    progress.chunksDone += region.chunks.get(0, Math.min(job.chunkIndex, REGION_CHUNKS)).cardinality();
+            }
+        }
+
+        return progress;
+    }
+
+    public static void tick()
+    {
+        long budget = TimeUnit.MICROSECONDS.toNanos((long) (RCConfig.retrogenBudget * 1000));
+        long start = System.nanoTime();
+        long chunks = 0;
+
+        WorldServer[] worlds = DimensionManager.getWorlds();
+        firstWorld = worlds.length > 0 ? (firstWorld + 1) % worlds.length : 0;
+
+        for (int i = 0; i < worlds.length; i++)
+        {
+            WorldServer world = worlds[(firstWorld + i) % worlds.length];
+            WorldRetrogenData data = WorldRetrogenData.get(world);
+            WorldRetrogenData.Job job = data.getJob();
+            if (job == null || job.paused)
+                continue;
+
+            Run run = run(world, job);
+            List<Region> regions;
+            try
+            {
+                regions = run.scanned();
+            }
+            catch (ExecutionException | InterruptedException e)
+            {
+                RecurrentComplex.logger.error("Failed finding chunks to retrogen in dimension " + world.provider.getDimension(), e);
+                data.setJob(null);
+                stop(world);
+                continue;
+            }
+
+            if (regions == null)
+                continue; // Still scanning
+
+            boolean more = true;
+            while (more && System.nanoTime() - start < budget)
+            {
+                more = step(world, data, job, run, regions);
+                if (more)
+                    chunks++;
+            }
+
+            if (!more)
+            {
+                RecurrentComplex.logger.info(String.format("Finished retrogen in dimension %d: visited %d chunks, generated into %d",
+                        world.provider.getDimension(), job.visitedChunks, job.generatedChunks));
+                data.setJob(null);
+                stop(world);
+            }
+        }
+
+        if (chunks > 0)
+            RCProfiler.count(RCProfiler.Counter.RETROGEN_CHUNKS, chunks, System.nanoTime() - start);
+    }
+
+    protected static Run run(WorldServer world, WorldRetrogenData.Job job)
+    {
+        Run run = runs.get(world);
+        if (run == null)
+        {
+            File directory = world.getChunkSaveLocation();
+            runs.put(world, run = new Run(scanner().submit(() -> scan(directory)), structurePredicate(job.structureExpression)));
+        }
+        return run;
+    }
+
+    protected static void stop(WorldServer world)
+    {
+        Run run = runs.remove(world);
+        if (run != null)
+        {
+            run.regions.cancel(true);
+            unloadBehind(world, run, Integer.MAX_VALUE);
+        }
+    }
+
+    /**
+     * Visits the chunk at the job's cursor and moves the cursor on.
+     *
+     * @return False if there are no chunks left.
+     */
+    protected static boolean step(WorldServer world, WorldRetrogenData data, WorldRetrogenData.Job job, Run run, List<Region> regions)
+    {
+        if (run.region < 0)
+        {
+            // Pick up where we left off, even if region files were added or removed since
+            run.region = 0;
+            while (run.region < regions.size() && regions.get(run.region).compareTo(job.regionX, job.regionZ) < 0)
+                run.region++;
+        }
+
+        for (; run.region < regions.size(); run.region++)
+        {
+            Region region = regions.get(run.region);
+            if (region.x != job.regionX || region.z != job.regionZ)
+            {
+                job.regionX = region.x;
+                job.regionZ = region.z;
+                job.chunkIndex = 0;
+
+                // The new region doesn't need anything of the old one
+                unloadBehind(world, run, Integer.MAX_VALUE);
+            }
+
+            int index = job.chunkIndex < REGION_CHUNKS ? region.chunks.nextSetBit(job.chunkIndex) : -1;
+            if (index >= 0)
+            {
+                job.chunkIndex = index + 1;
+                data.markDirty();
+
+                visit(world, job, run, new ChunkPos((region.x << 5) + (index & 31), (region.z << 5) + (index >> 5)));
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Notes chunks loaded by the running visit, so it can unload them again.
+     */
+    public static void onChunkLoad(Chunk chunk)
+    {
+        if (visiting != null && chunk.getWorld() == visiting)
+            visitLoaded.add(ChunkPos.asLong(chunk.x, chunk.z));
+    }
+
+    protected static void visit(WorldServer world, WorldRetrogenData.Job job, Run run, ChunkPos pos)
+    {
+        ChunkProviderServer provider = world.getChunkProvider();
+
+        // Remember which chunks we load, so we can unload them again - structures may reach far beyond the neighbors
+        visiting = world;
+        visitLoaded.clear();
+
+        try
+        {
+            Chunk chunk = world.getChunkFromChunkCoords(pos.x, pos.z);
+            if (chunk.isTerrainPopulated() && WorldGenStructures.decorate(world, getRandom(world, pos), pos, run.structurePredicate))
+                job.generatedChunks++;
+        }
+        catch (RuntimeException e)
+        {
+            RecurrentComplex.logger.error("Failed retrogen in chunk " + pos + " of dimension " + world.provider.getDimension(), e);
+        }
+        finally
+        {
+            visiting = null;
+        }
+
+        job.visitedChunks++;
+
+        for (TLongIterator iterator = visitLoaded.iterator(); iterator.hasNext(); )
+        {
+            long key = iterator.next();
+            int x = chunkX(key), z = chunkZ(key);
+
+            // Neighbors may be needed by the next chunks; anything further out is done with
+            if (Math.abs(x - pos.x) <= 1 && Math.abs(z - pos.z) <= 1)
+                run.loaded.add(key);
+            else
+            {
+                Chunk chunk = provider.getLoadedChunk(x, z);
+                if (chunk != null)
+                    unload(world, chunk);
+            }
+        }
+        visitLoaded.clear();
+
+        // Chunks are visited row by row; rows more than one behind aren't neighbors of anything to come
+        unloadBehind(world, run, pos.z - 1);
+    }
+
+    /**
+     * Queues chunks we loaded in rows before the given one for unloading.
+     */
+    protected static void unloadBehind(WorldServer world, Run run, int row)
+    {
+        ChunkProviderServer provider = world.getChunkProvider();
+
+        for (TLongIterator iterator = run.loaded.iterator(); iterator.hasNext(); )
+        {
+            long key = iterator.next();
+            int x = chunkX(key), z = chunkZ(key);
+            if (z >= row)
+                continue;
+
+            iterator.remove();
+
+            Chunk chunk = provider.getLoadedChunk(x, z);
+            if (chunk != null)
+                unload(world, chunk);
+        }
+    }
+
+    protected static void unload(WorldServer world, Chunk chunk)
+    {
+        if (!world.getPlayerChunkMap().contains(chunk.x, chunk.z))
+            world.getChunkProvider().queueUnload(chunk);
+    }
+
+    protected static int chunkX(long key)
+    {
+        return (int) key;
+    }
+
+    protected static int chunkZ(long key)
+    {
+        return (int) (key >> 32);
+    }
+
+    protected static List<Region> scan(File directory)
+    {
+        File regionDirectory = new File(directory, "region");
+        String[] mcas = regionDirectory.list(new FileSuffixFilter("mca"));
+        if (mcas == null)
+            return Collections.emptyList();
+
+        List<Region> regions = new ArrayList<>();
+        for (String name : mcas)
+        {
+            String[] parts = name.split("\\.");
+            if (parts.length != 4 || !parts[0].equals("r"))
+                continue;
+
+            Region region;
+            try
+            {
+                region = new Region(Integer.parseInt(parts[1]), Integer.parseInt(parts[2]));
+            }
+            catch (NumberFormatException e)
+            {
+                continue;
+            }
+
+            // The header starts with one offset per chunk; chunks that were never saved have none
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(new File(regionDirectory, name)), REGION_CHUNKS * 4)))
+            {
+                for (int i = 0; i < REGION_CHUNKS; i++)
+                {
+                    if (in.readInt() != 0)
+                        region.chunks.set(i);
+                }
+            }
+            catch (EOFException e)
+            {
+                continue; // Empty region file
+            }
+            catch (IOException e)
+            {
+                RecurrentComplex.logger.warn("Failed reading region file header " + name, e);
+                continue;
+            }
+
+            regions.add(region);
+        }
+
+        regions.sort(Comparator.<Region>comparingInt(r -> r.x).thenComparingInt(r -> r.z));
+        return regions;
+    }
+
+    protected static class Run
+    {
+        public final Future<List<Region>> regions;
+        @Nullable
+        public final Predicate<Structure> structurePredicate;
+
+        // Chunks we loaded that are still loaded, by ChunkPos.asLong
+        public final TLongSet loaded = new TLongHashSet();
+        public int region = -1;
+
+        public Run(Future<List<Region>> regions, @Nullable Predicate<Structure> structurePredicate)
+        {
+            this.regions = regions;
+            this.structurePredicate = structurePredicate;
+        }
+
+        @Nullable
+        public List<Region> scanned() throws ExecutionException, InterruptedException
+        {
+            return regions.isDone() ? regions.get() : null;
+        }
+
+        @Nullable
+        public List<Region> regions()
+        {
+            try
+            {
+                return scanned();
+            }
+            catch (ExecutionException | InterruptedException | CancellationException e)
+            {
+                return null;
+            }
+        }
+    }
+
+    protected static class Region
+    {
+        public final int x, z;
+        // Indexed like the region file header, x + z * 32
+        public final BitSet chunks = new BitSet(REGION_CHUNKS);
+
+        public Region(int x, int z)
+        {
+            this.x = x;
+            this.z = z;
+        }
+
+        public int compareTo(int x, int z)
+        {
+            return this.x != x ? Integer.compare(this.x, x) : Integer.compare(this.z, z);
+        }
+    }
+
+    public static class Progress
+    {
+        public final boolean paused;
+        public final long visitedChunks, generatedChunks;
+
+        // Unknown while the regions are being scanned
+        public boolean scanning;
+        public int regions, regionsDone;
+        public long chunks, chunksDone;
+
+        public Progress(WorldRetrogenData.Job job)
+        {
+            this.paused = job.paused;
+            this.visitedChunks = job.visitedChunks;
+            this.generatedChunks = job.generatedChunks;
+        }
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ *  Copyright (c) 2014, Lukas Tenbrink.
+ *  * http://ivorius.net
+ */
+
+package ivorius.reccomplex.world.gen.feature;
+
+import gnu.trove.set.TLongSet;
+import gnu.trove.set.hash.TLongHashSet;
+import ivorius.reccomplex.RecurrentComplex;
+import net.minecraft.nbt.CompressedStreamTools;
+import net.minecraft.nbt.NBTTagCompound;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.world.World;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Per-region files for world generation data, each covering 32x32 chunks like the anvil regions.
+ */
+public class StructureDataShards
+{
+    public static final int REGION_SHIFT = 5;
+
+    @Nonnull
+    protected final File directory;
+
+    public StructureDataShards(@Nonnull File directory)
+    {
+        this.directory = directory;
+    }
+
+    @Nonnull
+    public static File directory(World world, String identifier)
+    {
+        File worldDirectory = world.getSaveHandler().getWorldDirectory();
+        String dimensionFolder = world.provider.getSaveFolder();
+        File dimensionDirectory = dimensionFolder != null ? new File(worldDirectory, dimensionFolder) : worldDirectory;
+        return new File(new File(dimensionDirectory, "data"), identifier);
+    }
+
+    public static int region(int chunkCoord)
+    {
+        return chunkCoord >> REGION_SHIFT;
+    }
+
+    public static long key(int regionX, int regionZ)
+    {
+        return ChunkPos.asLong(regionX, regionZ);
+    }
+
+    public static int keyX(long key)
+    {
+        return (int) (key & 0xFFFFFFFFL);
+    }
+
+    public static int keyZ(long key)
+    {
+        return (int) (key >>> 32);
+    }
+
+    @Nonnull
+    protected File file(long key)
+    {
+        return new File(directory, String.format("r.%d.%d.dat", keyX(key), keyZ(key)));
+    }
+
+    @Nullable
+    public NBTTagCompound read(long key)
+    {
+        File file = file(key);
+
+        if (!file.exists())
+            return null;
+
+        try (InputStream stream = new FileInputStream(file))
+        {
+            return CompressedStreamTools.readCompressed(stream);
+        }
+        catch (IOException e)
+        {
+            RecurrentComplex.logger.error("Could not read structure data shard " + file, e);
+        }
+
+        return null;
+    }
+
+    /**
+     * @param compound The contents, or null to remove the shard.
+     */
+    public void write(long key, @Nullable NBTTagCompound compound)
+    {
+        File file = file(key);
+
+        try
+        {
+            if (compound == null)
+            {
+                Files.deleteIfExists(file.toPath());
+                return;
+            }
+
+            if (!directory.exists() && !directory.mkdirs())
+                throw new IOException("Could not create directory " + directory);
+
+            // Write aside first so a crash can't leave a half-written shard
+            File temp = new File(directory, file.getName() + ".tmp");
+            try (OutputStream stream = new FileOutputStream(temp))
+            {
+                CompressedStreamTools.writeCompressed(compound, stream);
+            }
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+        catch (IOException e)
+        {
+            RecurrentComplex.logger.error("Could not write structure data shard " + file, e);
+        }
+    }
+
+    @Nonnull
+    public TLongSet existing()
+    {
+        TLongSet keys = new TLongHashSet();
+
+        String[] files = directory.list();
+        if (files == null)
+            return keys;
+
+        for (String name : files)
+        {
+            String[] parts = name.split("\\.");
+            if (parts.length != 4 || !parts[0].equals("r") || !parts[3].equals("dat"))
+                continue;
+
+            try
+            {
+                keys.add(key(Integer.parseInt(parts[1]), Integer.parseInt(parts[2])));
+            }
+            catch (NumberFormatException ignored)
+            {
+            }
+        }
+
+        return keys;
+    }
+}
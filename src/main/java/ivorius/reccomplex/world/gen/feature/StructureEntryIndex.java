@@ -0,0 +1,194 @@
+/*
+ *  Copyright (c) 2014, Lukas Tenbrink.
+ *  * http://ivorius.net
+ */
+
+package ivorius.reccomplex.world.gen.feature;
+
+import gnu.trove.map.TLongObjectMap;
+import gnu.trove.map.hash.TLongObjectHashMap;
+import ivorius.reccomplex.utils.RCStructureBoundingBoxes;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.world.gen.structure.StructureBoundingBox;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Grid of entries by (decoration) chunk, keyed by packed chunk coordinates.
+ * Box queries only visit the chunks covered by the box, and removal only visits the chunks covered by the entry.
+ */
+public class StructureEntryIndex<E extends WorldStructureGenerationData.Entry>
+{
+    protected final Map<UUID, Slot<E>> slots = new HashMap<>();
+    protected final TLongObjectMap<List<Slot<E>>> chunks = new TLongObjectHashMap<>();
+
+    public int size()
+    {
+        return slots.size();
+    }
+
+    public boolean isEmpty()
+    {
+        return slots.isEmpty();
+    }
+
+    @Nonnull
+    public Collection<E> all()
+    {
+        List<E> entries = new ArrayList<>(slots.size());
+        for (Slot<E> slot : slots.values())
+            entries.add(slot.entry);
+        return entries;
+    }
+
+    @Nullable
+    public E get(UUID id)
+    {
+        Slot<E> slot = slots.get(id);
+        return slot != null ? slot.entry : null;
+    }
+
+    /**
+     * @return The previous entry with the same ID, if any.
+     */
+    @Nullable
+    public E add(@Nonnull E entry)
+    {
+        E previous = remove(entry.getUuid());
+
+        Slot<E> slot = new Slot<>(entry, entry.getBoundingBox());
+        slots.put(entry.getUuid(), slot);
+
+        if (slot.valid)
+        {
+            for (int x = slot.minX; x <= slot.maxX; x++)
+                for (int z = slot.minZ; z <= slot.maxZ; z++)
+                {
+                    long key = ChunkPos.asLong(x, z);
+                    List<Slot<E>> list = chunks.get(key);
+                    if (list == null)
+                        chunks.put(key, list = new ArrayList<>(2));
+                    list.add(slot);
+                }
+        }
+
+        return previous;
+    }
+
+    @Nullable
+    public E remove(UUID id)
+    {
+        Slot<E> slot = slots.remove(id);
+
+        if (slot == null)
+            return null;
+
+        if (slot.valid)
+        {
+            for (int x = slot.minX; x <= slot.maxX; x++)
+                for (int z = slot.minZ; z <= slot.maxZ; z++)
+                {
+                    long key = ChunkPos.asLong(x, z);
+                    List<Slot<E>> list = chunks.get(key);
+                    if (list != null && list.remove(slot) && list.isEmpty())
+                        chunks.remove(key);
+                }
+        }
+
+        return slot.entry;
+    }
+
+    public void clear()
+    {
+        slots.clear();
+        chunks.clear();
+    }
+
+    /**
+     * @return All entries rasterized into the (decoration) chunk.
+     */
+    @Nonnull
+    public List<E> inChunk(int chunkX, int chunkZ)
+    {
+        List<Slot<E>> list = chunks.get(ChunkPos.asLong(chunkX, chunkZ));
+
+        if (list == null)
+            return Collections.emptyList();
+
+        List<E> entries = new ArrayList<>(list.size());
+        for (Slot<E> slot : list)
+            entries.add(slot.entry);
+        return entries;
+    }
+
+    /**
+     * @return All entries whose bounding box intersects the given one, each once.
+     */
+    @Nonnull
+    public List<E> intersecting(@Nonnull StructureBoundingBox boundingBox)
+    {
+        List<E> entries = new ArrayList<>();
+        forEachIntersecting(boundingBox, entries::add);
+        return entries;
+    }
+
+    public void forEachIntersecting(@Nonnull StructureBoundingBox boundingBox, Consumer<E> consumer)
+    {
+        if (!RCStructureBoundingBoxes.valid(boundingBox))
+            return;
+
+        int minX = chunkCoord(boundingBox.minX), maxX = chunkCoord(boundingBox.maxX);
+        int minZ = chunkCoord(boundingBox.minZ), maxZ = chunkCoord(boundingBox.maxZ);
+        boolean single = minX == maxX && minZ == maxZ;
+
+        Set<Slot<E>> visited = single ? null : Collections.newSetFromMap(new IdentityHashMap<>());
+
+        for (int x = minX; x <= maxX; x++)
+            for (int z = minZ; z <= maxZ; z++)
+            {
+                List<Slot<E>> list = chunks.get(ChunkPos.asLong(x, z));
+                if (list == null)
+                    continue;
+
+                for (Slot<E> slot : list)
+                {
+                    if ((single || visited.add(slot)) && slot.boundingBox.intersectsWith(boundingBox))
+                        consumer.accept(slot.entry);
+                }
+            }
+    }
+
+    /**
+     * Chunk coordinate in the decoration grid, where every chunk is shifted by 8.
+     */
+    public static int chunkCoord(int blockCoord)
+    {
+        return (blockCoord - 8) >> 4;
+    }
+
+    protected static class Slot<E>
+    {
+        public final E entry;
+        // Copy, in case the entry's box is modified while indexed
+        @Nullable
+        public final StructureBoundingBox boundingBox;
+
+        public final boolean valid;
+        public final int minX, maxX, minZ, maxZ;
+
+        public Slot(E entry, StructureBoundingBox boundingBox)
+        {
+            this.entry = entry;
+            this.valid = RCStructureBoundingBoxes.valid(boundingBox);
+            this.boundingBox = valid ? new StructureBoundingBox(boundingBox) : null;
+
+            minX = valid ? chunkCoord(boundingBox.minX) : 0;
+            maxX = valid ? chunkCoord(boundingBox.maxX) : -1;
+            minZ = valid ? chunkCoord(boundingBox.minZ) : 0;
+            maxZ = valid ? chunkCoord(boundingBox.maxZ) : -1;
+        }
+    }
+}
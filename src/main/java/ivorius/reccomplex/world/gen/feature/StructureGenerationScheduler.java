@@ -0,0 +1,83 @@
+/*
+ *  Copyright (c) 2014, Lukas Tenbrink.
+ *  * http://ivorius.net
+ */
+
+package ivorius.reccomplex.world.gen.feature;
+
+import ivorius.reccomplex.RCConfig;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.world.WorldServer;
+import net.minecraftforge.common.DimensionManager;
+import org.apache.commons.lang3.tuple.Pair;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Places the blocks of structures that were only planned during population, a few chunks per server tick.
+ * <p>
+ * The queue itself lives in {@link WorldStructureGenerationData}, so it survives restarts.
+ */
+public class StructureGenerationScheduler
+{
+    protected static volatile long lastTickNanos;
+
+    public static boolean isEnabled()
+    {
+        return RCConfig.deferredGenerationBudget > 0;
+    }
+
+    public static void tick()
+    {
+        WorldServer[] worlds = DimensionManager.getWorlds();
+
+        // Keep draining when disabled, so nothing is left behind
+        long budget = TimeUnit.MICROSECONDS.toNanos((long) (Math.max(RCConfig.deferredGenerationBudget, 1) * 1000));
+        long start = System.nanoTime();
+        long chunks = 0;
+
+        boolean any = true;
+        while (any && System.nanoTime() - start < budget)
+        {
+            any = false;
+
+            // Round robin so one busy dimension doesn't starve the others
+            for (WorldServer world : worlds)
+            {
+                WorldStructureGenerationData data = WorldStructureGenerationData.get(world);
+                if (data.pendingComplementCount() <= 0)
+                    continue;
+
+                Pair<WorldStructureGenerationData.StructureEntry, ChunkPos> next = data.pollPendingComplement();
+                if (next == null)
+                    continue;
+
+                any = true;
+                ChunkPos chunkPos = next.getRight();
+                WorldGenStructures.DECORATION_LOCKS.run(world.provider.getDimension(), chunkPos.x, chunkPos.z,
+                        () -> WorldGenStructures.complementStructureInChunk(chunkPos, world, next.getLeft()));
+                chunks++;
+            }
+        }
+
+        lastTickNanos = System.nanoTime() - start;
+        if (chunks > 0)
+            RCProfiler.count(RCProfiler.Counter.DEFERRED_CHUNKS, chunks, lastTickNanos);
+    }
+
+    /**
+     * @return The number of chunks waiting to be generated into, over all loaded dimensions.
+     */
+    public static int queueDepth()
+    {
+        int depth = 0;
+        for (WorldServer world : DimensionManager.getWorlds())
+            depth += WorldStructureGenerationData.get(world).pendingComplementCount();
+        return depth;
+    }
+
+    public static long lastTickNanos()
+    {
+        return lastTickNanos;
+    }
+}
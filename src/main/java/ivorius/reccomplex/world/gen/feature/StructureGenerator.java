@@ -38,6 +38,7 @@ import javax.annotation.Nullable;
 import java.util.Collection;
 import java.util.Optional;
 import java.util.Random;
+import java.util.UUID;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
@@ -95,6 +96,8 @@ public class StructureGenerator<S extends NBTStorable>
     private S instanceData;
     @Nullable
     private NBTBase instanceDataNBT;
+    @Nullable
+    private UUID instanceDataKey;
 
     private boolean allowOverlaps = false;
     private boolean memorize = true;
@@ -127,6 +130,26 @@ public class StructureGenerator<S extends NBTStorable>
      */
     @Nonnull
     public GenerationResult generate()
+    {
+        return generate(false);
+    }
+
+    /**
+     * Like {@link #generate()}, but only registers the structure and leaves placing its blocks to the
+     * {@link StructureGenerationScheduler} and to complementing the chunks it spans as they populate.
+     * Falls back to generating right away if the structure isn't memorized or not generated partially.
+     * <p>
+     * A planned structure fires {@link StructureGenerationEvent.Pre}, but no {@link StructureGenerationEvent.Post}
+     * (nor their lite counterparts), since its blocks are only placed later, chunk by chunk.
+     */
+    @Nonnull
+    public GenerationResult plan()
+    {
+        return generate(memorize && partially && structureID() != null);
+    }
+
+    @Nonnull
+    protected GenerationResult generate(boolean defer)
     {
         Optional<S> optionalInstanceData = instanceData();
 
@@ -163,25 +186,32 @@ public class StructureGenerator<S extends NBTStorable>
                 MinecraftForge.EVENT_BUS.post(new StructureGenerationEventLite.Pre(world, structureID, boundingBox, spawn.generationLayer, firstTime));
         }
 
-        RCWorldgenMonitor.start("generating " + structureID());
-        try {
-            structure.generate(spawn, instanceData, foreignTransformer());
-        }
-        catch (Exception e) {
-            return failGenerate(new GenerationResult.Failure.Exception(e));
-        }
-        finally {
-            RCWorldgenMonitor.stop();
+        if (!defer) {
+            RCProfiler.start(firstTime ? RCProfiler.Phase.GENERATE : RCProfiler.Phase.COMPLEMENT, structureID);
+            try {
+                structure.generate(spawn, instanceData, foreignTransformer());
+            }
+            catch (Exception e) {
+                return failGenerate(new GenerationResult.Failure.Exception(e));
+            }
+            finally {
+                long blocks = spawn.flushBlocks();
+                RCProfiler.blocksPlaced(structureID, blocks);
+                RCProfiler.stop();
+            }
         }
 
         if (!firstTime)
             return GenerationResult.Success.complement;
 
-        RecurrentComplex.logger.trace(String.format("Generated structure '%s' in %s (%d)", name(structureID), boundingBox, world.provider.getDimension()));
+        RecurrentComplex.logger.trace(String.format("%s structure '%s' in %s (%d)", defer ? "Planned" : "Generated", name(structureID), boundingBox, world.provider.getDimension()));
 
-        RCEventBus.INSTANCE.post(new StructureGenerationEvent.Post(structure, spawn));
-        if (structureID != null)
-            MinecraftForge.EVENT_BUS.post(new StructureGenerationEventLite.Post(world, structureID, boundingBox, spawn.generationLayer, firstTime));
+        // Nothing is placed yet when deferring, and the chunks are filled in piecemeal - so there's no Post to speak of
+        if (!defer) {
+            RCEventBus.INSTANCE.post(new StructureGenerationEvent.Post(structure, spawn));
+            if (structureID != null)
+                MinecraftForge.EVENT_BUS.post(new StructureGenerationEventLite.Post(world, structureID, boundingBox, spawn.generationLayer, firstTime));
+        }
 
         if (structureID == null || !memorize)
             return GenerationResult.Success.contemporary;
@@ -201,11 +231,15 @@ public class StructureGenerator<S extends NBTStorable>
             RecurrentComplex.logger.error(String.format("Error saving instance data for structure %s in %s", structure, boundingBox), e);
         }
 
-        Collection<ChunkPos> existingChunks = Sets.newHashSet(WorldStructureGenerationData.get(world)
-                .addEntry(structureEntry));
+        WorldStructureGenerationData generationData = WorldStructureGenerationData.get(world);
+        Collection<ChunkPos> existingChunks = Sets.newHashSet(generationData.addEntry(structureEntry));
 
         // Complement in all chunks that already exist
-        if (partially) {
+        if (defer) {
+            // Including the one we'd have generated in
+            generationData.deferComplement(structureEntry, existingChunks);
+        }
+        else if (partially) {
             maturity(StructureSpawnContext.GenerateMaturity.COMPLEMENT);
 
             StructureBoundingBox oldBB = generationBB;
@@ -215,9 +249,20 @@ public class StructureGenerator<S extends NBTStorable>
                 if (oldBB.intersectsWith(generationBB))
                     continue; // Skip those that we just generated in, especially the same chunk
 
-                RCWorldgenMonitor.start("pre-complementing " + structureID());
-                structure.generate(spawn().get(), instanceData, RCConfig.getUniversalTransformer());
-                RCWorldgenMonitor.stop();
+                // Another thread may be decorating that chunk right now; if so, this is deferred until we're done
+                StructureSpawnContext complementSpawn = spawn().get();
+                WorldGenStructures.DECORATION_LOCKS.run(world.provider.getDimension(), existingChunk.x, existingChunk.z, () ->
+                {
+                    RCProfiler.start(RCProfiler.Phase.COMPLEMENT, structureID);
+                    try {
+                        structure.generate(complementSpawn, instanceData, RCConfig.getUniversalTransformer());
+                    }
+                    finally {
+                        long blocks = complementSpawn.flushBlocks();
+                        RCProfiler.blocksPlaced(structureID, blocks);
+                        RCProfiler.stop();
+                    }
+                });
             }
             generationBB(oldBB);
         }
@@ -409,9 +454,14 @@ public class StructureGenerator<S extends NBTStorable>
                 boundingBox = Structures.boundingBox((fromCenter ? surfacePos.subtract(size[0] / 2, size[2] / 2) : surfacePos).blockPos(0), size);
 
                 if (placed) {
-                    RCWorldgenMonitor.start("placing " + structureID());
-                    int y = placer.place(place(), structure().blockCollection());
-                    RCWorldgenMonitor.stop();
+                    int y;
+                    RCProfiler.start(RCProfiler.Phase.PLACE, structureID());
+                    try {
+                        y = placer.place(place(), structure().blockCollection());
+                    }
+                    finally {
+                        RCProfiler.stop();
+                    }
 
                     if (y < 0) return Optional.empty();
                     boundingBox.minY += y;
@@ -515,19 +565,32 @@ public class StructureGenerator<S extends NBTStorable>
         return this;
     }
 
+    /**
+     * Like {@link #instanceData(NBTBase)}, but shares the loaded instance data with other generators using the same key,
+     * through the {@link InstanceDataCache}.
+     */
+    public StructureGenerator<S> instanceData(NBTBase nbt, @Nullable UUID key)
+    {
+        this.instanceDataNBT = nbt;
+        this.instanceDataKey = key;
+        return this;
+    }
+
     @Nonnull
     public Optional<S> instanceData()
     {
         return this.instanceData != null ? Optional.of(this.instanceData)
-                : this.instanceDataNBT != null ? load().map(load -> structure().loadInstanceData(load, this.instanceDataNBT, foreignTransformer()))
+                : this.instanceDataNBT != null ? load().map(load -> loadInstanceData(load, this.instanceDataNBT))
                 : prepare().flatMap(prepare ->
         {
             try {
-                RCWorldgenMonitor.start("preparing " + structureID());
-                Optional<S> prepared = Optional.ofNullable(structure().prepareInstanceData(prepare, foreignTransformer()));
-                RCWorldgenMonitor.stop();
-
-                return prepared;
+                RCProfiler.start(RCProfiler.Phase.PREPARE, structureID());
+                try {
+                    return Optional.ofNullable(structure().prepareInstanceData(prepare, foreignTransformer()));
+                }
+                finally {
+                    RCProfiler.stop();
+                }
             }
             catch (Exception e) {
                 if (e instanceof ExpectedException && ((ExpectedException) e).isExpected())
@@ -540,6 +603,19 @@ public class StructureGenerator<S extends NBTStorable>
         });
     }
 
+    @Nullable
+    protected S loadInstanceData(StructureLoadContext load, NBTBase nbt)
+    {
+        Structure<S> structure = structure();
+        TransformerMulti foreignTransformer = foreignTransformer();
+
+        InstanceDataCache cache = instanceDataKey != null ? StructureRegistry.INSTANCE.module(InstanceDataCache.class) : null;
+        if (cache == null)
+            return structure.loadInstanceData(load, nbt, foreignTransformer);
+
+        return cache.get(instanceDataKey, nbt, structure, foreignTransformer, load, () -> structure.loadInstanceData(load, nbt, foreignTransformer));
+    }
+
     public StructureGenerator<S> memorize(boolean memorize)
     {
         this.memorize = memorize;
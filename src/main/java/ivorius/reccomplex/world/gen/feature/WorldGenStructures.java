@@ -28,7 +28,6 @@ import javax.annotation.Nullable;
 import java.util.List;
 import java.util.Random;
 import java.util.function.Predicate;
-import java.util.stream.Collectors;
 
 /**
  * Created by lukas on 24.05.14.
@@ -39,6 +38,11 @@ public class WorldGenStructures
 
     public static final int STRUCTURE_TRIES = 10;
 
+    /**
+     * Held while generating into a chunk's region. Nested decoration into a busy region is deferred, see {@link RegionLocks}.
+     */
+    public static final RegionLocks DECORATION_LOCKS = new RegionLocks(6);
+
     public static void planStaticStructuresInChunk(Random random, ChunkPos chunkPos, WorldServer world, BlockPos spawnPos, @Nullable Predicate<Structure> structurePredicate)
     {
         StaticGeneration.structuresAt(StructureRegistry.INSTANCE, chunkPos, world, spawnPos).forEach(triple ->
@@ -97,7 +101,6 @@ public class WorldGenStructures
         return false;
     }
 
-    // TODO Use !instantly to only plan structure but later generate
     protected static boolean planStructureInChunk(ChunkPos chunkPos, WorldServer world, Structure<?> structure, NaturalGeneration naturalGenInfo, long seed)
     {
         String structureName = StructureRegistry.INSTANCE.id(structure);
@@ -117,7 +120,7 @@ public class WorldGenStructures
                 return false;
             }
 
-            return generator.generate().succeeded();
+            return (StructureGenerationScheduler.isEnabled() ? generator.plan() : generator.generate()).succeeded();
         }
 
         return false;
@@ -125,37 +128,37 @@ public class WorldGenStructures
 
     public static void complementStructuresInChunk(final ChunkPos chunkPos, final WorldServer world, List<WorldStructureGenerationData.StructureEntry> complement)
     {
-        WorldStructureGenerationData data = WorldStructureGenerationData.get(world);
+        complement.stream().filter(e -> !e.preventComplementation()).forEach(entry -> complementStructureInChunk(chunkPos, world, entry));
+    }
 
-        complement.stream().filter(e -> !e.preventComplementation()).forEach(entry ->
-        {
-            Structure<?> structure = StructureRegistry.INSTANCE.get(entry.getStructureID());
+    public static void complementStructureInChunk(final ChunkPos chunkPos, final WorldServer world, WorldStructureGenerationData.StructureEntry entry)
+    {
+        Structure<?> structure = StructureRegistry.INSTANCE.get(entry.getStructureID());
 
-            if (structure == null)
-            {
-                RecurrentComplex.logger.warn(String.format("Can't find structure %s (%s) to complement in %s (%d)", entry.getStructureID(), entry.getUuid(), chunkPos, world.provider.getDimension()));
-                return;
-            }
+        if (structure == null)
+        {
+            RecurrentComplex.logger.warn(String.format("Can't find structure %s (%s) to complement in %s (%d)", entry.getStructureID(), entry.getUuid(), chunkPos, world.provider.getDimension()));
+            return;
+        }
 
-            if (entry.instanceData == null && !entry.firstTime)
-            {
-                RecurrentComplex.logger.warn(String.format("Can't find instance data of %s (%s) to complement in %s (%d)", entry.getStructureID(), entry.getUuid(), chunkPos, world.provider.getDimension()));
-                return;
-            }
+        if (entry.instanceData == null && !entry.firstTime)
+        {
+            RecurrentComplex.logger.warn(String.format("Can't find instance data of %s (%s) to complement in %s (%d)", entry.getStructureID(), entry.getUuid(), chunkPos, world.provider.getDimension()));
+            return;
+        }
 
-            new StructureGenerator<>(structure).world(world).generationInfo(entry.generationInfoID)
-                    .seed(chunkSeed(entry.seed, chunkPos)).boundingBox(entry.boundingBox).transform(entry.transform).generationBB(Structures.chunkBoundingBox(chunkPos, true))
-                    .structureID(entry.getStructureID()).instanceData(entry.instanceData)
-                    // Could use entry.firstTime but then StructureGenerator would add a new entry
-                    .maturity(StructureSpawnContext.GenerateMaturity.COMPLEMENT)
-                    .generate();
+        new StructureGenerator<>(structure).world(world).generationInfo(entry.generationInfoID)
+                .seed(chunkSeed(entry.seed, chunkPos)).boundingBox(entry.boundingBox).transform(entry.transform).generationBB(Structures.chunkBoundingBox(chunkPos, true))
+                .structureID(entry.getStructureID()).instanceData(entry.instanceData, entry.getUuid())
+                // Could use entry.firstTime but then StructureGenerator would add a new entry
+                .maturity(StructureSpawnContext.GenerateMaturity.COMPLEMENT)
+                .generate();
 
-            if (entry.firstTime)
-            {
-                entry.firstTime = false;
-                data.markDirty();
-            }
-        });
+        if (entry.firstTime)
+        {
+            entry.firstTime = false;
+            WorldStructureGenerationData.get(world).markDirty(entry);
+        }
     }
 
     public static long chunkSeed(long seed, ChunkPos chunkPos)
@@ -174,57 +177,65 @@ public class WorldGenStructures
         ));
     }
 
+    /**
+     * @return Whether structures were planned in the chunk. Decoration nested in another thread's busy region is deferred
+     * and returns false.
+     */
     public static boolean decorate(WorldServer world, Random random, ChunkPos chunkPos, @Nullable Predicate<Structure> structurePredicate)
     {
-        boolean generated = false;
+        boolean[] generated = new boolean[1];
 
-        boolean worldWantsStructures = world.getWorldInfo().isMapFeaturesEnabled();
-        WorldStructureGenerationData data = WorldStructureGenerationData.get(world);
+        // Forge reseeds the caller's random for the next chunk before a deferred run gets to it,
+        // so draw our own now - and use it either way, so deferring doesn't change what generates
+        long seed = random.nextLong();
 
         // We need to synchronize (multithreaded gen) since we need to plan structures before complementing,
-        // otherwise structures get lost in some chunks
-        synchronized (data)
-        {
-            // TODO Synchronize on chunk pos instead (need to make sure these are only added on same sync though)
-
-            List<WorldStructureGenerationData.StructureEntry> complement = data.structureEntriesIn(chunkPos).collect(Collectors.toList());
-            if (structurePredicate == null)
-                data.checkChunk(chunkPos);
+        // otherwise structures get lost in some chunks. WorldStructureGenerationData takes care of that part, so
+        // here we only need to keep threads from generating into the same chunks at once.
+        DECORATION_LOCKS.run(world.provider.getDimension(), chunkPos.x, chunkPos.z,
+                () -> generated[0] = decorateLocked(world, new Random(seed), chunkPos, structurePredicate));
 
-            // Complement before generating so we don't complement newly planned structures:
-            // Chunk checked
-            // Structure starts generating
-            // Triggers other chunks, sight doesn't exist yet so no complementation in those
-            // Structure stops generating and adds entry
-            // Other structures that generated into this one are not complemented into it because complementation happened already
+        return generated[0];
+    }
 
-            if (structurePredicate == null)
-                complementStructuresInChunk(chunkPos, world, complement);
+    protected static boolean decorateLocked(WorldServer world, Random random, ChunkPos chunkPos, @Nullable Predicate<Structure> structurePredicate)
+    {
+        boolean worldWantsStructures = world.getWorldInfo().isMapFeaturesEnabled();
+        WorldStructureGenerationData data = WorldStructureGenerationData.get(world);
 
-            if ((!RCConfig.honorStructureGenerationOption || worldWantsStructures)
-                    // If partially spawn, check chunks as having tried to add partial structures as into the thingy
-                    && (structurePredicate == null || !RecurrentComplex.PARTIALLY_SPAWN_NATURAL_STRUCTURES || data.checkChunkFinal(chunkPos)))
-            {
-                Biome biomeGen = world.getBiome(chunkPos.getBlock(8, 0, 8));
-                BlockPos spawnPos = world.getSpawnPoint();
+        // Complement before generating so we don't complement newly planned structures:
+        // Chunk checked
+        // Structure starts generating
+        // Triggers other chunks, sight doesn't exist yet so no complementation in those
+        // Structure stops generating and adds entry
+        // Other structures that generated into this one are not complemented into it because complementation happened already
 
-                planStaticStructuresInChunk(random, chunkPos, world, spawnPos, structurePredicate);
+        if (structurePredicate == null)
+            complementStructuresInChunk(chunkPos, world, data.checkChunkForComplement(chunkPos));
 
-                boolean mayGenerate = RCConfig.isGenerationEnabled(biomeGen) && RCConfig.isGenerationEnabled(world.provider);
+        if ((!RCConfig.honorStructureGenerationOption || worldWantsStructures)
+                // If partially spawn, check chunks as having tried to add partial structures as into the thingy
+                && (structurePredicate == null || !RecurrentComplex.PARTIALLY_SPAWN_NATURAL_STRUCTURES || data.checkChunkFinal(chunkPos)))
+        {
+            Biome biomeGen = world.getBiome(chunkPos.getBlock(8, 0, 8));
+            BlockPos spawnPos = world.getSpawnPoint();
 
-                if (world.provider.getDimension() == 0)
-                {
-                    double distToSpawn = IvVecMathHelper.distanceSQ(new double[]{chunkPos.x * 16 + 8, chunkPos.z * 16 + 8}, new double[]{spawnPos.getX(), spawnPos.getZ()});
-                    mayGenerate &= distToSpawn >= RCConfig.minDistToSpawnForGeneration * RCConfig.minDistToSpawnForGeneration;
-                }
+            planStaticStructuresInChunk(random, chunkPos, world, spawnPos, structurePredicate);
 
-                if (mayGenerate)
-                    planStructuresInChunk(random, chunkPos, world, biomeGen, structurePredicate);
+            boolean mayGenerate = RCConfig.isGenerationEnabled(biomeGen) && RCConfig.isGenerationEnabled(world.provider);
 
-                generated = true;
+            if (world.provider.getDimension() == 0)
+            {
+                double distToSpawn = IvVecMathHelper.distanceSQ(new double[]{chunkPos.x * 16 + 8, chunkPos.z * 16 + 8}, new double[]{spawnPos.getX(), spawnPos.getZ()});
+                mayGenerate &= distToSpawn >= RCConfig.minDistToSpawnForGeneration * RCConfig.minDistToSpawnForGeneration;
             }
+
+            if (mayGenerate)
+                planStructuresInChunk(random, chunkPos, world, biomeGen, structurePredicate);
+
+            return true;
         }
 
-        return generated;
+        return false;
     }
 }
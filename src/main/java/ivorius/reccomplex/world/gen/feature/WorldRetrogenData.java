@@ -0,0 +1,141 @@
+/*
+ *  Copyright (c) 2014, Lukas Tenbrink.
+ *  * http://ivorius.net
+ */
+
+package ivorius.reccomplex.world.gen.feature;
+
+import ivorius.ivtoolkit.tools.NBTCompoundObject;
+import ivorius.reccomplex.RecurrentComplex;
+import net.minecraft.nbt.NBTTagCompound;
+import net.minecraft.world.World;
+import net.minecraft.world.storage.WorldSavedData;
+import net.minecraftforge.common.util.Constants;
+
+import javax.annotation.Nullable;
+
+/**
+ * The retrogen job of a dimension, if any, saved with the world so that it continues after a restart.
+ * Only touched from the server thread.
+ */
+public class WorldRetrogenData extends WorldSavedData
+{
+    private static final String IDENTIFIER = RecurrentComplex.MOD_ID + "-retrogen";
+
+    @Nullable
+    protected Job job;
+
+    public WorldRetrogenData(String id)
+    {
+        super(id);
+    }
+
+    public WorldRetrogenData()
+    {
+        this(IDENTIFIER);
+    }
+
+    public static WorldRetrogenData get(World world)
+    {
+        WorldRetrogenData data = (WorldRetrogenData) world.getPerWorldStorage().getOrLoadData(WorldRetrogenData.class, IDENTIFIER);
+        if (data == null)
+        {
+            data = new WorldRetrogenData();
+            world.getPerWorldStorage().setData(data.mapName, data);
+        }
+        return data;
+    }
+
+    @Nullable
+    public Job getJob()
+    {
+        return job;
+    }
+
+    public void setJob(@Nullable Job job)
+    {
+        this.job = job;
+        markDirty();
+    }
+
+    @Override
+    public void readFromNBT(NBTTagCompound compound)
+    {
+        job = null;
+        if (compound.hasKey("job", Constants.NBT.TAG_COMPOUND))
+        {
+            job = new Job();
+            job.readFromNBT(compound.getCompoundTag("job"));
+        }
+    }
+
+    @Override
+    public NBTTagCompound writeToNBT(NBTTagCompound compound)
+    {
+        if (job != null)
+        {
+            NBTTagCompound jobCompound = new NBTTagCompound();
+            job.writeToNBT(jobCompound);
+            compound.setTag("job", jobCompound);
+        }
+        return compound;
+    }
+
+    /**
+     * A retrogen run over all existing chunks of a dimension. The cursor points at the next chunk to visit, by
+     * region coordinates and the chunk's index in the region's header. Regions are visited in ascending x, then z.
+     */
+    public static class Job implements NBTCompoundObject
+    {
+        @Nullable
+        public String structureExpression;
+
+        public int regionX = Integer.MIN_VALUE, regionZ = Integer.MIN_VALUE;
+        public int chunkIndex;
+
+        public boolean paused;
+
+        public long visitedChunks;
+        public long generatedChunks;
+
+        public Job()
+        {
+        }
+
+        public Job(@Nullable String structureExpression)
+        {
+            this.structureExpression = structureExpression;
+        }
+
+        @Override
+        public void readFromNBT(NBTTagCompound compound)
+        {
+            structureExpression = compound.hasKey("structureExpression", Constants.NBT.TAG_STRING) ? compound.getString("structureExpression") : null;
+
+            regionX = compound.getInteger("regionX");
+            regionZ = compound.getInteger("regionZ");
+            chunkIndex = compound.getInteger("chunkIndex");
+
+            paused = compound.getBoolean("paused");
+
+            visitedChunks = compound.getLong("visitedChunks");
+            generatedChunks = compound.getLong("generatedChunks");
+        }
+
+        @Override
+        public void writeToNBT(NBTTagCompound compound)
+        {
+            if (structureExpression != null)
+                compound.setString("structureExpression", structureExpression);
+
+            compound.setInteger("regionX", regionX);
+            compound.setInteger("regionZ", regionZ);
+            compound.setInteger("chunkIndex", chunkIndex);
+
+            compound.setBoolean("paused", paused);
+
+            compound.setLong("visitedChunks", visitedChunks);
+            compound.setLong("generatedChunks", generatedChunks);
+        }
+    }
+}
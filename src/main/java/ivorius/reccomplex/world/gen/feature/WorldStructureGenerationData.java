@@ -7,13 +7,19 @@ package ivorius.reccomplex.world.gen.feature;
 
 import com.google.common.collect.HashMultimap;
 import com.google.common.collect.SetMultimap;
-import com.google.common.collect.Sets;
+import gnu.trove.iterator.TLongIterator;
+import gnu.trove.map.TObjectIntMap;
+import gnu.trove.map.hash.TObjectIntHashMap;
+import gnu.trove.procedure.TLongProcedure;
+import gnu.trove.set.TLongSet;
+import gnu.trove.set.hash.TLongHashSet;
 import ivorius.ivtoolkit.blocks.BlockPositions;
 import ivorius.ivtoolkit.math.AxisAlignedTransform2D;
 import ivorius.ivtoolkit.tools.NBTCompoundObject;
 import ivorius.ivtoolkit.tools.NBTCompoundObjects;
 import ivorius.ivtoolkit.tools.NBTTagLists;
 import ivorius.ivtoolkit.world.chunk.gen.StructureBoundingBoxes;
+import ivorius.reccomplex.RCConfig;
 import ivorius.reccomplex.RecurrentComplex;
 import ivorius.reccomplex.utils.RCAxisAlignedTransform;
 import ivorius.reccomplex.utils.RCStructureBoundingBoxes;
@@ -22,32 +28,48 @@ import ivorius.reccomplex.world.gen.feature.structure.StructureRegistry;
 import ivorius.reccomplex.world.gen.feature.structure.Structures;
 import net.minecraft.nbt.NBTBase;
 import net.minecraft.nbt.NBTTagCompound;
+import net.minecraft.nbt.NBTTagList;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.ChunkPos;
 import net.minecraft.world.World;
 import net.minecraft.world.gen.structure.StructureBoundingBox;
 import net.minecraft.world.storage.WorldSavedData;
 import net.minecraftforge.common.util.Constants;
+import org.apache.commons.lang3.tuple.Pair;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import java.util.*;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 /**
  * Created by lukas on 01.03.15.
+ * <p>
+ * Thread safe; every query returns a snapshot, so callers may keep using it while other threads add entries.
  */
 public class WorldStructureGenerationData extends WorldSavedData
 {
     private static final String IDENTIFIER = RecurrentComplex.MOD_ID + "-structuredata";
 
-    protected final Set<ChunkPos> checkedChunks = new HashSet<>();
-    protected final Set<ChunkPos> checkedChunksFinal = new HashSet<>();
+    protected final ChunkBitSet checkedChunks = new ChunkBitSet();
+    protected final ChunkBitSet checkedChunksFinal = new ChunkBitSet();
 
-    protected final Map<UUID, Entry> entryMap = new HashMap<>();
-    protected final SetMultimap<ChunkPos, Entry> chunkMap = HashMultimap.create();
+    protected final StructureEntryIndex<Entry> entries = new StructureEntryIndex<>();
 
     protected final SetMultimap<String, StructureEntry> instanceMap = HashMultimap.create();
+    protected final TObjectIntMap<String> structureCounts = new TObjectIntHashMap<>();
+
+    // Sharded storage: entries live in per-region files and are loaded once their region is queried
+    @Nullable
+    protected StructureDataShards shards;
+    protected boolean shardedFormat;
+    protected final TLongSet loadedRegions = new TLongHashSet();
+    protected final TLongSet dirtyRegions = new TLongHashSet();
+
+    // Chunks of planned structures that are waiting for deferred generation, by entry
+    protected final Map<UUID, TLongSet> pendingComplements = new LinkedHashMap<>();
+    protected int pendingComplementCount;
 
     public WorldStructureGenerationData(String id)
     {
@@ -67,24 +89,113 @@ public class WorldStructureGenerationData extends WorldSavedData
             data = new WorldStructureGenerationData();
             world.getPerWorldStorage().setData(data.mapName, data);
         }
+        data.setupStorage(world);
         return data;
     }
 
+    protected synchronized void setupStorage(World world)
+    {
+        if (RCConfig.shardStructureData)
+        {
+            if (shards != null)
+                return;
+
+            shards = new StructureDataShards(StructureDataShards.directory(world, IDENTIFIER));
+
+            if (!shardedFormat)
+            {
+                // Migrate: everything is in memory, so write all of it out, and replace whatever shards are lying around
+                RecurrentComplex.logger.info("Moving structure generation data of dimension " + world.provider.getDimension() + " to region files");
+
+                TLongSet regions = shards.existing();
+                entries.all().forEach(entry -> forEachRegion(entry, regions::add));
+                loadedRegions.addAll(regions);
+                dirtyRegions.addAll(regions);
+
+                shardedFormat = true;
+                markDirty();
+            }
+        }
+        else if (shardedFormat)
+        {
+            // Sharding was turned off; pull everything back into the single file
+            RecurrentComplex.logger.info("Moving structure generation data of dimension " + world.provider.getDimension() + " back from region files");
+
+            shards = new StructureDataShards(StructureDataShards.directory(world, IDENTIFIER));
+            ensureAllLoaded();
+            shards = null;
+
+            shardedFormat = false;
+            markDirty();
+        }
+    }
+
+    protected static void forEachRegion(Entry entry, TLongProcedure procedure)
+    {
+        StructureBoundingBox bb = entry.getBoundingBox();
+        if (!RCStructureBoundingBoxes.valid(bb))
+            return;
+
+        forEachRegion(StructureEntryIndex.chunkCoord(bb.minX), StructureEntryIndex.chunkCoord(bb.minZ),
+                StructureEntryIndex.chunkCoord(bb.maxX), StructureEntryIndex.chunkCoord(bb.maxZ), procedure);
+    }
+
+    protected static void forEachRegion(int minChunkX, int minChunkZ, int maxChunkX, int maxChunkZ, TLongProcedure procedure)
+    {
+        for (int x = StructureDataShards.region(minChunkX); x <= StructureDataShards.region(maxChunkX); x++)
+            for (int z = StructureDataShards.region(minChunkZ); z <= StructureDataShards.region(maxChunkZ); z++)
+                procedure.execute(StructureDataShards.key(x, z));
+    }
+
+    protected boolean ensureRegionLoaded(long key)
+    {
+        if (shards == null || !loadedRegions.add(key))
+            return true;
+
+        NBTTagCompound compound = shards.read(key);
+        if (compound != null)
+            readEntries(compound);
+
+        return true;
+    }
+
+    protected void ensureLoaded(int minChunkX, int minChunkZ, int maxChunkX, int maxChunkZ)
+    {
+        if (shards != null)
+            forEachRegion(minChunkX, minChunkZ, maxChunkX, maxChunkZ, this::ensureRegionLoaded);
+    }
+
+    protected void ensureLoaded(StructureBoundingBox boundingBox)
+    {
+        if (RCStructureBoundingBoxes.valid(boundingBox))
+            ensureLoaded(StructureEntryIndex.chunkCoord(boundingBox.minX), StructureEntryIndex.chunkCoord(boundingBox.minZ),
+                    StructureEntryIndex.chunkCoord(boundingBox.maxX), StructureEntryIndex.chunkCoord(boundingBox.maxZ));
+    }
+
+    protected void ensureAllLoaded()
+    {
+        if (shards != null)
+            shards.existing().forEach(this::ensureRegionLoaded);
+    }
+
     public Stream<StructureEntry> structureEntriesIn(ChunkPos coords)
     {
         return entriesAt(coords)
                 .filter(StructureEntry.class::isInstance).map(StructureEntry.class::cast);
     }
 
-    public Stream<Entry> entriesAt(ChunkPos coords)
+    public synchronized Stream<Entry> entriesAt(ChunkPos coords)
     {
-        return chunkMap.get(coords).stream();
+        ensureLoaded(coords.x, coords.z, coords.x, coords.z);
+        return entries.inChunk(coords.x, coords.z).stream();
     }
 
-    public Stream<Entry> entriesAt(final BlockPos coords)
+    public synchronized Stream<Entry> entriesAt(final BlockPos coords)
     {
         // Add 8 for both since the chunk map is rasterized for decoration where every chunk is +8
-        return entriesAt(new ChunkPos((coords.getX() - 8) >> 4, (coords.getZ() - 8) >> 4))
+        int chunkX = StructureEntryIndex.chunkCoord(coords.getX()), chunkZ = StructureEntryIndex.chunkCoord(coords.getZ());
+        ensureLoaded(chunkX, chunkZ, chunkX, chunkZ);
+        return entries.inChunk(chunkX, chunkZ).stream()
                 .filter(input ->
                 {
                     StructureBoundingBox bb = input.getBoundingBox();
@@ -92,50 +203,178 @@ public class WorldStructureGenerationData extends WorldSavedData
                 });
     }
 
-    public Stream<Entry> entriesAt(final StructureBoundingBox boundingBox)
+    public synchronized Stream<Entry> entriesAt(final StructureBoundingBox boundingBox)
     {
-        return RCStructureBoundingBoxes.rasterize(boundingBox, true).stream().flatMap(chunkPos -> entriesAt(chunkPos).filter(input ->
-        {
-            StructureBoundingBox bb = input.getBoundingBox();
-            return bb != null && bb.intersectsWith(boundingBox);
-        }));
+        ensureLoaded(boundingBox);
+        return entries.intersecting(boundingBox).stream();
     }
 
-    public Set<ChunkPos> addEntry(Entry entry)
+    /**
+     * @return The chunks of the entry that were checked already and thus need to be complemented by the caller.
+     * Any chunk checked later will see the entry in {@link #checkChunkForComplement(ChunkPos)}.
+     */
+    public synchronized Set<ChunkPos> addEntry(Entry entry)
     {
-        entryMap.put(entry.getUuid(), entry);
+        ensureLoaded(entry.getBoundingBox());
+
+        Entry previous = entries.add(entry);
+        if (previous != null)
+            forgetEntry(previous);
+        rememberEntry(entry);
+
+        markDirty(entry);
 
-        Set<ChunkPos> rasterized = entry.rasterize();
-        for (ChunkPos coords : rasterized)
-            chunkMap.put(coords, entry);
+        return entry.rasterize().stream().filter(checkedChunks::contains).collect(Collectors.toSet());
+    }
 
+    protected void rememberEntry(Entry entry)
+    {
         if (entry instanceof StructureEntry)
-            instanceMap.put(((StructureEntry) entry).getStructureID(), (StructureEntry) entry);
+        {
+            String structureID = ((StructureEntry) entry).getStructureID();
+            instanceMap.put(structureID, (StructureEntry) entry);
+            structureCounts.adjustOrPutValue(structureID, 1, 1);
+        }
+    }
 
-        markDirty();
+    protected void forgetEntry(Entry entry)
+    {
+        if (entry instanceof StructureEntry)
+        {
+            String structureID = ((StructureEntry) entry).getStructureID();
+            instanceMap.remove(structureID, entry);
+            if (structureCounts.adjustOrPutValue(structureID, -1, 0) <= 0)
+                structureCounts.remove(structureID);
+        }
+    }
 
-        return Sets.intersection(checkedChunks, rasterized);
+    /**
+     * Call after modifying an entry that was already added.
+     */
+    public synchronized void markDirty(Entry entry)
+    {
+        if (shards != null)
+        {
+            // Regions are written as a whole, so they need to be complete
+            forEachRegion(entry, key -> ensureRegionLoaded(key) && dirtyRegions.add(key));
+        }
+        markDirty();
     }
 
-    public Entry getEntry(UUID id)
+    public synchronized Entry getEntry(UUID id)
     {
-        return entryMap.get(id);
+        Entry entry = entries.get(id);
+
+        if (entry == null && shards != null)
+        {
+            // No idea where it is
+            ensureAllLoaded();
+            entry = entries.get(id);
+        }
+
+        return entry;
     }
 
-    public Entry removeEntry(UUID id)
+    public synchronized Entry removeEntry(UUID id)
     {
-        Entry entry = entryMap.remove(id);
-        chunkMap.values().removeIf(e -> e.uuid.equals(id));
-        instanceMap.values().removeIf(e -> e.uuid.equals(id));
+        Entry entry = getEntry(id);
 
         if (entry != null)
-            markDirty();
+        {
+            // Load all regions first, otherwise they'd bring the entry back
+            ensureLoaded(entry.getBoundingBox());
+
+            entries.remove(id);
+            forgetEntry(entry);
+
+            TLongSet pending = pendingComplements.remove(id);
+            if (pending != null)
+                pendingComplementCount -= pending.size();
+            markDirty(entry);
+        }
         return entry;
     }
 
-    public Set<StructureEntry> getEntriesByID(String id)
+    public synchronized Set<StructureEntry> getEntriesByID(String id)
+    {
+        ensureAllLoaded();
+        return new HashSet<>(instanceMap.get(id));
+    }
+
+    /**
+     * @return The number of entries of the structure in the world, without needing to load all of them.
+     */
+    public synchronized int countEntries(String id)
+    {
+        return structureCounts.get(id);
+    }
+
+    /**
+     * Checks the chunk and returns the structures to complement in it, atomically with respect to {@link #addEntry(Entry)}:
+     * Every entry is either returned here or has the chunk in the set returned by addEntry, never both or neither.
+     */
+    public synchronized List<StructureEntry> checkChunkForComplement(ChunkPos coords)
     {
-        return instanceMap.get(id);
+        List<StructureEntry> complement = structureEntriesIn(coords).collect(Collectors.toList());
+        checkChunk(coords);
+        return complement;
+    }
+
+    /**
+     * Queues chunks of an added entry for complementing later, see {@link StructureGenerationScheduler}.
+     */
+    public synchronized void deferComplement(StructureEntry entry, Collection<ChunkPos> chunks)
+    {
+        if (chunks.isEmpty())
+            return;
+
+        TLongSet pending = pendingComplements.computeIfAbsent(entry.getUuid(), uuid -> new TLongHashSet());
+        for (ChunkPos chunk : chunks)
+        {
+            if (pending.add(ChunkPos.asLong(chunk.x, chunk.z)))
+                pendingComplementCount++;
+        }
+        markDirty();
+    }
+
+    /**
+     * @return The next deferred chunk to complement, or null if there is none.
+     */
+    @Nullable
+    public synchronized Pair<StructureEntry, ChunkPos> pollPendingComplement()
+    {
+        Iterator<Map.Entry<UUID, TLongSet>> iterator = pendingComplements.entrySet().iterator();
+        while (iterator.hasNext())
+        {
+            Map.Entry<UUID, TLongSet> pending = iterator.next();
+
+            TLongIterator chunks = pending.getValue().iterator();
+            if (!chunks.hasNext())
+            {
+                iterator.remove();
+                continue;
+            }
+
+            long chunk = chunks.next();
+            chunks.remove();
+            pendingComplementCount--;
+            if (pending.getValue().isEmpty())
+                iterator.remove();
+            markDirty();
+
+            int chunkX = (int) chunk, chunkZ = (int) (chunk >>> 32);
+            ensureLoaded(chunkX, chunkZ, chunkX, chunkZ);
+            Entry entry = entries.get(pending.getKey());
+            if (entry instanceof StructureEntry)
+                return Pair.of((StructureEntry) entry, new ChunkPos(chunkX, chunkZ));
+        }
+
+        return null;
+    }
+
+    public synchronized int pendingComplementCount()
+    {
+        return pendingComplementCount;
     }
 
     public Stream<ChunkPos> checkAllChunks(Stream<ChunkPos> chunks)
@@ -145,7 +384,12 @@ public class WorldStructureGenerationData extends WorldSavedData
 
     public boolean checkChunk(ChunkPos coords)
     {
-        boolean added = checkedChunks.add(coords);
+        return checkChunk(coords.x, coords.z);
+    }
+
+    public synchronized boolean checkChunk(int chunkX, int chunkZ)
+    {
+        boolean added = checkedChunks.add(chunkX, chunkZ);
         if (added)
             markDirty();
         return added;
@@ -154,35 +398,165 @@ public class WorldStructureGenerationData extends WorldSavedData
     //
     public boolean checkChunkFinal(ChunkPos coords)
     {
-        boolean added = checkedChunksFinal.add(coords);
+        return checkChunkFinal(coords.x, coords.z);
+    }
+
+    public synchronized boolean checkChunkFinal(int chunkX, int chunkZ)
+    {
+        boolean added = checkedChunksFinal.add(chunkX, chunkZ);
         if (added)
             markDirty();
         return added;
     }
 
+    protected void readEntries(NBTTagCompound compound)
+    {
+        // Entries spanning several regions are in each of them, so only take the first copy
+        NBTCompoundObjects.readListFrom(compound, "entries", StructureEntry::new).forEach(this::loadEntry);
+        NBTCompoundObjects.readListFrom(compound, "customEntries", CustomEntry::new).forEach(this::loadEntry);
+    }
+
+    protected void loadEntry(Entry entry)
+    {
+        if (entries.get(entry.getUuid()) != null)
+            return;
+
+        entries.add(entry);
+        if (entry instanceof StructureEntry)
+            instanceMap.put(((StructureEntry) entry).getStructureID(), (StructureEntry) entry);
+    }
+
+    protected void writeEntries(NBTTagCompound compound, Collection<Entry> entries)
+    {
+        NBTCompoundObjects.writeListTo(compound, "entries", entries.stream().filter(e -> e instanceof StructureEntry).collect(Collectors.toList()));
+        NBTCompoundObjects.writeListTo(compound, "customEntries", entries.stream().filter(e -> e instanceof CustomEntry).collect(Collectors.toList()));
+    }
+
+    protected void writeDirtyRegions()
+    {
+        if (shards == null)
+            return;
+
+        dirtyRegions.forEach(key ->
+        {
+            int minX = (StructureDataShards.keyX(key) << (StructureDataShards.REGION_SHIFT + 4)) + 8;
+            int minZ = (StructureDataShards.keyZ(key) << (StructureDataShards.REGION_SHIFT + 4)) + 8;
+            int size = 1 << (StructureDataShards.REGION_SHIFT + 4);
+            List<Entry> inRegion = entries.intersecting(new StructureBoundingBox(minX, Integer.MIN_VALUE, minZ, minX + size - 1, Integer.MAX_VALUE, minZ + size - 1));
+
+            if (inRegion.isEmpty())
+                shards.write(key, null);
+            else
+            {
+                NBTTagCompound compound = new NBTTagCompound();
+                writeEntries(compound, inRegion);
+                shards.write(key, compound);
+            }
+
+            return true;
+        });
+        dirtyRegions.clear();
+    }
+
     @Override
-    public void readFromNBT(NBTTagCompound compound)
+    public synchronized void readFromNBT(NBTTagCompound compound)
     {
-        entryMap.clear();
-        chunkMap.clear();
+        entries.clear();
         instanceMap.clear();
-        NBTCompoundObjects.readListFrom(compound, "entries", StructureEntry::new).forEach(this::addEntry);
-        NBTCompoundObjects.readListFrom(compound, "customEntries", CustomEntry::new).forEach(this::addEntry);
+        structureCounts.clear();
+        loadedRegions.clear();
+        dirtyRegions.clear();
+
+        shardedFormat = compound.getBoolean("sharded");
+
+        if (shardedFormat)
+        {
+            NBTTagCompound counts = compound.getCompoundTag("structureCounts");
+            for (String id : counts.getKeySet())
+                structureCounts.put(id, counts.getInteger(id));
+        }
+        else
+        {
+            readEntries(compound);
+            instanceMap.asMap().forEach((id, list) -> structureCounts.put(id, list.size()));
+        }
+
+        readCheckedChunks(compound, "checkedChunks", checkedChunks);
+        readCheckedChunks(compound, "checkedChunksFinal", checkedChunksFinal);
 
-        checkedChunks.clear();
-        NBTTagLists.intArraysFrom(compound, "checkedChunks").forEach(ints -> checkedChunks.add(new ChunkPos(ints[0], ints[1])));
-        checkedChunksFinal.clear();
-        NBTTagLists.intArraysFrom(compound, "checkedChunksFinal").forEach(ints -> checkedChunksFinal.add(new ChunkPos(ints[0], ints[1])));
+        pendingComplements.clear();
+        pendingComplementCount = 0;
+        NBTTagList pendingList = compound.getTagList("pendingComplements", Constants.NBT.TAG_COMPOUND);
+        for (int i = 0; i < pendingList.tagCount(); i++)
+        {
+            NBTTagCompound pendingCompound = pendingList.getCompoundTagAt(i);
+            int[] chunks = pendingCompound.getIntArray("chunks");
+
+            TLongSet pending = new TLongHashSet(chunks.length / 2);
+            for (int c = 0; c + 1 < chunks.length; c += 2)
+                pending.add(ChunkPos.asLong(chunks[c], chunks[c + 1]));
+
+            pendingComplements.put(new UUID(pendingCompound.getLong("UUIDMS"), pendingCompound.getLong("UUIDLS")), pending);
+            pendingComplementCount += pending.size();
+        }
+    }
+
+    protected static void readCheckedChunks(NBTTagCompound compound, String key, ChunkBitSet chunks)
+    {
+        if (compound.hasKey(key, Constants.NBT.TAG_INT_ARRAY))
+            chunks.readFromNBT(compound, key);
+        else
+        {
+            // Legacy: one {x, z} array per chunk
+            chunks.clear();
+            NBTTagLists.intArraysFrom(compound, key).forEach(ints -> chunks.add(ints[0], ints[1]));
+        }
     }
 
     @Override
-    public NBTTagCompound writeToNBT(NBTTagCompound compound)
+    public synchronized NBTTagCompound writeToNBT(NBTTagCompound compound)
     {
-        NBTCompoundObjects.writeListTo(compound, "entries", entryMap.values().stream().filter(e -> e instanceof StructureEntry).collect(Collectors.toList()));
-        NBTCompoundObjects.writeListTo(compound, "customEntries", entryMap.values().stream().filter(e -> e instanceof CustomEntry).collect(Collectors.toList()));
+        if (shardedFormat && shards != null)
+        {
+            // Shards first; if we crash in between, the main file still points to the old shards
+            writeDirtyRegions();
+
+            compound.setBoolean("sharded", true);
+
+            NBTTagCompound counts = new NBTTagCompound();
+            structureCounts.forEachEntry((id, count) ->
+            {
+                counts.setInteger(id, count);
+                return true;
+            });
+            compound.setTag("structureCounts", counts);
+        }
+        else
+            writeEntries(compound, entries.all());
 
-        NBTTagLists.writeIntArraysTo(compound, "checkedChunks", checkedChunks.stream().map(c -> new int[]{c.x, c.z}).collect(Collectors.toList()));
-        NBTTagLists.writeIntArraysTo(compound, "checkedChunksFinal", checkedChunksFinal.stream().map(c -> new int[]{c.x, c.z}).collect(Collectors.toList()));
+        checkedChunks.writeToNBT(compound, "checkedChunks");
+        checkedChunksFinal.writeToNBT(compound, "checkedChunksFinal");
+
+        NBTTagList pendingList = new NBTTagList();
+        pendingComplements.forEach((uuid, pending) ->
+        {
+            NBTTagCompound pendingCompound = new NBTTagCompound();
+            pendingCompound.setLong("UUIDMS", uuid.getMostSignificantBits());
+            pendingCompound.setLong("UUIDLS", uuid.getLeastSignificantBits());
+
+            int[] chunks = new int[pending.size() * 2];
+            int[] index = new int[1];
+            pending.forEach(chunk ->
+            {
+                chunks[index[0]++] = (int) chunk;
+                chunks[index[0]++] = (int) (chunk >>> 32);
+                return true;
+            });
+            pendingCompound.setIntArray("chunks", chunks);
+
+            pendingList.appendTag(pendingCompound);
+        });
+        compound.setTag("pendingComplements", pendingList);
 
         return compound;
     }
@@ -5,33 +5,33 @@
 
 package ivorius.reccomplex.world.gen.feature;
 
-import ivorius.reccomplex.RCRegistryHandler;
-import net.minecraft.util.math.ChunkPos;
 import net.minecraftforge.fml.common.FMLLog;
 import org.apache.logging.log4j.core.LogEvent;
 import org.apache.logging.log4j.core.Logger;
 import org.apache.logging.log4j.core.appender.AbstractAppender;
 import org.apache.logging.log4j.core.layout.SyslogLayout;
 
-import java.util.function.BiConsumer;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.function.Consumer;
 
+/**
+ * Listens for Forge's warnings about a mod loading new chunks during population. The consumer is called on the thread
+ * that loaded the chunk.
+ */
 public class WorldgenMonitor extends AbstractAppender
 {
-    private String modName;
-    private BiConsumer<ChunkPos, Integer> consumer;
-    private Pattern regex;
+    public static final String CASCADE_MARKER = "loaded a new chunk";
+
+    private String prefix;
+    private Consumer<String> consumer;
 
-    public WorldgenMonitor(String modName, BiConsumer<ChunkPos, Integer> consumer)
+    public WorldgenMonitor(String modName, Consumer<String> consumer)
     {
         super(modName + "_worldgen_monitor", null, SyslogLayout.newBuilder().build());
-        this.modName = modName;
+        this.prefix = modName + " " + CASCADE_MARKER;
         this.consumer = consumer;
-        regex = Pattern.compile(modName + " loaded a new chunk \\(([^,]*), ([^,]*)  Dimension: ([^)]*)\\)");
     }
 
-    public static void create(String modName, BiConsumer<ChunkPos, Integer> consumer)
+    public static void create(String modName, Consumer<String> consumer)
     {
         AbstractAppender appender = new WorldgenMonitor(modName, consumer);
         appender.start();
@@ -41,14 +41,13 @@ public class WorldgenMonitor extends AbstractAppender
     @Override
     public void append(LogEvent event)
     {
+        // Check the unformatted message first so unrelated log lines stay cheap
+        String format = event.getMessage().getFormat();
+        if (format == null || !format.contains(CASCADE_MARKER))
+            return;
+
         String message = event.getMessage().getFormattedMessage();
-        Matcher matcher = regex.matcher(message);
-        if (matcher.find())
-        {
-            int l = Integer.valueOf(matcher.group(1));
-            int r = Integer.valueOf(matcher.group(2));
-            int d = Integer.valueOf(matcher.group(3));
-            consumer.accept(new ChunkPos(l, r), d);
-        }
+        if (message.startsWith(prefix))
+            consumer.accept(message);
     }
 }
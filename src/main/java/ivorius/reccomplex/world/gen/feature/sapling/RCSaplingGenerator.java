@@ -62,14 +62,15 @@ public class RCSaplingGenerator
     {
         Environment baseEnv = Environment.inNature(world, new StructureBoundingBox(pos, pos));
 
-        List<Pair<Structure<?>, SaplingGeneration>> applicable = StructureRegistry.INSTANCE.getGenerationTypes(SaplingGeneration.class).stream()
-                .filter(pair1 -> pair1.getRight().generatesIn(baseEnv.withGeneration(pair1.getRight())))
+        // Only what can be placed here at all - the index checks the patterns far cheaper than the environment
+        List<SaplingIndex.Entry> applicable = SaplingIndex.get().placeable(world, pos).stream()
+                .filter(entry -> entry.generation.generatesIn(baseEnv.withGeneration(entry.generation)))
                 .collect(Collectors.toCollection(ArrayList::new));
 
         // Hackily consider big vanilla trees too
         int vanillaComplexity = complexity(world, pos, random, predictors);
 
-        ImmutableMultimap<Integer, Pair<Structure<?>, SaplingGeneration>> groups = IvFunctions.groupMap(applicable, pair -> pair.getRight().pattern.pattern.compile(true).size());
+        ImmutableMultimap<Integer, SaplingIndex.Entry> groups = IvFunctions.groupMap(applicable, entry -> entry.complexity);
         List<Integer> complexities = Lists.newArrayList(groups.keySet());
         if (vanillaComplexity > 0) complexities.add(vanillaComplexity);
         Collections.sort(complexities);
@@ -79,7 +80,7 @@ public class RCSaplingGenerator
         {
             Integer complexity = complexities.remove(complexities.size() - 1);
             Set<Pair<Structure<?>, SaplingGeneration>> placeable = groups.get(complexity).stream()
-                    .filter(p -> p.getRight().pattern.canPlace(world, pos, p.getLeft().size(), p.getLeft().isRotatable(), p.getLeft().isMirrorable()))
+                    .map(SaplingIndex.Entry::pair)
                     .collect(Collectors.toSet());
 
             double totalWeight = placeable.stream().mapToDouble(RCSaplingGenerator::getSpawnWeight).sum();
@@ -115,7 +116,7 @@ public class RCSaplingGenerator
     {
         int[] strucSize = structure.size();
 
-        Multimap<AxisAlignedTransform2D, BlockPos> placeables = saplingGenInfo.pattern.testAll(world, pos, strucSize, structure.isRotatable(), structure.isMirrorable());
+        Multimap<AxisAlignedTransform2D, BlockPos> placeables = SaplingIndex.get().placements(world, pos, structure, saplingGenInfo);
 
         // Use keys() here to get the correct distribution
         AxisAlignedTransform2D transform = Lists.newArrayList(placeables.keys()).get(random.nextInt(placeables.keys().size()));
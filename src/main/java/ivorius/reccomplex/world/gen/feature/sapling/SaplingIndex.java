@@ -0,0 +1,305 @@
+/*
+ *  Copyright (c) 2014, Lukas Tenbrink.
+ *  * http://ivorius.net
+ */
+
+package ivorius.reccomplex.world.gen.feature.sapling;
+
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.Multimap;
+import ivorius.ivtoolkit.math.AxisAlignedTransform2D;
+import ivorius.ivtoolkit.math.Transforms;
+import ivorius.ivtoolkit.maze.components.MazeRoom;
+import ivorius.reccomplex.files.SimpleLeveledRegistry;
+import ivorius.reccomplex.utils.expression.PositionedBlockExpression;
+import ivorius.reccomplex.world.gen.feature.structure.Structure;
+import ivorius.reccomplex.world.gen.feature.structure.StructureRegistry;
+import ivorius.reccomplex.world.gen.feature.structure.generic.BlockPattern;
+import ivorius.reccomplex.world.gen.feature.structure.generic.generation.SaplingGeneration;
+import net.minecraft.block.state.IBlockState;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.World;
+import org.apache.commons.lang3.tuple.Pair;
+
+import javax.annotation.Nonnull;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.Collectors;
+
+/**
+ * Indexes the patterns of all active sapling generations, so that a growing sapling only tests the patterns that
+ * can contain its block at all.
+ * <p>
+ * Patterns are transformed and compiled once, for every transform their structure allows. By the state of the
+ * block at the sapling's position, the index keeps which pattern cells could be that block; each of those marks one
+ * possible pattern origin. Cells whose ingredient only depends on the block state are tested first, through a
+ * per-state memo, before the ones that need to look at the world. Everything is dropped whenever the structure
+ * registry changes.
+ */
+public class SaplingIndex extends SimpleLeveledRegistry.Module<StructureRegistry>
+{
+    private volatile List<Entry> entries;
+    private volatile Map<SaplingGeneration, Entry> byGeneration;
+
+    private final ConcurrentMap<IBlockState, List<Anchor>> anchors = new ConcurrentHashMap<>();
+
+    @Nonnull
+    public static SaplingIndex get()
+    {
+        SaplingIndex index = StructureRegistry.INSTANCE.module(SaplingIndex.class);
+        if (index == null)
+        {
+            // Unregistered, so nothing would invalidate it - don't keep it around
+            index = new SaplingIndex();
+            index.setRegistry(StructureRegistry.INSTANCE);
+        }
+        return index;
+    }
+
+    protected static Entry build(Structure<?> structure, SaplingGeneration generation)
+    {
+        BlockPattern pattern = generation.pattern;
+        int[] size = structure.size();
+
+        Map<BlockPattern.Ingredient, Matcher> matchers = new IdentityHashMap<>();
+        List<Variant> variants = new ArrayList<>();
+        Entry entry = new Entry(structure, generation, pattern.pattern.compile(true).size(), variants);
+
+        Transforms.transformStream(structure.isRotatable(), structure.isMirrorable()).forEach(transform ->
+        {
+            Map<MazeRoom, String> compiled = pattern.copy(transform, size).pattern.compile(true);
+
+            int cells = compiled.size();
+            int[] x = new int[cells], y = new int[cells], z = new int[cells];
+            Matcher[] cellMatchers = new Matcher[cells];
+
+            int i = 0;
+            for (Map.Entry<MazeRoom, String> cell : compiled.entrySet())
+            {
+                BlockPattern.Ingredient ingredient = pattern.findIngredient(cell.getValue()).orElse(null);
+                if (ingredient == null)
+                    return; // Can never match
+
+                x[i] = cell.getKey().getCoordinate(0);
+                y[i] = cell.getKey().getCoordinate(1);
+                z[i] = cell.getKey().getCoordinate(2);
+                cellMatchers[i] = matchers.computeIfAbsent(ingredient, ing -> new Matcher(ing.matcher));
+                i++;
+            }
+
+            // Memoized cells first, the rest in pattern order
+            Integer[] order = new Integer[cells];
+            for (int c = 0; c < cells; c++)
+                order[c] = c;
+            Arrays.sort(order, Comparator.comparing(c -> cellMatchers[c].positional));
+
+            variants.add(new Variant(entry, transform, x, y, z, cellMatchers, Arrays.stream(order).mapToInt(Integer::intValue).toArray()));
+        });
+
+        return entry;
+    }
+
+    @Nonnull
+    protected List<Entry> entries()
+    {
+        List<Entry> entries = this.entries;
+        if (entries == null)
+        {
+            // If two threads race, both results are equivalent
+            entries = registry.getGenerationTypes(SaplingGeneration.class).stream()
+                    .map(pair -> build(pair.getLeft(), pair.getRight()))
+                    .collect(Collectors.toList());
+
+            Map<SaplingGeneration, Entry> byGeneration = new IdentityHashMap<>();
+            for (Entry entry : entries)
+                byGeneration.put(entry.generation, entry);
+
+            this.byGeneration = byGeneration;
+            this.entries = entries;
+        }
+        return entries;
+    }
+
+    @Nonnull
+    protected List<Anchor> anchors(PositionedBlockExpression.Argument.Cursor cursor)
+    {
+        return anchors.computeIfAbsent(cursor.state(), state ->
+        {
+            List<Anchor> anchors = new ArrayList<>();
+            for (Entry entry : entries())
+            {
+                for (Variant variant : entry.variants)
+                {
+                    for (int cell = 0; cell < variant.matchers.length; cell++)
+                    {
+                        // Positional cells might match anywhere, so try them every time
+                        Matcher matcher = variant.matchers[cell];
+                        if (matcher.positional || matcher.test(cursor))
+                            anchors.add(new Anchor(variant, cell));
+                    }
+                }
+            }
+            return anchors;
+        });
+    }
+
+    /**
+     * @return All sapling generations whose pattern matches around pos in any of the structure's transforms.
+     */
+    @Nonnull
+    public Collection<Entry> placeable(World world, BlockPos pos)
+    {
+        PositionedBlockExpression.Argument.Cursor cursor = new PositionedBlockExpression.Argument.Cursor(world);
+        cursor.move(pos);
+
+        Set<Entry> placeable = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Anchor anchor : anchors(cursor))
+        {
+            if (!placeable.contains(anchor.variant.entry) && anchor.matches(cursor, pos))
+                placeable.add(anchor.variant.entry);
+        }
+        return placeable;
+    }
+
+    /**
+     * Like {@link BlockPattern#testAll(World, BlockPos, int[], boolean, boolean)}, but through the index.
+     */
+    @Nonnull
+    public Multimap<AxisAlignedTransform2D, BlockPos> placements(World world, BlockPos pos, Structure<?> structure, SaplingGeneration generation)
+    {
+        entries();
+        Map<SaplingGeneration, Entry> byGeneration = this.byGeneration;
+        Entry entry = byGeneration != null ? byGeneration.get(generation) : null;
+
+        if (entry == null || entry.structure != structure)
+            return generation.pattern.testAll(world, pos, structure.size(), structure.isRotatable(), structure.isMirrorable());
+
+        PositionedBlockExpression.Argument.Cursor cursor = new PositionedBlockExpression.Argument.Cursor(world);
+        cursor.move(pos);
+
+        Multimap<AxisAlignedTransform2D, BlockPos> placements = ArrayListMultimap.create();
+        for (Anchor anchor : anchors(cursor))
+        {
+            if (anchor.variant.entry == entry && anchor.matches(cursor, pos))
+                placements.put(anchor.variant.transform, anchor.origin(pos));
+        }
+        return placements;
+    }
+
+    @Override
+    public void invalidate()
+    {
+        entries = null;
+        byGeneration = null;
+        anchors.clear();
+    }
+
+    public static class Entry
+    {
+        @Nonnull
+        public final Structure<?> structure;
+        @Nonnull
+        public final SaplingGeneration generation;
+        public final int complexity;
+
+        protected final List<Variant> variants;
+
+        public Entry(@Nonnull Structure<?> structure, @Nonnull SaplingGeneration generation, int complexity, List<Variant> variants)
+        {
+            this.structure = structure;
+            this.generation = generation;
+            this.complexity = complexity;
+            this.variants = variants;
+        }
+
+        public Pair<Structure<?>, SaplingGeneration> pair()
+        {
+            return Pair.of(structure, generation);
+        }
+    }
+
+    protected static class Variant
+    {
+        public final Entry entry;
+        public final AxisAlignedTransform2D transform;
+
+        public final int[] x, y, z;
+        public final Matcher[] matchers;
+        // The order to test cells in, cheapest first
+        public final int[] order;
+
+        public Variant(Entry entry, AxisAlignedTransform2D transform, int[] x, int[] y, int[] z, Matcher[] matchers, int[] order)
+        {
+            this.entry = entry;
+            this.transform = transform;
+            this.x = x;
+            this.y = y;
+            this.z = z;
+            this.matchers = matchers;
+            this.order = order;
+        }
+    }
+
+    /**
+     * A pattern variant with the given cell at the sapling.
+     */
+    protected static class Anchor
+    {
+        public final Variant variant;
+        public final int cell;
+
+        public Anchor(Variant variant, int cell)
+        {
+            this.variant = variant;
+            this.cell = cell;
+        }
+
+        public BlockPos origin(BlockPos pos)
+        {
+            return pos.add(-variant.x[cell], -variant.y[cell], -variant.z[cell]);
+        }
+
+        public boolean matches(PositionedBlockExpression.Argument.Cursor cursor, BlockPos pos)
+        {
+            int originX = pos.getX() - variant.x[cell], originY = pos.getY() - variant.y[cell], originZ = pos.getZ() - variant.z[cell];
+
+            for (int c : variant.order)
+            {
+                if (c == cell && !variant.matchers[c].positional)
+                    continue; // Known by the index
+
+                cursor.move(originX + variant.x[c], originY + variant.y[c], originZ + variant.z[c]);
+                if (!variant.matchers[c].test(cursor))
+                    return false;
+            }
+
+            return true;
+        }
+    }
+
+    protected static class Matcher
+    {
+        public final PositionedBlockExpression expression;
+        public final boolean positional;
+
+        private final ConcurrentMap<IBlockState, Boolean> byState = new ConcurrentHashMap<>();
+
+        public Matcher(PositionedBlockExpression expression)
+        {
+            this.expression = expression;
+            this.positional = expression.dependsOnPosition();
+        }
+
+        public boolean test(PositionedBlockExpression.Argument.Cursor cursor)
+        {
+            if (positional)
+                return expression.test(cursor);
+
+            Boolean result = byState.get(cursor.state());
+            if (result == null)
+                byState.put(cursor.state(), result = expression.test(cursor));
+            return result;
+        }
+    }
+}
@@ -5,22 +5,23 @@
 
 package ivorius.reccomplex.world.gen.feature.selector;
 
-import net.minecraft.util.ResourceLocation;
+import gnu.trove.map.TLongObjectMap;
+import gnu.trove.map.hash.TLongObjectHashMap;
+import ivorius.reccomplex.dimensions.DimensionDictionary;
 import net.minecraft.world.WorldProvider;
 import net.minecraft.world.biome.Biome;
-import org.apache.commons.lang3.tuple.ImmutablePair;
-import org.apache.commons.lang3.tuple.Pair;
 
-import java.util.HashMap;
-import java.util.Map;
 import java.util.function.BiFunction;
 
 /**
  * Created by lukas on 23.09.16.
+ * <p>
+ * Safe for concurrent use. Lookups don't lock; the map is copied on the (rare) occasions a selector is added.
  */
 public class CachedStructureSelectors<S extends StructureSelector>
 {
-    private Map<Pair<Integer, ResourceLocation>, S> structureSelectors = new HashMap<>();
+    private volatile TLongObjectMap<Cached<S>> structureSelectors = new TLongObjectHashMap<>();
+    private int clears;
 
     private BiFunction<Biome, WorldProvider, S> selectorSupplier;
 
@@ -29,22 +30,59 @@ public class CachedStructureSelectors<S extends StructureSelector>
         this.selectorSupplier = selectorSupplier;
     }
 
+    protected static long key(int dimension, int biome)
+    {
+        return ((long) dimension << 32) | (biome & 0xFFFFFFFFL);
+    }
+
     public S get(Biome biome, WorldProvider provider)
     {
-        Pair<Integer, ResourceLocation> pair = new ImmutablePair<>(provider.getDimension(), Biome.REGISTRY.getNameForObject(biome));
-        S structureSelector = structureSelectors.get(pair);
+        long key = key(provider.getDimension(), Biome.getIdForBiome(biome));
+        int version = DimensionDictionary.version();
+        Cached<S> cached = structureSelectors.get(key);
 
-        if (structureSelector == null || !structureSelector.isValid(biome, provider))
+        if (cached == null || cached.version != version
+                // Handlers decide on their types themselves, so we can't know when they change
+                || (provider instanceof DimensionDictionary.Handler && !cached.selector.isValid(biome, provider)))
         {
-            structureSelector = selectorSupplier.apply(biome, provider);
-            structureSelectors.put(pair, structureSelector);
+            int clears;
+            synchronized (this)
+            {
+                clears = this.clears;
+            }
+
+            cached = new Cached<>(selectorSupplier.apply(biome, provider), version);
+
+            synchronized (this)
+            {
+                // Don't put back what was built from a registry state that has been cleared since
+                if (clears == this.clears)
+                {
+                    TLongObjectMap<Cached<S>> structureSelectors = new TLongObjectHashMap<>(this.structureSelectors);
+                    structureSelectors.put(key, cached);
+                    this.structureSelectors = structureSelectors;
+                }
+            }
         }
 
-        return structureSelector;
+        return cached.selector;
     }
 
-    public void clear()
+    public synchronized void clear()
     {
-        structureSelectors.clear();
+        clears++;
+        structureSelectors = new TLongObjectHashMap<>();
+    }
+
+    private static class Cached<S>
+    {
+        public final S selector;
+        public final int version;
+
+        public Cached(S selector, int version)
+        {
+            this.selector = selector;
+            this.version = version;
+        }
     }
 }
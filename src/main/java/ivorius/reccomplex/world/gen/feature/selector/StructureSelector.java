@@ -7,11 +7,14 @@ package ivorius.reccomplex.world.gen.feature.selector;
 
 import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.Multimap;
+import gnu.trove.list.TDoubleList;
+import gnu.trove.list.array.TDoubleArrayList;
 import gnu.trove.map.TObjectDoubleMap;
 import gnu.trove.map.hash.TObjectDoubleHashMap;
 import ivorius.ivtoolkit.random.WeightedSelector;
 import ivorius.reccomplex.RCConfig;
 import ivorius.reccomplex.dimensions.DimensionDictionary;
+import ivorius.reccomplex.utils.AliasTable;
 import ivorius.reccomplex.world.gen.feature.structure.Structure;
 import ivorius.reccomplex.world.gen.feature.structure.generic.WeightedBiomeMatcher;
 import ivorius.reccomplex.world.gen.feature.structure.generic.WeightedDimensionMatcher;
@@ -34,6 +37,7 @@ public class StructureSelector<T extends GenerationType & EnvironmentalSelection
 
     protected Multimap<C, WeightedSelector.SimpleItem<Pair<Structure<?>, T>>> weightedStructureInfos = ArrayListMultimap.create();
     protected TObjectDoubleMap<C> totalWeights = new TObjectDoubleHashMap<>();
+    protected Map<C, AliasTable<Pair<Structure<?>, T>>> aliasTables = new HashMap<>();
 
     public StructureSelector(Map<String, Structure<?>> structures, WorldProvider provider, Biome biome, Class<T> typeClass)
     {
@@ -53,6 +57,21 @@ public class StructureSelector<T extends GenerationType & EnvironmentalSelection
                 }
             }
         }
+
+        for (C category : weightedStructureInfos.keySet())
+        {
+            Collection<WeightedSelector.SimpleItem<Pair<Structure<?>, T>>> items = weightedStructureInfos.get(category);
+
+            List<Pair<Structure<?>, T>> values = new ArrayList<>(items.size());
+            TDoubleList weights = new TDoubleArrayList(items.size());
+            for (WeightedSelector.SimpleItem<Pair<Structure<?>, T>> item : items)
+            {
+                values.add(item.getItem());
+                weights.add(item.getWeight());
+            }
+
+            aliasTables.put(category, new AliasTable<>(values, weights));
+        }
     }
 
     public static double generationWeight(WorldProvider provider, Biome biome, PresettedList<WeightedBiomeMatcher> biomeWeights, PresettedList<WeightedDimensionMatcher> dimensionWeights)
@@ -97,7 +116,14 @@ public class StructureSelector<T extends GenerationType & EnvironmentalSelection
     @Nullable
     public Pair<Structure<?>, T> selectOne(Random random, @Nonnull C c, double totalWeight)
     {
-        return totalWeight > 0 ? WeightedSelector.select(random, weightedStructureInfos.get(c)) : null;
+        return totalWeight > 0 ? select(random, c) : null;
+    }
+
+    @Nullable
+    protected Pair<Structure<?>, T> select(Random random, @Nonnull C c)
+    {
+        AliasTable<Pair<Structure<?>, T>> table = aliasTables.get(c);
+        return table != null ? table.select(random) : null;
     }
 
     public boolean isValid(Biome biome, WorldProvider provider)
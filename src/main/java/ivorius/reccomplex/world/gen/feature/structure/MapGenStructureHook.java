@@ -11,6 +11,7 @@ import com.google.common.collect.Sets;
 import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
 import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
 import it.unimi.dsi.fastutil.longs.LongSet;
+import ivorius.reccomplex.utils.accessor.RCAccessorMapGenStructure;
 import ivorius.reccomplex.world.gen.feature.decoration.RCBiomeDecorator;
 import ivorius.reccomplex.world.gen.feature.structure.generic.generation.VanillaDecorationGeneration;
 import net.minecraft.util.math.BlockPos;
@@ -20,12 +21,9 @@ import net.minecraft.world.WorldServer;
 import net.minecraft.world.chunk.ChunkPrimer;
 import net.minecraft.world.gen.structure.MapGenStructure;
 import net.minecraft.world.gen.structure.StructureStart;
-import net.minecraftforge.fml.relauncher.ReflectionHelper;
 import org.apache.commons.lang3.tuple.Pair;
 
 import javax.annotation.Nullable;
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
 import java.util.Optional;
 import java.util.Random;
 
@@ -47,35 +45,17 @@ public class MapGenStructureHook extends MapGenStructure
 
     public static Long2ObjectMap<StructureStart> getStructureMap(MapGenStructure gen)
     {
-        return ReflectionHelper.getPrivateValue(MapGenStructure.class, gen, "structureMap", "field_75053_d");
+        return RCAccessorMapGenStructure.getStructureMap(gen);
     }
 
     public static void initializeStructureData(MapGenStructure gen, World world)
     {
-        Method method = ReflectionHelper.findMethod(MapGenStructure.class, "initializeStructureData", "func_143027_a", World.class);
-
-        try
-        {
-            method.invoke(gen, world);
-        }
-        catch (IllegalAccessException | InvocationTargetException e)
-        {
-            e.printStackTrace();
-        }
+        RCAccessorMapGenStructure.initializeStructureData(gen, world);
     }
 
     public static void setStructureStart(MapGenStructure gen, int x, int z, StructureStart start)
     {
-        Method method = ReflectionHelper.findMethod(MapGenStructure.class, "setStructureStart", "func_143026_a", Integer.TYPE, Integer.TYPE, StructureStart.class);
-
-        try
-        {
-            method.invoke(gen, x, z, start);
-        }
-        catch (IllegalAccessException | InvocationTargetException e)
-        {
-            e.printStackTrace();
-        }
+        RCAccessorMapGenStructure.setStructureStart(gen, x, z, start);
     }
 
     public static StructureStart getStructureStart(MapGenStructure gen, ChunkPos chunkPos)
@@ -118,16 +98,7 @@ public class MapGenStructureHook extends MapGenStructure
     @Override
     public boolean canSpawnStructureAtCoords(int chunkX, int chunkZ)
     {
-        Method method = ReflectionHelper.findMethod(MapGenStructure.class, "canSpawnStructureAtCoords", "func_75047_a", Integer.TYPE, Integer.TYPE);
-        try
-        {
-            return (boolean) method.invoke(base, chunkX, chunkZ);
-        }
-        catch (IllegalAccessException | InvocationTargetException e)
-        {
-            e.printStackTrace();
-        }
-        return false;
+        return RCAccessorMapGenStructure.canSpawnStructureAtCoords(base, chunkX, chunkZ);
     }
 
     @Override
@@ -6,7 +6,9 @@
 package ivorius.reccomplex.world.gen.feature.structure.context;
 
 import ivorius.ivtoolkit.math.AxisAlignedTransform2D;
+import ivorius.reccomplex.utils.expression.PositionedBlockExpression;
 import ivorius.reccomplex.world.gen.feature.structure.Environment;
+import net.minecraft.world.World;
 import net.minecraft.world.gen.structure.StructureBoundingBox;
 
 import javax.annotation.Nonnull;
@@ -19,9 +21,24 @@ public class StructureLiveContext extends StructureContext
     @Nonnull
     public Environment environment;
 
+    protected PositionedBlockExpression.Argument.Cursor cursor;
+    protected World cursorWorld;
+
     public StructureLiveContext(@Nonnull AxisAlignedTransform2D transform, @Nonnull StructureBoundingBox boundingBox, boolean generateAsSource, @Nonnull Environment environment)
     {
         super(transform, boundingBox, generateAsSource);
         this.environment = environment;
     }
+
+    /**
+     * A cursor over the environment's world, for evaluating single positions without allocating.
+     * Shared by everything using this context, so move it right before each test.
+     */
+    @Nonnull
+    public PositionedBlockExpression.Argument.Cursor cursor()
+    {
+        if (cursor == null || cursorWorld != environment.world)
+            cursor = new PositionedBlockExpression.Argument.Cursor(cursorWorld = environment.world);
+        return cursor;
+    }
 }
@@ -12,6 +12,7 @@ import ivorius.reccomplex.RecurrentComplex;
 import ivorius.reccomplex.utils.RCAxisAlignedTransform;
 import ivorius.reccomplex.utils.RCBlockAreas;
 import ivorius.reccomplex.utils.RCStructureBoundingBoxes;
+import ivorius.reccomplex.world.gen.feature.BlockSink;
 import ivorius.reccomplex.world.gen.feature.HeightMapFreezer;
 import ivorius.reccomplex.world.gen.feature.structure.Environment;
 import net.minecraft.block.state.IBlockState;
@@ -43,6 +44,7 @@ public class StructureSpawnContext extends StructureLiveContext
     public final GenerateMaturity generateMaturity;
 
     private HeightMapFreezer heightMapFreezer;
+    private BlockSink blockSink;
 
     public StructureSpawnContext(@Nonnull Environment environment, @Nonnull Random random, @Nonnull AxisAlignedTransform2D transform, @Nonnull StructureBoundingBox boundingBox, @Nullable StructureBoundingBox generationBB, Predicate<Vec3i> generationPredicate, int generationLayer, boolean generateAsSource, GenerateMaturity generateMaturity)
     {
@@ -90,14 +92,14 @@ public class StructureSpawnContext extends StructureLiveContext
     {
         if (!RecurrentComplex.specialRegistry.isSafe(state.getBlock()))
         {
-            environment.world.setBlockState(pos.toImmutable(), Blocks.AIR.getDefaultState(), 2);
+            blockSink().setBlockState(pos, Blocks.AIR.getDefaultState(), 2);
             return false;
         }
 
         if (includes(pos))
         {
             // world.setBlock returns false on 'no change'
-            environment.world.setBlockState(pos.toImmutable(), state, flag);
+            blockSink().setBlockState(pos, state, flag);
             if (heightMapFreezer != null) heightMapFreezer.markBlock(pos, state);
             return true;
         }
@@ -105,15 +107,42 @@ public class StructureSpawnContext extends StructureLiveContext
         return false;
     }
 
+    @Nonnull
+    public BlockSink blockSink()
+    {
+        return blockSink != null ? blockSink : (blockSink = BlockSink.of(environment.world));
+    }
+
+    /**
+     * Applies all blocks that are still pending in the block sink.
+     *
+     * @return The number of blocks placed since the last flush.
+     */
+    public long flushBlocks()
+    {
+        if (blockSink == null)
+            return 0;
+
+        blockSink.flush();
+        long placed = blockSink.blocksPlaced();
+        blockSink = null;
+        return placed;
+    }
+
     public void freezeHeightMap(StructureBoundingBox boundingBox)
     {
-        heightMapFreezer = HeightMapFreezer.freeze(boundingBox, environment.world);
+        // Batched sinks relight everything on flush anyway
+        if (!blockSink().defersLighting())
+            heightMapFreezer = HeightMapFreezer.freeze(boundingBox, environment.world);
     }
 
     public void meltHeightMap()
     {
-        heightMapFreezer.melt();
-        heightMapFreezer = null;
+        if (heightMapFreezer != null)
+        {
+            heightMapFreezer.melt();
+            heightMapFreezer = null;
+        }
     }
 
     public enum GenerateMaturity
@@ -89,9 +89,16 @@ public class BlockPattern implements NBTCompoundObject
 
     public boolean test(World world, BlockPos pos)
     {
-        return pattern.compile(true).entrySet().stream().allMatch(
-                entry -> findIngredient(entry.getValue()).filter(i -> i.matcher.evaluate(() -> PositionedBlockExpression.Argument.at(world, pos.add(BlockPositions.fromIntArray(entry.getKey().getCoordinates()))))).isPresent()
-        );
+        return test(new PositionedBlockExpression.Argument.Cursor(world), pos);
+    }
+
+    protected boolean test(PositionedBlockExpression.Argument.Cursor cursor, BlockPos pos)
+    {
+        return pattern.compile(true).entrySet().stream().allMatch(entry ->
+        {
+            int[] coordinates = entry.getKey().getCoordinates();
+            return findIngredient(entry.getValue()).filter(i -> i.matcher.test(cursor.move(pos.getX() + coordinates[0], pos.getY() + coordinates[1], pos.getZ() + coordinates[2]))).isPresent();
+        });
     }
 
     public boolean canPlace(World world, BlockPos pos, int[] size, boolean rotate, boolean mirror)
@@ -109,9 +116,10 @@ public class BlockPattern implements NBTCompoundObject
     @Nonnull
     public Stream<BlockPos> testAll(World world, BlockPos pos)
     {
+        PositionedBlockExpression.Argument.Cursor cursor = new PositionedBlockExpression.Argument.Cursor(world);
         return pattern.compile(true).keySet().stream()
                 .map(room -> pos.subtract(BlockPositions.fromIntArray(room.getCoordinates())))
-                .filter(p -> test(world, p));
+                .filter(p -> test(cursor, p));
     }
 
     @Override
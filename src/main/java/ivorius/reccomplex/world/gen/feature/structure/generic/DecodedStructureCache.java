@@ -0,0 +1,172 @@
+/*
+ *  Copyright (c) 2014, Lukas Tenbrink.
+ *  * http://ivorius.net
+ */
+
+package ivorius.reccomplex.world.gen.feature.structure.generic;
+
+import ivorius.ivtoolkit.blocks.IvBlockCollection;
+import ivorius.ivtoolkit.tools.IvWorldData;
+import ivorius.reccomplex.RCConfig;
+import ivorius.reccomplex.RecurrentComplex;
+import ivorius.reccomplex.files.SimpleLeveledRegistry;
+import ivorius.reccomplex.temp.RCMover;
+import ivorius.reccomplex.world.gen.feature.structure.StructureRegistry;
+import net.minecraft.nbt.NBTTagCompound;
+import net.minecraft.util.math.BlockPos;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.*;
+
+/**
+ * Keeps decoded world data of recently used structures around, so that the generation hot paths
+ * (prepare, generate per chunk, load) don't decode the same NBT over and over.
+ * <p>
+ * Entries are keyed by structure ID and world data hash - or, for structures without an ID, by the very world data
+ * compound - evicted least-recently-used and dropped whenever the structure registry changes. Decoded structures are shared - callers must treat them as read-only.
+ */
+public class DecodedStructureCache extends SimpleLeveledRegistry.Module<StructureRegistry>
+{
+    public static final int DEFAULT_CAPACITY = 64;
+
+    private final Map<Key, DecodedStructure> cache = new LinkedHashMap<Key, DecodedStructure>(16, 0.75f, true)
+    {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, DecodedStructure> eldest)
+        {
+            return size() > RCConfig.decodedStructureCacheSize;
+        }
+    };
+
+    @Nonnull
+    public static DecodedStructure decode(@Nonnull NBTTagCompound worldDataCompound)
+    {
+        return new DecodedStructure(new IvWorldData(worldDataCompound, RecurrentComplex.specialRegistry.itemHidingMode()));
+    }
+
+    @Nonnull
+    public DecodedStructure get(@Nullable String structureID, @Nonnull NBTTagCompound worldDataCompound, int worldDataHash)
+    {
+        if (RCConfig.decodedStructureCacheSize <= 0)
+            return decode(worldDataCompound);
+
+        // Without an ID, a colliding hash could be any other structure
+        Key key = new Key(structureID, structureID == null ? worldDataCompound : null, worldDataHash);
+
+        DecodedStructure decoded;
+        synchronized (cache)
+        {
+            decoded = cache.get(key);
+        }
+
+        if (decoded == null)
+        {
+            // Decode outside the lock; if two threads race, both results are equivalent
+            decoded = decode(worldDataCompound);
+
+            synchronized (cache)
+            {
+                cache.put(key, decoded);
+            }
+        }
+
+        return decoded;
+    }
+
+    public int size()
+    {
+        synchronized (cache)
+        {
+            return cache.size();
+        }
+    }
+
+    @Override
+    public void invalidate()
+    {
+        synchronized (cache)
+        {
+            cache.clear();
+        }
+    }
+
+    public static class DecodedStructure
+    {
+        @Nonnull
+        public final IvWorldData worldData;
+        @Nonnull
+        public final Map<BlockPos, NBTTagCompound> tileEntities;
+        @Nonnull
+        public final List<NBTTagCompound> entities;
+
+        private volatile boolean stampBuilt;
+        @Nullable
+        private StructureStamp stamp;
+
+        public DecodedStructure(@Nonnull IvWorldData worldData)
+        {
+            this.worldData = worldData;
+
+            Map<BlockPos, NBTTagCompound> tileEntities = new HashMap<>();
+            for (NBTTagCompound tileEntityCompound : worldData.tileEntities)
+                tileEntities.put(RCMover.getTileEntityPos(tileEntityCompound), tileEntityCompound);
+            this.tileEntities = Collections.unmodifiableMap(tileEntities);
+
+            this.entities = Collections.unmodifiableList(new ArrayList<>(worldData.entities));
+        }
+
+        @Nonnull
+        public IvBlockCollection blockCollection()
+        {
+            return worldData.blockCollection;
+        }
+
+        /**
+         * @return The structure's stamp, or null if it's too complex to have one.
+         */
+        @Nullable
+        public StructureStamp stamp()
+        {
+            if (!stampBuilt)
+            {
+                stamp = StructureStamp.of(this);
+                stampBuilt = true;
+            }
+            return stamp;
+        }
+    }
+
+    private static class Key
+    {
+        @Nullable
+        private final String structureID;
+        // Compared by identity
+        @Nullable
+        private final NBTTagCompound worldDataCompound;
+        private final int worldDataHash;
+
+        public Key(@Nullable String structureID, @Nullable NBTTagCompound worldDataCompound, int worldDataHash)
+        {
+            this.structureID = structureID;
+            this.worldDataCompound = worldDataCompound;
+            this.worldDataHash = worldDataHash;
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Key key = (Key) o;
+            return worldDataHash == key.worldDataHash && worldDataCompound == key.worldDataCompound
+                    && Objects.equals(structureID, key.structureID);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return 31 * Objects.hashCode(structureID) + worldDataHash;
+        }
+    }
+}
@@ -25,6 +25,9 @@ import ivorius.reccomplex.utils.RCStructureBoundingBoxes;
 import ivorius.reccomplex.utils.accessor.RCAccessorEntity;
 import ivorius.reccomplex.utils.accessor.RCAccessorWorldServer;
 import ivorius.reccomplex.utils.expression.DependencyExpression;
+import ivorius.reccomplex.world.gen.feature.CachedInstanceData;
+import ivorius.reccomplex.world.gen.feature.InstanceDataCache;
+import ivorius.reccomplex.world.gen.feature.RCProfiler;
 import ivorius.reccomplex.world.gen.feature.structure.Structure;
 import ivorius.reccomplex.world.gen.feature.structure.StructureRegistry;
 import ivorius.reccomplex.world.gen.feature.structure.Structures;
@@ -89,6 +92,9 @@ public class GenericStructure implements Structure<GenericStructure.InstanceData
 
     public JsonObject customData;
 
+    // The compound and its hash, swapped as one so other threads never see a mismatched pair
+    private volatile Pair<NBTTagCompound, Integer> worldDataHash;
+
     public static GenericStructure createDefaultStructure()
     {
         GenericStructure genericStructureInfo = new GenericStructure();
@@ -134,13 +140,33 @@ public class GenericStructure implements Structure<GenericStructure.InstanceData
     public static void generateEntityContents(@Nonnull StructureSpawnContext context, Entity entity)
     {
         if (!context.generateAsSource && ItemHandlers.hasModifiable(entity, null))
-            LootGenerationHandler.generateAllTags(context, ItemHandlers.getModifiable(entity, null));
+        {
+            RCProfiler.start(RCProfiler.Phase.LOOT, null);
+            try
+            {
+                LootGenerationHandler.generateAllTags(context, ItemHandlers.getModifiable(entity, null));
+            }
+            finally
+            {
+                RCProfiler.stop();
+            }
+        }
     }
 
     public static void generateTileEntityContents(@Nonnull StructureSpawnContext context, TileEntity tileEntity)
     {
         if (!context.generateAsSource && ItemHandlers.hasModifiable(tileEntity, null))
-            LootGenerationHandler.generateAllTags(context, ItemHandlers.getModifiable(tileEntity, null));
+        {
+            RCProfiler.start(RCProfiler.Phase.LOOT, null);
+            try
+            {
+                LootGenerationHandler.generateAllTags(context, ItemHandlers.getModifiable(tileEntity, null));
+            }
+            finally
+            {
+                RCProfiler.stop();
+            }
+        }
     }
 
     @Nonnull
@@ -172,9 +198,19 @@ public class GenericStructure implements Structure<GenericStructure.InstanceData
     public void generate(@Nonnull final StructureSpawnContext context, @Nonnull InstanceData instanceData, @Nonnull TransformerMulti foreignTransformer)
     {
         WorldServer world = context.environment.world;
-        IvWorldData worldData = constructWorldData();
+        DecodedStructureCache.DecodedStructure decoded = decodedWorldData();
+        IvWorldData worldData = decoded.worldData;
         boolean asSource = context.generateAsSource;
 
+        StructureStamp stamp = stamp(decoded, foreignTransformer, asSource);
+        if (stamp != null) {
+            // Nothing can transform it, so the generic pipeline would place exactly this
+            instanceData.variableDomain.fill(context.environment.variables);
+            RCAccessorWorldServer.ensureBlockEventArray(world);
+            stamp.generate(context);
+            return;
+        }
+
         RunTransformer transformer = getRunTransformer(instanceData, foreignTransformer, asSource);
 
         instanceData.variableDomain.fill(context.environment.variables);
@@ -187,11 +223,7 @@ public class GenericStructure implements Structure<GenericStructure.InstanceData
         int[] areaSize = new int[]{blockCollection.width, blockCollection.height, blockCollection.length};
         BlockPos origin = StructureBoundingBoxes.min(context.boundingBox);
 
-        Map<BlockPos, NBTTagCompound> tileEntityCompounds = new HashMap<>();
-        for (NBTTagCompound tileEntityCompound : worldData.tileEntities) {
-            BlockPos src = RCMover.getTileEntityPos(tileEntityCompound);
-            tileEntityCompounds.put(src, tileEntityCompound);
-        }
+        Map<BlockPos, NBTTagCompound> tileEntityCompounds = decoded.tileEntities;
 
         if (transformer != null)
             transformer.transformer.transform(transformer.instanceData, Transformer.Phase.BEFORE, context, worldData, transformer);
@@ -223,7 +255,7 @@ public class GenericStructure implements Structure<GenericStructure.InstanceData
         if (transformer != null)
             transformer.transformer.transform(transformer.instanceData, Transformer.Phase.AFTER, context, worldData, transformer);
 
-        for (NBTTagCompound entityCompound : worldData.entities) {
+        for (NBTTagCompound entityCompound : decoded.entities) {
             double[] transformedEntityPos = context.transform.applyOn(getEntityPos(entityCompound), areaSize);
             if (context.includes(new Vec3i(transformedEntityPos[0] + origin.getX(), transformedEntityPos[1] + origin.getY(), transformedEntityPos[2] + origin.getZ()))) {
                 Entity entity = EntityList.createEntityFromNBT(entityCompound, world);
@@ -243,6 +275,18 @@ public class GenericStructure implements Structure<GenericStructure.InstanceData
         }
     }
 
+    /**
+     * @return The stamp to place instead of running the generic pipeline, if nothing would transform the structure.
+     */
+    @Nullable
+    protected StructureStamp stamp(@Nonnull DecodedStructureCache.DecodedStructure decoded, @Nonnull TransformerMulti foreignTransformer, boolean asSource)
+    {
+        if (asSource || !transformer.getTransformers().isEmpty() || !foreignTransformer.getTransformers().isEmpty())
+            return null;
+
+        return decoded.stamp();
+    }
+
     @Nullable
     public RunTransformer getRunTransformer(@Nonnull InstanceData instanceData, @Nonnull TransformerMulti foreignTransformer, boolean asSource)
     {
@@ -275,11 +319,20 @@ public class GenericStructure implements Structure<GenericStructure.InstanceData
         InstanceData instanceData = new InstanceData();
 
         if (!context.generateAsSource) {
-            IvWorldData worldData = constructWorldData();
+            DecodedStructureCache.DecodedStructure decoded = decodedWorldData();
+            IvWorldData worldData = decoded.worldData;
 
             context.environment.variables.fill(instanceData.variableDomain); // Fill with already set vars
             variableDomain.fill(instanceData.variableDomain, context.environment, context.random); // Determine the rest
 
+            if (stamp(decoded, foreignTransformer, false) != null) {
+                // Nothing to fuse, prepare or configure
+                instanceData.transformerGenerationBehavior = new TransformerGenerationBehavior.InstanceData();
+                instanceData.transformerData = transformer.prepareInstanceData(context, worldData);
+                instanceData.foreignTransformerData = foreignTransformer.prepareInstanceData(context, worldData);
+                return instanceData;
+            }
+
             TransformerGenerationBehavior transformerGenerationBehavior = new TransformerGenerationBehavior();
 
             TransformerMulti fused = TransformerMulti.fuse(Arrays.asList(
@@ -320,15 +373,40 @@ public class GenericStructure implements Structure<GenericStructure.InstanceData
     public InstanceData loadInstanceData(@Nonnull StructureLoadContext context, @Nonnull final NBTBase nbt, @Nonnull TransformerMulti transformer)
     {
         InstanceData instanceData = new InstanceData();
-        instanceData.readFromNBT(context, nbt, this.transformer, transformer, constructWorldData());
+        instanceData.readFromNBT(context, nbt, this.transformer, transformer, decodedWorldData().worldData);
         return instanceData;
     }
 
+    /**
+     * @return A freshly decoded copy of the world data, free to be modified.
+     */
     public IvWorldData constructWorldData()
     {
         return new IvWorldData(worldDataCompound, RecurrentComplex.specialRegistry.itemHidingMode());
     }
 
+    /**
+     * @return The shared decoded world data. Must not be modified; use {@link #constructWorldData()} for that.
+     */
+    @Nonnull
+    public DecodedStructureCache.DecodedStructure decodedWorldData()
+    {
+        DecodedStructureCache cache = StructureRegistry.INSTANCE.module(DecodedStructureCache.class);
+        if (cache == null)
+            return DecodedStructureCache.decode(worldDataCompound);
+
+        return cache.get(StructureRegistry.INSTANCE.id(this), worldDataCompound, worldDataHash());
+    }
+
+    protected int worldDataHash()
+    {
+        NBTTagCompound compound = worldDataCompound;
+        Pair<NBTTagCompound, Integer> hash = worldDataHash;
+        if (hash == null || hash.getLeft() != compound)
+            worldDataHash = hash = Pair.of(compound, compound.hashCode());
+        return hash.getRight();
+    }
+
     @Nonnull
     @Override
     public <I extends GenerationType> List<I> generationTypes(@Nonnull Class<? extends I> clazz)
@@ -348,7 +426,7 @@ public class GenericStructure implements Structure<GenericStructure.InstanceData
         return null;
     }
 
-    private int getPass(IBlockState state)
+    static int getPass(IBlockState state)
     {
         return (state.isNormalCube() || state.getMaterial() == Material.AIR) ? 0 : 1;
     }
@@ -370,7 +448,7 @@ public class GenericStructure implements Structure<GenericStructure.InstanceData
     @Override
     public IvBlockCollection blockCollection()
     {
-        return constructWorldData().blockCollection;
+        return decodedWorldData().blockCollection();
     }
 
     @Nonnull
@@ -499,7 +577,7 @@ public class GenericStructure implements Structure<GenericStructure.InstanceData
         }
     }
 
-    public static class InstanceData implements NBTStorable
+    public static class InstanceData implements NBTStorable, CachedInstanceData
     {
         public static final String KEY_TRANSFORMER = "transformer";
         public static final String KEY_FOREIGN_TRANSFORMER = "foreignTransformer";
@@ -539,5 +617,19 @@ public class GenericStructure implements Structure<GenericStructure.InstanceData
 
             return compound;
         }
+
+        @Override
+        public boolean isShareable()
+        {
+            return InstanceDataCache.isShareable(transformerData) && InstanceDataCache.isShareable(foreignTransformerData)
+                    && InstanceDataCache.isShareable(transformerGenerationBehavior);
+        }
+
+        @Override
+        public long estimateSize()
+        {
+            return 128 + InstanceDataCache.estimateSize(transformerData) + InstanceDataCache.estimateSize(foreignTransformerData)
+                    + InstanceDataCache.estimateSize(transformerGenerationBehavior);
+        }
     }
 }
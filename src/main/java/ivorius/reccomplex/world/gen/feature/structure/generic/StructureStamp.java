@@ -0,0 +1,177 @@
+/*
+ *  Copyright (c) 2014, Lukas Tenbrink.
+ *  * http://ivorius.net
+ */
+
+package ivorius.reccomplex.world.gen.feature.structure.generic;
+
+import ivorius.ivtoolkit.blocks.BlockAreas;
+import ivorius.ivtoolkit.blocks.IvBlockCollection;
+import ivorius.ivtoolkit.math.AxisAlignedTransform2D;
+import ivorius.ivtoolkit.transform.PosTransformer;
+import ivorius.reccomplex.utils.RCStructureBoundingBoxes;
+import ivorius.reccomplex.utils.UnstableBlock;
+import ivorius.reccomplex.world.gen.feature.structure.context.StructureSpawnContext;
+import net.minecraft.block.state.IBlockState;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.gen.structure.StructureBoundingBox;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * The blocks of a small, static structure, pre-transformed for each of the 8 transforms, so placing it is a walk
+ * over flat arrays instead of transforming every block of the source.
+ * <p>
+ * Only structures without tile entities or entities have a stamp. Blocks skipped on generation are left out, and the
+ * rest is ordered as {@link GenericStructure#generate} would place them: solid blocks and air first, then the rest,
+ * each in source order.
+ */
+public class StructureStamp
+{
+    public static final int MAX_VOLUME = 16 * 16 * 32;
+
+    @Nonnull
+    protected final IvBlockCollection blockCollection;
+    protected final int[] areaSize;
+
+    // By rotation * 2 + mirror; built on first use
+    protected final AtomicReferenceArray<Layer> layers = new AtomicReferenceArray<>(8);
+
+    protected StructureStamp(@Nonnull IvBlockCollection blockCollection)
+    {
+        this.blockCollection = blockCollection;
+        this.areaSize = new int[]{blockCollection.width, blockCollection.height, blockCollection.length};
+    }
+
+    @Nullable
+    public static StructureStamp of(@Nonnull DecodedStructureCache.DecodedStructure decoded)
+    {
+        IvBlockCollection blockCollection = decoded.blockCollection();
+
+        if (!decoded.tileEntities.isEmpty() || !decoded.entities.isEmpty()
+                || blockCollection.width * blockCollection.height * blockCollection.length > MAX_VOLUME)
+            return null;
+
+        return new StructureStamp(blockCollection);
+    }
+
+    protected static int index(AxisAlignedTransform2D transform)
+    {
+        return transform.getRotation() * 2 + (transform.isMirrorX() ? 1 : 0);
+    }
+
+    @Nonnull
+    public Layer layer(AxisAlignedTransform2D transform)
+    {
+        int index = index(transform);
+        Layer layer = layers.get(index);
+
+        if (layer == null)
+        {
+            // If two threads race, both results are equivalent
+            layer = new Layer(blockCollection, areaSize, transform);
+            layers.set(index, layer);
+        }
+
+        return layer;
+    }
+
+    /**
+     * Places the stamp like {@link GenericStructure#generate} would place a structure without transformers.
+     */
+    public void generate(@Nonnull StructureSpawnContext context)
+    {
+        StructureBoundingBox relevantSourceArea = context.sourceIntersection(BlockAreas.toBoundingBox(blockCollection.area()));
+
+        if (relevantSourceArea == null)
+            return;
+
+        Layer layer = layer(context.transform);
+        BlockPos origin = new BlockPos(context.boundingBox.minX, context.boundingBox.minY, context.boundingBox.minZ);
+
+        if (layer.size == 0 || (context.generationBB != null && !layer.boundingBox(origin).intersectsWith(context.generationBB)))
+            return;
+
+        context.freezeHeightMap(relevantSourceArea);
+
+        BlockPos.MutableBlockPos worldPos = new BlockPos.MutableBlockPos();
+        for (int i = 0; i < layer.size; i++)
+        {
+            worldPos.setPos(origin.getX() + layer.x[i], origin.getY() + layer.y[i], origin.getZ() + layer.z[i]);
+
+            if (context.includes(worldPos))
+                context.setBlock(worldPos, layer.states[i], 2);
+        }
+
+        context.meltHeightMap();
+    }
+
+    public static class Layer
+    {
+        public final int size;
+        public final int[] x, y, z;
+        public final IBlockState[] states;
+
+        // Relative to the structure's lower corner
+        public final int minX, minY, minZ, maxX, maxY, maxZ;
+
+        public Layer(IvBlockCollection blockCollection, int[] areaSize, AxisAlignedTransform2D transform)
+        {
+            int volume = blockCollection.width * blockCollection.height * blockCollection.length;
+            int[] x = new int[volume], y = new int[volume], z = new int[volume];
+            IBlockState[] states = new IBlockState[volume];
+
+            int size = 0;
+            int minX = Integer.MAX_VALUE, minY = Integer.MAX_VALUE, minZ = Integer.MAX_VALUE;
+            int maxX = Integer.MIN_VALUE, maxY = Integer.MIN_VALUE, maxZ = Integer.MIN_VALUE;
+
+            StructureBoundingBox area = BlockAreas.toBoundingBox(blockCollection.area());
+            for (int pass = 0; pass < 2; pass++)
+            {
+                for (BlockPos sourcePos : RCStructureBoundingBoxes.mutablePositions(area))
+                {
+                    IBlockState state = PosTransformer.transformBlockState(blockCollection.getBlockState(sourcePos), transform);
+
+                    if (pass != GenericStructure.getPass(state) || UnstableBlock.shouldSkipState(state))
+                        continue;
+
+                    BlockPos pos = transform.apply(sourcePos, areaSize);
+                    x[size] = pos.getX();
+                    y[size] = pos.getY();
+                    z[size] = pos.getZ();
+                    states[size] = state;
+                    size++;
+
+                    minX = Math.min(minX, pos.getX());
+                    minY = Math.min(minY, pos.getY());
+                    minZ = Math.min(minZ, pos.getZ());
+                    maxX = Math.max(maxX, pos.getX());
+                    maxY = Math.max(maxY, pos.getY());
+                    maxZ = Math.max(maxZ, pos.getZ());
+                }
+            }
+
+            this.size = size;
+            this.x = Arrays.copyOf(x, size);
+            this.y = Arrays.copyOf(y, size);
+            this.z = Arrays.copyOf(z, size);
+            this.states = Arrays.copyOf(states, size);
+
+            this.minX = minX;
+            this.minY = minY;
+            this.minZ = minZ;
+            this.maxX = maxX;
+            this.maxY = maxY;
+            this.maxZ = maxZ;
+        }
+
+        public StructureBoundingBox boundingBox(BlockPos origin)
+        {
+            return new StructureBoundingBox(origin.getX() + minX, origin.getY() + minY, origin.getZ() + minZ,
+                    origin.getX() + maxX, origin.getY() + maxY, origin.getZ() + maxZ);
+        }
+    }
+}
@@ -9,12 +9,12 @@ import com.google.gson.*;
 import com.google.gson.annotations.SerializedName;
 import ivorius.ivtoolkit.blocks.BlockSurfacePos;
 import ivorius.ivtoolkit.tools.IvTranslations;
-import ivorius.ivtoolkit.world.chunk.Chunks;
 import ivorius.reccomplex.client.rendering.MazeVisualizationContext;
 import ivorius.reccomplex.gui.editstructure.gentypes.TableDataSourceStaticGeneration;
 import ivorius.reccomplex.gui.table.TableDelegate;
 import ivorius.reccomplex.gui.table.TableNavigator;
 import ivorius.reccomplex.gui.table.datasource.TableDataSource;
+import ivorius.reccomplex.files.SimpleLeveledRegistry;
 import ivorius.reccomplex.json.JsonUtils;
 import ivorius.reccomplex.utils.algebra.ExpressionCache;
 import ivorius.reccomplex.utils.expression.DimensionExpression;
@@ -28,13 +28,13 @@ import net.minecraft.util.math.ChunkPos;
 import net.minecraft.world.World;
 import net.minecraftforge.fml.relauncher.Side;
 import net.minecraftforge.fml.relauncher.SideOnly;
-import org.apache.commons.lang3.tuple.Pair;
 import org.apache.commons.lang3.tuple.Triple;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.lang.reflect.Type;
-import java.util.function.Predicate;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Stream;
 
 /**
@@ -86,23 +86,8 @@ public class StaticGeneration extends GenerationType
 
     public static Stream<Triple<Structure<?>, StaticGeneration, BlockSurfacePos>> structuresAt(StructureRegistry registry, ChunkPos chunkPos, final World world, final BlockPos spawnPos)
     {
-        final Predicate<Pair<Structure<?>, StaticGeneration>> predicate = input ->
-        {
-            StaticGeneration info = input.getRight();
-
-            return info.dimensionExpression.test(world.provider)
-                    && (info.pattern != null || Chunks.contains(chunkPos, info.getPos(spawnPos)));
-        };
-        Stream<Pair<Structure<?>, StaticGeneration>> statics = registry.getGenerationTypes(StaticGeneration.class).stream().filter(predicate);
-
-        return statics.flatMap(pair ->
-        {
-            StaticGeneration info = pair.getRight();
-            //noinspection ConstantConditions
-            return info.hasPattern()
-                    ? Chunks.repeatIntersections(chunkPos, info.getPos(spawnPos), info.pattern.repeatX, info.pattern.repeatZ).map(pos -> Triple.of(pair.getLeft(), info, pos))
-                    : Stream.of(Triple.of(pair.getLeft(), info, info.getPos(spawnPos)));
-        });
+        return registry.module(Cache.class).index(world.provider.getDimension(), spawnPos).structuresAt(chunkPos)
+                .filter(triple -> triple.getMiddle().dimensionExpression.test(world.provider));
     }
 
     public BlockSurfacePos getPosition()
@@ -176,6 +161,31 @@ public class StaticGeneration extends GenerationType
         public int randomShiftZ = 0;
     }
 
+    public static class Cache extends SimpleLeveledRegistry.Module<StructureRegistry>
+    {
+        protected final Map<Integer, StaticGenerationIndex> indices = new ConcurrentHashMap<>();
+
+        public StaticGenerationIndex index(int dimension, BlockPos spawnPos)
+        {
+            StaticGenerationIndex index = indices.get(dimension);
+
+            // Spawn can move, and positions may be relative to it
+            if (index == null || !index.spawnPos.equals(spawnPos))
+            {
+                index = new StaticGenerationIndex(registry.getGenerationTypes(StaticGeneration.class), spawnPos);
+                indices.put(dimension, index);
+            }
+
+            return index;
+        }
+
+        @Override
+        public void invalidate()
+        {
+            indices.clear();
+        }
+    }
+
     public static class Serializer implements JsonSerializer<StaticGeneration>, JsonDeserializer<StaticGeneration>
     {
         @Override
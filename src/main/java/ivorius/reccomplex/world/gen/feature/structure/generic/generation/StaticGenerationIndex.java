@@ -0,0 +1,131 @@
+/*
+ *  Copyright (c) 2014, Lukas Tenbrink.
+ *  * http://ivorius.net
+ */
+
+package ivorius.reccomplex.world.gen.feature.structure.generic.generation;
+
+import gnu.trove.map.TLongObjectMap;
+import gnu.trove.map.hash.TLongObjectHashMap;
+import ivorius.ivtoolkit.blocks.BlockSurfacePos;
+import ivorius.ivtoolkit.world.chunk.Chunks;
+import ivorius.reccomplex.world.gen.feature.structure.Structure;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import org.apache.commons.lang3.tuple.Pair;
+import org.apache.commons.lang3.tuple.Triple;
+
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * Static generations of a dimension, by where they generate: Fixed positions are bucketed by chunk, and patterns
+ * are grouped by the lattice of positions they repeat on. Dimension expressions are left to the caller.
+ */
+public class StaticGenerationIndex
+{
+    public final BlockPos spawnPos;
+
+    protected final TLongObjectMap<List<Triple<Structure<?>, StaticGeneration, BlockSurfacePos>>> fixed = new TLongObjectHashMap<>();
+    protected final List<Lattice> lattices = new ArrayList<>();
+
+    public StaticGenerationIndex(Collection<Pair<Structure<?>, StaticGeneration>> statics, BlockPos spawnPos)
+    {
+        this.spawnPos = spawnPos;
+
+        Map<Lattice, Lattice> lattices = new HashMap<>();
+        for (Pair<Structure<?>, StaticGeneration> pair : statics)
+        {
+            StaticGeneration info = pair.getRight();
+            BlockSurfacePos pos = info.getPos(spawnPos);
+
+            if (info.hasPattern())
+            {
+                //noinspection ConstantConditions
+                Lattice lattice = new Lattice(info.pattern.repeatX, info.pattern.repeatZ, pos);
+                lattices.computeIfAbsent(lattice, l -> l).statics.add(pair);
+            }
+            else
+            {
+                long key = ChunkPos.asLong(pos.x >> 4, pos.z >> 4);
+                List<Triple<Structure<?>, StaticGeneration, BlockSurfacePos>> list = fixed.get(key);
+                if (list == null)
+                    fixed.put(key, list = new ArrayList<>(1));
+                list.add(Triple.of(pair.getLeft(), info, pos));
+            }
+        }
+
+        this.lattices.addAll(lattices.values());
+    }
+
+    public Stream<Triple<Structure<?>, StaticGeneration, BlockSurfacePos>> structuresAt(ChunkPos chunkPos)
+    {
+        List<Triple<Structure<?>, StaticGeneration, BlockSurfacePos>> fixed = this.fixed.get(ChunkPos.asLong(chunkPos.x, chunkPos.z));
+        Stream<Triple<Structure<?>, StaticGeneration, BlockSurfacePos>> fixedStream = fixed != null ? fixed.stream() : Stream.empty();
+
+        List<Lattice> hit = null;
+        for (Lattice lattice : lattices)
+        {
+            if (lattice.intersects(chunkPos))
+            {
+                if (hit == null)
+                    hit = new ArrayList<>();
+                hit.add(lattice);
+            }
+        }
+
+        if (hit == null)
+            return fixedStream;
+
+        return Stream.concat(fixedStream, hit.stream().flatMap(lattice ->
+                Chunks.repeatIntersections(chunkPos, lattice.origin, lattice.repeatX, lattice.repeatZ)
+                        .flatMap(pos -> lattice.statics.stream().map(pair -> Triple.of(pair.getLeft(), pair.getRight(), pos)))));
+    }
+
+    protected static class Lattice
+    {
+        public final int repeatX, repeatZ;
+        public final BlockSurfacePos origin;
+
+        public final List<Pair<Structure<?>, StaticGeneration>> statics = new ArrayList<>();
+
+        public Lattice(int repeatX, int repeatZ, BlockSurfacePos pos)
+        {
+            this.repeatX = repeatX;
+            this.repeatZ = repeatZ;
+            // Any point of the lattice identifies it; take the one closest to the origin
+            this.origin = new BlockSurfacePos(reduce(pos.x, repeatX), reduce(pos.z, repeatZ));
+        }
+
+        protected static int reduce(int coord, int repeat)
+        {
+            return repeat > 0 ? Math.floorMod(coord, repeat) : coord;
+        }
+
+        protected static boolean intersects(int min, int origin, int repeat)
+        {
+            int first = repeat > 0 ? min + Math.floorMod(origin - min, repeat) : origin;
+            return first >= min && first < min + 16;
+        }
+
+        public boolean intersects(ChunkPos chunkPos)
+        {
+            return intersects(chunkPos.x << 4, origin.x, repeatX) && intersects(chunkPos.z << 4, origin.z, repeatZ);
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Lattice lattice = (Lattice) o;
+            return repeatX == lattice.repeatX && repeatZ == lattice.repeatZ && origin.x == lattice.origin.x && origin.z == lattice.origin.z;
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return Objects.hash(repeatX, repeatZ, origin.x, origin.z);
+        }
+    }
+}
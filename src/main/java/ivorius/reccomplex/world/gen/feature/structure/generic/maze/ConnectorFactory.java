@@ -12,6 +12,8 @@ import java.util.Map;
 
 /**
  * Created by lukas on 26.04.15.
+ * <p>
+ * Factories may be shared by cached maze components, so lookups are synchronized.
  */
 public class ConnectorFactory
 {
@@ -20,13 +22,13 @@ public class ConnectorFactory
 
     private final Map<String, Connector> connectors = new HashMap<>();
 
-    public Connector get(String id)
+    public synchronized Connector get(String id)
     {
         Connector connector = connectors.get(id);
         return connector != null ? connector : register(id);
     }
 
-    public Connector register(String id)
+    public synchronized Connector register(String id)
     {
         Connector gendered = tryCreateGendered(id);
 
@@ -40,7 +42,7 @@ public class ConnectorFactory
         }
     }
 
-    public void put(String id, Connector connector)
+    public synchronized void put(String id, Connector connector)
     {
         connectors.put(id, connector);
     }
@@ -0,0 +1,173 @@
+/*
+ *  Copyright (c) 2014, Lukas Tenbrink.
+ *  * http://ivorius.net
+ */
+
+package ivorius.reccomplex.world.gen.feature.structure.generic.maze;
+
+import gnu.trove.map.TObjectByteMap;
+import gnu.trove.map.hash.TObjectByteHashMap;
+import ivorius.ivtoolkit.math.AxisAlignedTransform2D;
+import ivorius.reccomplex.RCConfig;
+import ivorius.reccomplex.files.SimpleLeveledRegistry;
+import ivorius.reccomplex.world.gen.feature.structure.Environment;
+import ivorius.reccomplex.world.gen.feature.structure.StructureRegistry;
+import ivorius.reccomplex.world.gen.feature.structure.generic.generation.GenerationType;
+import ivorius.reccomplex.world.gen.feature.structure.generic.generation.MazeGeneration;
+import net.minecraft.world.biome.Biome;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps the transformed components of recently generated mazes around, so that repeated spawns of the same maze
+ * don't rotate every component's rooms, exits and reachability again.
+ * <p>
+ * Entries are keyed by maze ID, transform, blocked connectors and everything of the environment that component
+ * expressions can see. Each entry comes with its own connector factory; connectors from other factories must not be
+ * mixed with its components. Entries are evicted least-recently-used and dropped whenever the structure registry
+ * changes. Cached components are shared - callers must treat them as read-only.
+ */
+public class MazeComponentCache extends SimpleLeveledRegistry.Module<StructureRegistry>
+{
+    private final Map<Key, Components> cache = new LinkedHashMap<Key, Components>(16, 0.75f, true)
+    {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, Components> eldest)
+        {
+            return size() > RCConfig.mazeComponentCacheSize;
+        }
+    };
+
+    @Nonnull
+    public static Components build(@Nonnull String mazeID, @Nonnull AxisAlignedTransform2D transform, @Nonnull Environment environment, @Nonnull Collection<String> blockedConnectors)
+    {
+        ConnectorFactory factory = new ConnectorFactory();
+        Set<Connector> blockedConnections = blockedConnectors.stream().map(factory::get).collect(Collectors.toSet());
+
+        List<MazeComponentStructure<Connector>> components = MazeGeneration.structures(StructureRegistry.INSTANCE, mazeID)
+                .flatMap(pair -> pair.getLeft().declaredVariables().omega(environment, true)
+                        .flatMap(domain -> WorldGenMaze.transforms(pair.getLeft(), pair.getRight(), transform, factory, environment.copy(domain), blockedConnections))
+                )
+                .collect(Collectors.toList());
+
+        return new Components(factory, blockedConnections, components);
+    }
+
+    @Nonnull
+    public Components get(@Nonnull String mazeID, @Nonnull AxisAlignedTransform2D transform, @Nonnull Environment environment, @Nonnull Collection<String> blockedConnectors)
+    {
+        if (RCConfig.mazeComponentCacheSize <= 0)
+            return build(mazeID, transform, environment, blockedConnectors);
+
+        Key key = new Key(mazeID, transform, environment, blockedConnectors);
+
+        Components components;
+        synchronized (cache)
+        {
+            components = cache.get(key);
+        }
+
+        if (components == null)
+        {
+            // Build outside the lock; if two threads race, both results are equivalent
+            components = build(mazeID, transform, environment, blockedConnectors);
+
+            synchronized (cache)
+            {
+                cache.put(key, components);
+            }
+        }
+
+        return components;
+    }
+
+    public int size()
+    {
+        synchronized (cache)
+        {
+            return cache.size();
+        }
+    }
+
+    @Override
+    public void invalidate()
+    {
+        synchronized (cache)
+        {
+            cache.clear();
+        }
+    }
+
+    public static class Components
+    {
+        /**
+         * The factory the components' connectors come from. Use it for all other connectors of the maze.
+         */
+        @Nonnull
+        public final ConnectorFactory factory;
+        @Nonnull
+        public final Set<Connector> blockedConnections;
+        @Nonnull
+        public final List<MazeComponentStructure<Connector>> components;
+
+        public Components(@Nonnull ConnectorFactory factory, @Nonnull Set<Connector> blockedConnections, @Nonnull List<MazeComponentStructure<Connector>> components)
+        {
+            this.factory = factory;
+            this.blockedConnections = Collections.unmodifiableSet(blockedConnections);
+            this.components = Collections.unmodifiableList(components);
+        }
+    }
+
+    private static class Key
+    {
+        private final String mazeID;
+        private final int rotation;
+        private final boolean mirrorX;
+        private final Set<String> blockedConnectors;
+
+        // What environment expressions can look at
+        private final int dimension;
+        private final Biome biome;
+        @Nullable
+        private final Integer villageType;
+        @Nullable
+        private final GenerationType generationType;
+        private final TObjectByteMap<String> variables;
+
+        public Key(String mazeID, AxisAlignedTransform2D transform, Environment environment, Collection<String> blockedConnectors)
+        {
+            this.mazeID = mazeID;
+            this.rotation = transform.getRotation();
+            this.mirrorX = transform.isMirrorX();
+            this.blockedConnectors = new HashSet<>(blockedConnectors);
+
+            this.dimension = environment.world.provider.getDimension();
+            this.biome = environment.biome;
+            this.villageType = environment.villageType;
+            this.generationType = environment.generationType;
+            this.variables = new TObjectByteHashMap<>(environment.variables.all());
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Key key = (Key) o;
+            return rotation == key.rotation && mirrorX == key.mirrorX && dimension == key.dimension
+                    && biome == key.biome && generationType == key.generationType
+                    && Objects.equals(villageType, key.villageType)
+                    && mazeID.equals(key.mazeID) && blockedConnectors.equals(key.blockedConnectors)
+                    && variables.equals(key.variables);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return Objects.hash(mazeID, rotation, mirrorX, blockedConnectors, dimension, biome, villageType, generationType, variables);
+        }
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ *  Copyright (c) 2014, Lukas Tenbrink.
+ *  * http://ivorius.net
+ */
+
+package ivorius.reccomplex.world.gen.feature.structure.generic.maze;
+
+import ivorius.reccomplex.RCConfig;
+import ivorius.reccomplex.world.gen.feature.structure.generic.maze.rules.CancellationStrategy;
+
+import java.util.Arrays;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Solves mazes on a shared, bounded pool of daemon threads, so that mazes don't each spin up a thread of their own.
+ * <p>
+ * Solves are cancelled cooperatively through a {@link CancellationStrategy} that the solver has to consult,
+ * so timed out solves stop burning CPU even if they ignore interrupts. When the pool's queue is full, the calling
+ * thread solves itself, still bound by the same deadline.
+ */
+public class MazeSolverPool
+{
+    public static final int QUEUE_SIZE = 64;
+    public static final int RECENT_TIMES = 512;
+
+    private static ThreadPoolExecutor executor;
+
+    protected static final LongAdder started = new LongAdder();
+    protected static final LongAdder timedOut = new LongAdder();
+    protected static final LongAdder totalNanos = new LongAdder();
+    protected static final LongAdder reverses = new LongAdder();
+
+    protected static final long[] recentNanos = new long[RECENT_TIMES];
+    // Where the next time goes, and how many of the slots are filled
+    protected static int recentIndex;
+    protected static int recentCount;
+
+    protected static synchronized ExecutorService executor()
+    {
+        if (executor == null)
+        {
+            AtomicInteger threadNumber = new AtomicInteger();
+            ThreadFactory factory = runnable ->
+            {
+                Thread thread = new Thread(runnable, "Recurrent Complex Maze Solver #" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            };
+
+            int threads = Math.max(1, RCConfig.mazeSolverThreads);
+            executor = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<>(QUEUE_SIZE), factory, new ThreadPoolExecutor.CallerRunsPolicy());
+            executor.allowCoreThreadTimeOut(true);
+        }
+
+        return executor;
+    }
+
+    /**
+     * Runs the solver on the pool and waits for its result.
+     *
+     * @param timeout The time to wait, in milliseconds; negative to wait indefinitely.
+     * @param solver  The solver. It must consult the given strategy while solving.
+     * @throws TimeoutException If the solve took too long; it has been cancelled by then.
+     */
+    public static <C, T> T solve(long timeout, Function<CancellationStrategy<C>, T> solver) throws TimeoutException, ExecutionException, InterruptedException
+    {
+        CancellationStrategy<C> cancellation = new CancellationStrategy<>(timeout);
+
+        started.increment();
+        long start = System.nanoTime();
+
+        Future<T> future = executor().submit(() -> solver.apply(cancellation));
+        try
+        {
+            return timeout >= 0 ? future.get(timeout, TimeUnit.MILLISECONDS) : future.get();
+        }
+        catch (TimeoutException e)
+        {
+            cancellation.cancel();
+            future.cancel(true);
+            timedOut.increment();
+            throw e;
+        }
+        catch (ExecutionException e)
+        {
+            // The solver noticed the deadline itself, e.g. when it ran on this thread
+            if (e.getCause() instanceof CancellationException)
+            {
+                timedOut.increment();
+                throw new TimeoutException();
+            }
+            throw e;
+        }
+        finally
+        {
+            record(System.nanoTime() - start, cancellation.reverses());
+        }
+    }
+
+    protected static void record(long nanos, int reverses)
+    {
+        totalNanos.add(nanos);
+        MazeSolverPool.reverses.add(reverses);
+
+        synchronized (recentNanos)
+        {
+            recentNanos[recentIndex] = nanos;
+            recentIndex = (recentIndex + 1) % RECENT_TIMES;
+            if (recentCount < RECENT_TIMES)
+                recentCount++;
+        }
+    }
+
+    public static long started()
+    {
+        return started.sum();
+    }
+
+    public static long timedOut()
+    {
+        return timedOut.sum();
+    }
+
+    public static long reverses()
+    {
+        return reverses.sum();
+    }
+
+    public static double meanMillis()
+    {
+        long started = started();
+        return started > 0 ? totalNanos.sum() / 1_000_000.0 / started : 0;
+    }
+
+    /**
+     * @return The 99th percentile of the most recent solve times.
+     */
+    public static double p99Millis()
+    {
+        long[] recent;
+        synchronized (recentNanos)
+        {
+            recent = Arrays.copyOf(recentNanos, recentCount);
+        }
+
+        if (recent.length == 0)
+            return 0;
+
+        Arrays.sort(recent);
+        return recent[Math.min(recent.length - 1, (int) Math.ceil(recent.length * 0.99) - 1)] / 1_000_000.0;
+    }
+
+    public static void resetStats()
+    {
+        started.reset();
+        timedOut.reset();
+        totalNanos.reset();
+        reverses.reset();
+
+        synchronized (recentNanos)
+        {
+            recentIndex = 0;
+            recentCount = 0;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ *  Copyright (c) 2014, Lukas Tenbrink.
+ *  * http://ivorius.net
+ */
+
+package ivorius.reccomplex.world.gen.feature.structure.generic.maze.rules;
+
+import ivorius.ivtoolkit.maze.components.*;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Aborts a running maze solve from within the connector's loop, once it was cancelled or ran past its deadline.
+ * Also counts the reverses the solve took, as the number of components it took back.
+ */
+public class CancellationStrategy<C> implements MazePredicate<C>
+{
+    protected final boolean hasDeadline;
+    protected final long deadline;
+
+    protected volatile boolean cancelled;
+    protected volatile int reverses;
+
+    /**
+     * @param timeout The time the solve may take from now on, in milliseconds; negative for none.
+     */
+    public CancellationStrategy(long timeout)
+    {
+        this.hasDeadline = timeout >= 0;
+        this.deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(Math.max(timeout, 0));
+    }
+
+    public void cancel()
+    {
+        cancelled = true;
+    }
+
+    public boolean isCancelled()
+    {
+        return cancelled || (hasDeadline && System.nanoTime() - deadline > 0);
+    }
+
+    public int reverses()
+    {
+        return reverses;
+    }
+
+    protected void check()
+    {
+        if (isCancelled())
+            throw new CancellationException("Maze solve was cancelled");
+    }
+
+    @Override
+    public boolean canPlace(MorphingMazeComponent<C> maze, ShiftedMazeComponent<?, C> component)
+    {
+        check();
+        return true;
+    }
+
+    @Override
+    public void willPlace(MorphingMazeComponent<C> maze, ShiftedMazeComponent<?, C> component)
+    {
+
+    }
+
+    @Override
+    public void didPlace(MorphingMazeComponent<C> maze, ShiftedMazeComponent<?, C> component)
+    {
+
+    }
+
+    @Override
+    public void willUnplace(MorphingMazeComponent<C> maze, ShiftedMazeComponent<?, C> component)
+    {
+        //noinspection NonAtomicOperationOnVolatileField Only the solving thread writes
+        reverses++;
+        check();
+    }
+
+    @Override
+    public void didUnplace(MorphingMazeComponent<C> maze, ShiftedMazeComponent<?, C> component)
+    {
+
+    }
+
+    @Override
+    public boolean isDirtyConnection(MazeRoom dest, MazeRoom source, C c)
+    {
+        return true;
+    }
+}
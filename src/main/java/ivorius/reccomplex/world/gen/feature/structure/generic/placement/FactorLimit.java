@@ -78,12 +78,13 @@ public class FactorLimit extends GenericPlacer.Factor
     {
         List<Pair<LineSelection, Float>> consideration = new ArrayList<>();
         int height = cache.world.getHeight();
+        SurfaceColumns columns = new SurfaceColumns(cache, context, blockCollection, surface);
 
         int pos = height - 1;
         for (Ray ray : rays)
         {
             int before = pos;
-            OptionalInt cast = ray.cast(cache, context, blockCollection, surface, pos);
+            OptionalInt cast = ray.cast(cache, context, blockCollection, surface, columns, pos);
             if (cast.isPresent())
             {
                 pos = cast.getAsInt();
@@ -145,7 +146,7 @@ public class FactorLimit extends GenericPlacer.Factor
             return up ? "▲" : "▼";
         }
 
-        public abstract OptionalInt cast(WorldCache cache, StructurePlaceContext context, IvBlockCollection collection, Set<BlockPos> surface, int y);
+        public abstract OptionalInt cast(WorldCache cache, StructurePlaceContext context, IvBlockCollection collection, Set<BlockPos> surface, SurfaceColumns columns, int y);
 
         @SuppressWarnings("NewExpressionSideOnly")
         @SideOnly(Side.CLIENT)
@@ -65,9 +65,10 @@ public class FactorMatch extends GenericPlacer.Factor
         int failChances = (int) (sources.size() * (1f - needed));
         int matched = 0;
 
+        PositionedBlockExpression.Argument.Cursor cursor = new PositionedBlockExpression.Argument.Cursor(cache);
         for (BlockPos pos : sources)
         {
-            if (destMatcher.evaluate(() -> PositionedBlockExpression.Argument.at(cache, pos)))
+            if (destMatcher.test(cursor.move(pos)))
                 matched++;
             else if (--failChances < 0)
                 break;  // Already lost
@@ -0,0 +1,291 @@
+/*
+ *  Copyright (c) 2014, Lukas Tenbrink.
+ *  * http://ivorius.net
+ */
+
+package ivorius.reccomplex.world.gen.feature.structure.generic.placement;
+
+import gnu.trove.map.TLongObjectMap;
+import gnu.trove.map.hash.TLongObjectHashMap;
+import ivorius.ivtoolkit.blocks.IvBlockCollection;
+import ivorius.ivtoolkit.world.MockWorld;
+import ivorius.ivtoolkit.world.WorldCache;
+import ivorius.reccomplex.utils.expression.PositionedBlockExpression;
+import ivorius.reccomplex.world.gen.feature.structure.generic.placement.rays.RayAverageMatcher;
+import net.minecraft.block.state.IBlockState;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+
+import javax.annotation.Nullable;
+import java.util.*;
+
+/**
+ * The world columns under a structure's surface, read once per placement and stored as runs of equal block states.
+ * <p>
+ * Rays searching for the first height at which the surface matches an expression are answered from the runs:
+ * Expressions that only look at the block state are evaluated once per distinct state, rather than once per block
+ * and height. Expressions that depend on the position are still evaluated block by block.
+ */
+public class SurfaceColumns
+{
+    public final WorldCache cache;
+    public final int height;
+
+    protected final StructurePlaceContext context;
+    @Nullable
+    protected final IvBlockCollection collection;
+    protected final Set<BlockPos> surface;
+
+    protected MockWorld world;
+    protected PositionedBlockExpression.Argument.Cursor cursor;
+    protected Column[] columns;
+    protected int[] offsets;
+
+    protected final Map<PositionedBlockExpression, Map<IBlockState, Boolean>> stateResults = new IdentityHashMap<>();
+    protected final Map<PositionedBlockExpression, int[]> counts = new IdentityHashMap<>();
+
+    public SurfaceColumns(WorldCache cache, StructurePlaceContext context, @Nullable IvBlockCollection collection, Set<BlockPos> surface)
+    {
+        this.cache = cache;
+        this.height = cache.world.getHeight();
+        this.context = context;
+        this.collection = collection;
+        this.surface = surface;
+    }
+
+    protected void load()
+    {
+        if (columns != null)
+            return;
+
+        if (collection == null)
+            throw new IllegalArgumentException("Missing a block collection!");
+
+        world = new MockWorld.Cache(cache);
+        cursor = new PositionedBlockExpression.Argument.Cursor(world);
+
+        Set<BlockPos> shifted = RayAverageMatcher.shifted(context, collection, surface);
+        columns = new Column[shifted.size()];
+        offsets = new int[shifted.size()];
+
+        TLongObjectMap<Column> byPos = new TLongObjectHashMap<>();
+        int i = 0;
+        for (BlockPos pos : shifted)
+        {
+            long key = ChunkPos.asLong(pos.getX(), pos.getZ());
+            Column column = byPos.get(key);
+            if (column == null)
+                byPos.put(key, column = new Column(pos.getX(), pos.getZ()));
+
+            columns[i] = column;
+            offsets[i] = pos.getY();
+            i++;
+        }
+    }
+
+    /**
+     * @return The number of surface positions, i.e. valid point indices.
+     */
+    public int size()
+    {
+        load();
+        return columns.length;
+    }
+
+    public int offset(int point)
+    {
+        load();
+        return offsets[point];
+    }
+
+    /**
+     * Finds the first ray height, starting at y, where at least the needed number of surface positions match.
+     */
+    public OptionalInt firstMatch(PositionedBlockExpression expression, int y, boolean up, int needed)
+    {
+        load();
+
+        if (!expression.dependsOnPosition())
+        {
+            int[] counts = counts(expression);
+            for (; y >= 0 && y < height; y += up ? 1 : -1)
+            {
+                if (counts[y] >= needed)
+                    return OptionalInt.of(y);
+            }
+
+            return OptionalInt.empty();
+        }
+
+        for (; y >= 0 && y < height; y += up ? 1 : -1)
+        {
+            int matched = 0, chances = columns.length - needed;
+            for (int i = 0; i < columns.length && matched < needed && chances >= 0; i++)
+            {
+                if (expression.test(cursor.move(columns[i].x, offsets[i] + y, columns[i].z)))
+                    matched++;
+                else
+                    chances--;
+            }
+
+            if (matched >= needed)
+                return OptionalInt.of(y);
+        }
+
+        return OptionalInt.empty();
+    }
+
+    /**
+     * Finds the first ray height, starting at y, where the surface position matches, staying inside the world.
+     */
+    public OptionalInt firstMatch(PositionedBlockExpression expression, int point, int y, boolean up)
+    {
+        load();
+
+        Column column = columns[point];
+        int offset = offsets[point];
+        int worldY = offset + y;
+
+        if (!expression.dependsOnPosition())
+        {
+            column.load(world, height);
+            int run = column.runAt(worldY);
+
+            while (worldY >= 0 && worldY < height)
+            {
+                if (matches(expression, column, run))
+                    return OptionalInt.of(worldY - offset);
+
+                // Skip to the closest block of the next run
+                if (up)
+                    worldY = column.starts[++run];
+                else if (run > 0)
+                    worldY = column.starts[run--] - 1;
+                else
+                    break;
+            }
+
+            return OptionalInt.empty();
+        }
+
+        for (; worldY >= 0 && worldY < height; worldY += up ? 1 : -1)
+        {
+            if (expression.test(cursor.move(column.x, worldY, column.z)))
+                return OptionalInt.of(worldY - offset);
+        }
+
+        return OptionalInt.empty();
+    }
+
+    /**
+     * @return For every ray height, the number of surface positions matching the state only expression.
+     */
+    protected int[] counts(PositionedBlockExpression expression)
+    {
+        int[] counts = this.counts.get(expression);
+        if (counts != null)
+            return counts;
+
+        // Mark where matching runs begin and end along the ray, then sum up
+        int[] diff = new int[height + 1];
+        for (int i = 0; i < columns.length; i++)
+        {
+            Column column = columns[i];
+            column.load(world, height);
+
+            for (int run = 0; run < column.states.length; run++)
+            {
+                if (!matches(expression, column, run))
+                    continue;
+
+                long from = run == 0 ? Long.MIN_VALUE : (long) column.starts[run] - offsets[i];
+                long to = run + 1 >= column.states.length ? Long.MAX_VALUE : (long) column.starts[run + 1] - offsets[i];
+                from = Math.max(from, 0);
+                to = Math.min(to, height);
+
+                if (from < to)
+                {
+                    diff[(int) from]++;
+                    diff[(int) to]--;
+                }
+            }
+        }
+
+        counts = new int[height];
+        int count = 0;
+        for (int y = 0; y < height; y++)
+            counts[y] = count += diff[y];
+
+        this.counts.put(expression, counts);
+        return counts;
+    }
+
+    protected boolean matches(PositionedBlockExpression expression, Column column, int run)
+    {
+        IBlockState state = column.states[run];
+        Map<IBlockState, Boolean> results = stateResults.computeIfAbsent(expression, e -> new IdentityHashMap<>());
+
+        Boolean result = results.get(state);
+        if (result == null)
+        {
+            // Any position of the run works; the expression only looks at the state
+            int y = run == 0 ? -1 : column.starts[run];
+            results.put(state, result = expression.test(cursor.move(column.x, y, column.z)));
+        }
+
+        return result;
+    }
+
+    /**
+     * A world column, as runs of equal states. The first run reaches down and the last run up indefinitely, to
+     * cover whatever the world reports outside its height.
+     */
+    protected static class Column
+    {
+        public final int x, z;
+
+        public int[] starts;
+        public IBlockState[] states;
+
+        public Column(int x, int z)
+        {
+            this.x = x;
+            this.z = z;
+        }
+
+        public void load(MockWorld world, int height)
+        {
+            if (states != null)
+                return;
+
+            List<IBlockState> states = new ArrayList<>();
+            int[] starts = new int[8];
+
+            BlockPos.MutableBlockPos pos = new BlockPos.MutableBlockPos();
+            IBlockState previous = null;
+            for (int y = -1; y <= height; y++)
+            {
+                IBlockState state = world.getBlockState(pos.setPos(x, y, z));
+                if (state != previous)
+                {
+                    if (states.size() == starts.length)
+                        starts = Arrays.copyOf(starts, starts.length * 2);
+                    starts[states.size()] = y < 0 ? Integer.MIN_VALUE : y;
+                    states.add(state);
+                    previous = state;
+                }
+            }
+
+            // Sentinel, so that walking up past the last run leaves the world
+            this.starts = Arrays.copyOf(starts, states.size() + 1);
+            this.starts[states.size()] = Integer.MAX_VALUE;
+            this.states = states.toArray(new IBlockState[states.size()]);
+        }
+
+        public int runAt(int y)
+        {
+            int index = Arrays.binarySearch(starts, 0, states.length, y);
+            return index >= 0 ? index : -index - 2;
+        }
+    }
+}
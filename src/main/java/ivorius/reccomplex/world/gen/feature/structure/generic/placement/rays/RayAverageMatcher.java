@@ -9,7 +9,6 @@ import com.google.gson.*;
 import gnu.trove.list.TIntList;
 import gnu.trove.list.array.TIntArrayList;
 import ivorius.ivtoolkit.blocks.IvBlockCollection;
-import ivorius.ivtoolkit.blocks.IvMutableBlockPos;
 import ivorius.ivtoolkit.tools.IvTranslations;
 import ivorius.ivtoolkit.world.WorldCache;
 import ivorius.ivtoolkit.world.chunk.gen.StructureBoundingBoxes;
@@ -26,7 +25,7 @@ import ivorius.reccomplex.json.JsonUtils;
 import ivorius.reccomplex.utils.expression.PositionedBlockExpression;
 import ivorius.reccomplex.world.gen.feature.structure.generic.placement.FactorLimit;
 import ivorius.reccomplex.world.gen.feature.structure.generic.placement.StructurePlaceContext;
-import net.minecraft.util.EnumFacing;
+import ivorius.reccomplex.world.gen.feature.structure.generic.placement.SurfaceColumns;
 import net.minecraft.util.math.BlockPos;
 import net.minecraftforge.fml.relauncher.Side;
 import net.minecraftforge.fml.relauncher.SideOnly;
@@ -35,7 +34,6 @@ import java.lang.reflect.Type;
 import java.util.OptionalInt;
 import java.util.Random;
 import java.util.Set;
-import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 import static ivorius.reccomplex.world.gen.feature.structure.generic.placement.FactorLimit.getRayRegistry;
@@ -60,37 +58,19 @@ public class RayAverageMatcher extends FactorLimit.Ray
         this.destMatcher.setExpression(destExpression);
     }
 
-    public static BlockPos findFirstBlock(BlockPos.MutableBlockPos pos, Predicate<BlockPos> predicate, boolean up, int wHeight)
-    {
-        for (; pos.getY() >= 0 && pos.getY() < wHeight; IvMutableBlockPos.offset(pos, pos, up ? EnumFacing.UP : EnumFacing.DOWN))
-        {
-            if (predicate.test(pos))
-                return pos;
-        }
-
-        return null;
-    }
-
     // From StructureVillagePieces
-    public static int getAverageGroundLevel(boolean up, int y, Set<BlockPos> surface, Predicate<BlockPos> predicate, int wHeight, double samples, Random random)
+    public static int getAverageGroundLevel(boolean up, int y, SurfaceColumns columns, PositionedBlockExpression predicate, double samples, Random random)
     {
-        TIntList list = new TIntArrayList(surface.size());
-        BlockPos.MutableBlockPos pos = new BlockPos.MutableBlockPos();
+        TIntList list = new TIntArrayList(columns.size());
 
-        for (BlockPos surfacePos : surface)
+        for (int i = 0; i < columns.size(); i++)
         {
-//                Added
             if (samples >= 1 || random.nextDouble() < samples)
             {
-                pos.setPos(surfacePos.getX(), surfacePos.getY() + y, surfacePos.getZ());
-
-//                if (structurebb.isVecInside(pos))
-                {
-                    // Ignore voiding rays
-                    BlockPos found = findFirstBlock(pos, predicate, up, wHeight);
-                    if (found != null)
-                        list.add(found.getY() - surfacePos.getY());
-                }
+                // Ignore voiding rays
+                OptionalInt found = columns.firstMatch(predicate, i, y, up);
+                if (found.isPresent())
+                    list.add(found.getAsInt());
             }
         }
 
@@ -141,18 +121,14 @@ public class RayAverageMatcher extends FactorLimit.Ray
     }
 
     @Override
-    public OptionalInt cast(WorldCache cache, StructurePlaceContext context, IvBlockCollection collection, Set<BlockPos> surface, int y)
+    public OptionalInt cast(WorldCache cache, StructurePlaceContext context, IvBlockCollection collection, Set<BlockPos> surface, SurfaceColumns columns, int y)
     {
         int floorBlocks = surface.size();
         // Under a chunk size we can use every block no problem.
         // Afterwards we slowly increase total sample size, i.e. decrease chance.
         double samples = floorBlocks < 16 * 16 ? 1 : Math.pow((16f * 16f) / floorBlocks, 0.7f);
 
-        Set<BlockPos> shiftedSurface = shifted(context, collection, surface);
-
-        int averageGroundLevel = getAverageGroundLevel(up, y, shiftedSurface,
-                blockPos -> destMatcher.evaluate(() -> PositionedBlockExpression.Argument.at(cache, blockPos)), cache.world.getHeight(),
-                samples, context.random);
+        int averageGroundLevel = getAverageGroundLevel(up, y, columns, destMatcher, samples, context.random);
         return averageGroundLevel >= 0 ? OptionalInt.of(averageGroundLevel) : OptionalInt.empty();
     }
 
@@ -8,7 +8,6 @@ package ivorius.reccomplex.world.gen.feature.structure.generic.placement.rays;
 import com.google.gson.*;
 import ivorius.ivtoolkit.blocks.IvBlockCollection;
 import ivorius.ivtoolkit.tools.IvTranslations;
-import ivorius.ivtoolkit.util.IvStreams;
 import ivorius.ivtoolkit.world.WorldCache;
 import ivorius.reccomplex.RecurrentComplex;
 import ivorius.reccomplex.gui.TableDataSourceExpression;
@@ -24,6 +23,7 @@ import ivorius.reccomplex.json.JsonUtils;
 import ivorius.reccomplex.utils.expression.PositionedBlockExpression;
 import ivorius.reccomplex.world.gen.feature.structure.generic.placement.FactorLimit;
 import ivorius.reccomplex.world.gen.feature.structure.generic.placement.StructurePlaceContext;
+import ivorius.reccomplex.world.gen.feature.structure.generic.placement.SurfaceColumns;
 import net.minecraft.util.math.BlockPos;
 import net.minecraftforge.fml.relauncher.Side;
 import net.minecraftforge.fml.relauncher.SideOnly;
@@ -56,43 +56,10 @@ public class RayMatcher extends FactorLimit.Ray
         this.destMatcher.setExpression(destExpression);
     }
 
-    protected boolean matches(WorldCache cache, Set<BlockPos> surface, int y, float needed)
-    {
-        int[] chances = new int[]{surface.size()};
-
-        int[] need = new int[]{(int) (chances[0] * needed)};
-        chances[0] -= need[0];
-        BlockPos.MutableBlockPos pos = new BlockPos.MutableBlockPos();
-
-        IvStreams.visit(surface.stream(), surfacePos ->
-        {
-            pos.setPos(surfacePos.getX(), surfacePos.getY() + y, surfacePos.getZ());
-            if (destMatcher.evaluate(() -> PositionedBlockExpression.Argument.at(cache, pos)))
-                return --need[0] > 0;
-            else
-                return --chances[0] > 0; // Already lost
-        });
-
-        return need[0] <= 0;
-    }
-
     @Override
-    public OptionalInt cast(WorldCache cache, StructurePlaceContext context, IvBlockCollection collection, Set<BlockPos> surface, int y)
+    public OptionalInt cast(WorldCache cache, StructurePlaceContext context, IvBlockCollection collection, Set<BlockPos> surface, SurfaceColumns columns, int y)
     {
-        Set<BlockPos> shiftedSurface = RayAverageMatcher.shifted(context, collection, surface);
-
-        int height = cache.world.getHeight();
-        while (true) {
-            if (y < 0 || y >= height) // Found none
-                return OptionalInt.empty();
-
-            if (matches(cache, shiftedSurface, y, requiredRatio))
-                break;
-
-            y += up ? 1 : -1;
-        }
-
-        return OptionalInt.of(y);
+        return columns.firstMatch(destMatcher, y, up, (int) (columns.size() * requiredRatio));
     }
 
     @Override
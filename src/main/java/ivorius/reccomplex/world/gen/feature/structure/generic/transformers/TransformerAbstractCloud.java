@@ -5,9 +5,10 @@
 
 package ivorius.reccomplex.world.gen.feature.structure.generic.transformers;
 
-import com.google.common.collect.Sets;
-import gnu.trove.map.TObjectDoubleMap;
-import gnu.trove.map.hash.TObjectDoubleHashMap;
+import gnu.trove.iterator.TLongIterator;
+import gnu.trove.map.TLongDoubleMap;
+import gnu.trove.map.hash.TLongDoubleHashMap;
+import gnu.trove.set.hash.TLongHashSet;
 import ivorius.ivtoolkit.blocks.BlockAreas;
 import ivorius.ivtoolkit.blocks.BlockPositions;
 import ivorius.ivtoolkit.blocks.IvBlockCollection;
@@ -16,7 +17,12 @@ import ivorius.ivtoolkit.random.BlurredValueField;
 import ivorius.ivtoolkit.tools.IvWorldData;
 import ivorius.ivtoolkit.tools.NBTTagLists;
 import ivorius.ivtoolkit.world.chunk.gen.StructureBoundingBoxes;
+import ivorius.reccomplex.RecurrentComplex;
 import ivorius.reccomplex.nbt.NBTStorable;
+import ivorius.reccomplex.utils.CompactPositions;
+import ivorius.reccomplex.utils.PackedBlockPos;
+import ivorius.reccomplex.utils.expression.PositionedBlockExpression;
+import ivorius.reccomplex.world.gen.feature.CachedInstanceData;
 import ivorius.reccomplex.world.gen.feature.structure.Environment;
 import ivorius.reccomplex.world.gen.feature.structure.context.StructureLiveContext;
 import ivorius.reccomplex.world.gen.feature.structure.context.StructurePrepareContext;
@@ -27,6 +33,7 @@ import net.minecraft.nbt.NBTTagCompound;
 import net.minecraft.util.EnumFacing;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.MathHelper;
+import net.minecraftforge.common.util.Constants;
 
 import javax.annotation.Nonnull;
 import java.util.*;
@@ -71,15 +78,16 @@ public abstract class TransformerAbstractCloud<S extends TransformerAbstractClou
         return matches(instanceData, state);
     }
 
-    public TObjectDoubleMap<BlockPos> buildCloud(S instanceData, IvWorldData worldData, StructurePrepareContext context, TransformerMulti transformer, TransformerMulti.InstanceData transformerInstanceData)
+    public TLongDoubleMap buildCloud(S instanceData, IvWorldData worldData, StructurePrepareContext context, TransformerMulti transformer, TransformerMulti.InstanceData transformerInstanceData)
     {
         Random random = context.random;
         Environment environment = context.environment;
         BlockPos lowerCoord = StructureBoundingBoxes.min(context.boundingBox);
         int[] strucSize = new int[]{worldData.blockCollection.width, worldData.blockCollection.height, worldData.blockCollection.length};
 
-        TObjectDoubleMap<BlockPos> cloud = new TObjectDoubleHashMap<>();
+        TLongDoubleMap cloud = new TLongDoubleHashMap();
         BlurredValueField blurredValueField = new BlurredValueField(strucSize);
+        PositionedBlockExpression.Argument.Cursor cursor = new PositionedBlockExpression.Argument.Cursor(environment.world);
 
         int gridCoords = 1;
         for (int d : strucSize) gridCoords *= d;
@@ -92,11 +100,12 @@ public abstract class TransformerAbstractCloud<S extends TransformerAbstractClou
         {
             IBlockState state = worldData.blockCollection.getBlockState(pos);
             BlockPos worldCoord = context.transform.apply(pos, strucSize).add(lowerCoord);
-            if (matches(instanceData, state) && canPenetrate(environment, worldData, worldCoord, 1, transformer, transformerInstanceData))
-                cloud.put(pos.toImmutable(), 1);
+            if (matches(instanceData, state) && canPenetrate(environment, cursor, worldData, worldCoord, 1, transformer, transformerInstanceData))
+                cloud.put(PackedBlockPos.pack(pos), 1);
         });
 
         double expansionDistance = cloudExpansionDistance();
+        BlockPos.MutableBlockPos pos = new BlockPos.MutableBlockPos();
         BlockPos.MutableBlockPos sidePos = new BlockPos.MutableBlockPos();
         BlockPos.MutableBlockPos sideWorldCoord = new BlockPos.MutableBlockPos();
 
@@ -116,37 +125,48 @@ public abstract class TransformerAbstractCloud<S extends TransformerAbstractClou
                 }
             }
 
-            visitRecursively(Sets.newHashSet(cloud.keySet()), (changed, pos) ->
+            // Expand until nothing changes anymore, one frontier at a time
+            TLongHashSet current = new TLongHashSet(cloud.keySet());
+            TLongHashSet next = new TLongHashSet();
+            while (!current.isEmpty())
             {
-                double density = cloud.get(pos);
-
-                for (EnumFacing side : checkSides)
+                for (TLongIterator iterator = current.iterator(); iterator.hasNext(); )
                 {
-                    double sideFalloff = sideFalloffs[side.getIndex()];
+                    long packed = iterator.next();
+                    double density = cloud.get(packed);
+                    PackedBlockPos.unpack(packed, pos);
 
-                    IvMutableBlockPos.offset(pos, sidePos, side);
+                    for (EnumFacing side : checkSides)
+                    {
+                        double sideFalloff = sideFalloffs[side.getIndex()];
 
-                    double sideDensity = density - sideFalloff * blurredValueField.getValue(sidePos.getX(), sidePos.getY(), sidePos.getZ());
-                    if (sideDensity <= 0 || cloud.get(sidePos) >= sideDensity - 0.00001)
-                        continue;
+                        IvMutableBlockPos.offset(pos, sidePos, side);
+                        long sidePacked = PackedBlockPos.pack(sidePos);
 
-                    IvMutableBlockPos.add(context.transform.applyOn(sidePos, sideWorldCoord, strucSize), lowerCoord);
-                    if (!canPenetrate(environment, worldData, sideWorldCoord, sideDensity, transformer, transformerInstanceData))
-                        continue;
+                        double sideDensity = density - sideFalloff * blurredValueField.getValue(sidePos.getX(), sidePos.getY(), sidePos.getZ());
+                        if (sideDensity <= 0 || cloud.get(sidePacked) >= sideDensity - 0.00001)
+                            continue;
 
-                    BlockPos immutableSidePos = sidePos.toImmutable();
+                        IvMutableBlockPos.add(context.transform.applyOn(sidePos, sideWorldCoord, strucSize), lowerCoord);
+                        if (!canPenetrate(environment, cursor, worldData, sideWorldCoord, sideDensity, transformer, transformerInstanceData))
+                            continue;
 
-                    cloud.put(immutableSidePos, sideDensity);
-                    changed.add(immutableSidePos);
+                        cloud.put(sidePacked, sideDensity);
+                        next.add(sidePacked);
+                    }
                 }
-                return true;
-            });
+
+                TLongHashSet done = current;
+                done.clear();
+                current = next;
+                next = done;
+            }
         }
 
         return cloud;
     }
 
-    public boolean canPenetrate(Environment environment, IvWorldData worldData, BlockPos pos, double density, TransformerMulti transformer, TransformerMulti.InstanceData transformerID)
+    public boolean canPenetrate(Environment environment, PositionedBlockExpression.Argument.Cursor cursor, IvWorldData worldData, BlockPos pos, double density, TransformerMulti transformer, TransformerMulti.InstanceData transformerID)
     {
         return true;
     }
@@ -171,9 +191,11 @@ public abstract class TransformerAbstractCloud<S extends TransformerAbstractClou
             int[] areaSize = new int[]{blockCollection.width, blockCollection.height, blockCollection.length};
             BlockPos lowerCoord = StructureBoundingBoxes.min(context.boundingBox);
 
+            BlockPos.MutableBlockPos sourcePos = new BlockPos.MutableBlockPos();
             BlockPos.MutableBlockPos worldCoord = new BlockPos.MutableBlockPos();
-            instanceData.cloud.forEachEntry((sourcePos, density) ->
+            instanceData.cloud.forEachEntry((packed, density) ->
             {
+                PackedBlockPos.unpack(packed, sourcePos);
                 IvMutableBlockPos.add(context.transform.applyOn(sourcePos, worldCoord, areaSize), lowerCoord);
                 transformBlock(instanceData, phase, context, sourcePos, worldCoord, worldData.blockCollection.getBlockState(sourcePos), density);
                 return true;
@@ -187,18 +209,40 @@ public abstract class TransformerAbstractCloud<S extends TransformerAbstractClou
 
     public abstract void transformBlock(S instanceData, Phase phase, StructureSpawnContext context, BlockPos sourcePos, BlockPos pos, IBlockState sourceState, double density);
 
-    public static class InstanceData implements NBTStorable
+    public static class InstanceData implements NBTStorable, CachedInstanceData
     {
-        public TObjectDoubleMap<BlockPos> cloud = new TObjectDoubleHashMap<>();
+        /**
+         * Densities by source position, packed with {@link PackedBlockPos}. May reach beyond the structure's bounds.
+         */
+        public TLongDoubleMap cloud = new TLongDoubleHashMap();
+
+        public boolean contains(int x, int y, int z)
+        {
+            return cloud.containsKey(PackedBlockPos.pack(x, y, z));
+        }
 
         public void readFromNBT(NBTBase base)
         {
             NBTTagCompound compound = base instanceof NBTTagCompound ? (NBTTagCompound) base : new NBTTagCompound();
+
+            if (compound.hasKey("cloudData", Constants.NBT.TAG_BYTE_ARRAY))
+            {
+                boolean read = CompactPositions.read(compound.getByteArray("cloudData"), (pos, density) ->
+                {
+                    cloud.put(pos, density);
+                    return true;
+                });
+                if (!read)
+                    RecurrentComplex.logger.warn("Failed reading transformer cloud");
+                return;
+            }
+
+            // Legacy, one compound per position
             NBTTagLists.compoundsFrom(compound, "cloud").forEach(cloudCompound ->
             {
                 BlockPos pos = BlockPositions.readFromNBT("particle", cloudCompound);
                 if (pos != null)
-                    cloud.put(pos, cloudCompound.getDouble("density"));
+                    cloud.put(PackedBlockPos.pack(pos), cloudCompound.getDouble("density"));
             });
         }
 
@@ -206,19 +250,21 @@ public abstract class TransformerAbstractCloud<S extends TransformerAbstractClou
         public NBTBase writeToNBT()
         {
             NBTTagCompound compound = new NBTTagCompound();
+            compound.setByteArray("cloudData", CompactPositions.write(cloud.keySet(), cloud));
+            return compound;
+        }
 
-            List<NBTTagCompound> cloudCompounds = new ArrayList<>();
-            cloud.forEachEntry((pos, density) ->
-            {
-                NBTTagCompound cloudCompound = new NBTTagCompound();
-                BlockPositions.writeToNBT("particle", pos, cloudCompound);
-                cloudCompound.setDouble("density", density);
-                cloudCompounds.add(cloudCompound);
-                return true;
-            });
-            NBTTagLists.writeTo(compound, "cloud", cloudCompounds);
+        @Override
+        public boolean isShareable()
+        {
+            return true;
+        }
 
-            return compound;
+        @Override
+        public long estimateSize()
+        {
+            // Keys, values and states, at Trove's default load factor of 0.5
+            return 64 + cloud.size() * (8 + 8 + 1) * 2L;
         }
     }
 }
@@ -60,12 +60,13 @@ public class TransformerEnsureBlocks extends Transformer<NBTNone>
         BlockPos lowerCoord = StructureBoundingBoxes.min(context.boundingBox);
 
         BlockPos.MutableBlockPos worldCoord = new BlockPos.MutableBlockPos();
+        PositionedBlockExpression.Argument.Cursor cursor = new PositionedBlockExpression.Argument.Cursor(context.environment.world);
         for (BlockPos sourcePos : BlockAreas.mutablePositions(blockCollection.area()))
         {
             if (sourceMatcher.test(blockCollection.getBlockState(sourcePos)))
             {
                 IvMutableBlockPos.add(context.transform.applyOn(sourcePos, worldCoord, areaSize), lowerCoord);
-                if (!(destMatcher.expressionIsEmpty() || destMatcher.evaluate(() -> PositionedBlockExpression.Argument.at(context.environment.world, worldCoord))))
+                if (!(destMatcher.expressionIsEmpty() || destMatcher.test(cursor.move(worldCoord))))
                     return false;
             }
         }
@@ -20,6 +20,8 @@ import ivorius.reccomplex.nbt.NBTStorable;
 import ivorius.reccomplex.temp.RCMover;
 import ivorius.reccomplex.temp.RCPosTransformer;
 import ivorius.reccomplex.utils.UnstableBlock;
+import ivorius.reccomplex.world.gen.feature.CachedInstanceData;
+import ivorius.reccomplex.world.gen.feature.InstanceDataCache;
 import ivorius.reccomplex.world.gen.feature.structure.context.*;
 import ivorius.reccomplex.world.gen.feature.structure.generic.GenericStructure;
 import net.minecraft.block.state.IBlockState;
@@ -140,7 +142,7 @@ public class TransformerGenerationBehavior extends Transformer<TransformerGenera
         throw new IllegalStateException();
     }
 
-    public static class InstanceData implements NBTStorable
+    public static class InstanceData implements NBTStorable, CachedInstanceData
     {
         public static final String KEY_TILE_ENTITIES = "tileEntities";
 
@@ -196,5 +198,18 @@ public class TransformerGenerationBehavior extends Transformer<TransformerGenera
 
             return compound;
         }
+
+        @Override
+        public boolean isShareable()
+        {
+            return tileEntities.values().stream().allMatch(InstanceDataCache::isShareable);
+        }
+
+        @Override
+        public long estimateSize()
+        {
+            return 96 + allowedGTECoords.size() * 56L
+                    + tileEntities.values().stream().mapToLong(data -> 56 + InstanceDataCache.estimateSize(data)).sum();
+        }
     }
 }
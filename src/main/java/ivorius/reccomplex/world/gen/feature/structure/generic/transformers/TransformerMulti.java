@@ -14,6 +14,9 @@ import ivorius.reccomplex.gui.table.datasource.TableDataSource;
 import ivorius.reccomplex.gui.table.TableDelegate;
 import ivorius.reccomplex.gui.table.TableNavigator;
 import ivorius.reccomplex.json.JsonUtils;
+import ivorius.reccomplex.world.gen.feature.CachedInstanceData;
+import ivorius.reccomplex.world.gen.feature.InstanceDataCache;
+import ivorius.reccomplex.world.gen.feature.RCProfiler;
 import ivorius.reccomplex.world.gen.feature.structure.*;
 import ivorius.reccomplex.utils.expression.EnvironmentExpression;
 import ivorius.reccomplex.world.gen.feature.structure.context.*;
@@ -150,7 +153,18 @@ public class TransformerMulti extends Transformer<TransformerMulti.InstanceData>
     {
         if (!instanceData.deactivated)
             //noinspection unchecked
-            instanceData.pairedTransformers.forEach(pair -> pair.getLeft().configureInstanceData(pair.getRight(), context, worldData, transformer));
+            instanceData.pairedTransformers.forEach(pair ->
+            {
+                RCProfiler.start(RCProfiler.Phase.PREPARE_TRANSFORMER, pair.getLeft().getClass());
+                try
+                {
+                    pair.getLeft().configureInstanceData(pair.getRight(), context, worldData, transformer);
+                }
+                finally
+                {
+                    RCProfiler.stop();
+                }
+            });
     }
 
     @Override
@@ -182,10 +196,21 @@ public class TransformerMulti extends Transformer<TransformerMulti.InstanceData>
     {
         if (!instanceData.deactivated)
             //noinspection unchecked
-            instanceData.pairedTransformers.forEach(pair -> pair.getLeft().transform(pair.getRight(), phase, context, worldData, transformer));
+            instanceData.pairedTransformers.forEach(pair ->
+            {
+                RCProfiler.start(RCProfiler.Phase.TRANSFORMER, pair.getLeft().getClass());
+                try
+                {
+                    pair.getLeft().transform(pair.getRight(), phase, context, worldData, transformer);
+                }
+                finally
+                {
+                    RCProfiler.stop();
+                }
+            });
     }
 
-    public static class InstanceData implements NBTStorable
+    public static class InstanceData implements NBTStorable, CachedInstanceData
     {
         public static final String KEY_TRANSFORMERS = "transformers";
 
@@ -221,6 +246,18 @@ public class TransformerMulti extends Transformer<TransformerMulti.InstanceData>
 
             return compound;
         }
+
+        @Override
+        public boolean isShareable()
+        {
+            return pairedTransformers.stream().allMatch(pair -> InstanceDataCache.isShareable(pair.getRight()));
+        }
+
+        @Override
+        public long estimateSize()
+        {
+            return 48 + pairedTransformers.stream().mapToLong(pair -> 32 + InstanceDataCache.estimateSize(pair.getRight())).sum();
+        }
     }
 
     public static class Data
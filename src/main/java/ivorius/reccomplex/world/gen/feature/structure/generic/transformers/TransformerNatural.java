@@ -86,9 +86,9 @@ public class TransformerNatural extends TransformerAbstractCloud<TransformerNatu
     }
 
     @Override
-    public boolean canPenetrate(Environment environment, IvWorldData worldData, BlockPos pos, double density, TransformerMulti transformer, TransformerMulti.InstanceData transformerID)
+    public boolean canPenetrate(Environment environment, PositionedBlockExpression.Argument.Cursor cursor, IvWorldData worldData, BlockPos pos, double density, TransformerMulti transformer, TransformerMulti.InstanceData transformerID)
     {
-        return density >= 1 || destMatcher.evaluate(() -> PositionedBlockExpression.Argument.at(environment.world, pos));
+        return density >= 1 || destMatcher.test(cursor.move(pos));
     }
 
     @Override
@@ -101,7 +101,7 @@ public class TransformerNatural extends TransformerAbstractCloud<TransformerNatu
         IBlockState mainBlock = Blocks.STONE.getDefaultState();
 
         boolean useStoneBlock = pos.getY() < world.getSeaLevel() - 3;
-        IBlockState setBlock = useStoneBlock ? mainBlock : (instanceData.cloud.containsKey(sourcePos.up()) ? fillerBlock : topBlock);
+        IBlockState setBlock = useStoneBlock ? mainBlock : (instanceData.contains(sourcePos.getX(), sourcePos.getY() + 1, sourcePos.getZ()) ? fillerBlock : topBlock);
 
         if (world.provider.getDimension() == -1)
             setBlock = Blocks.NETHERRACK.getDefaultState();
@@ -26,12 +26,12 @@ import ivorius.reccomplex.world.gen.feature.structure.context.StructureLoadConte
 import ivorius.reccomplex.world.gen.feature.structure.context.StructurePrepareContext;
 import ivorius.reccomplex.world.gen.feature.structure.context.StructureSpawnContext;
 import ivorius.reccomplex.utils.expression.BlockExpression;
+import ivorius.reccomplex.utils.PackedBlockPos;
 import ivorius.reccomplex.utils.RCBlockLogic;
 import net.minecraft.block.state.IBlockState;
 import net.minecraft.init.Blocks;
 import net.minecraft.nbt.NBTBase;
 import net.minecraft.util.math.BlockPos;
-import net.minecraft.util.math.Vec3i;
 import net.minecraft.world.WorldServer;
 import net.minecraftforge.fml.relauncher.Side;
 import net.minecraftforge.fml.relauncher.SideOnly;
@@ -40,7 +40,6 @@ import javax.annotation.Nullable;
 import java.lang.reflect.Type;
 import java.util.HashSet;
 import java.util.Set;
-import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 /**
@@ -78,9 +77,9 @@ public class TransformerNaturalAir extends TransformerAbstractCloud<TransformerN
     }
 
     @Override
-    public boolean canPenetrate(Environment environment, IvWorldData worldData, BlockPos pos, double density, TransformerMulti transformer, TransformerMulti.InstanceData transformerID)
+    public boolean canPenetrate(Environment environment, PositionedBlockExpression.Argument.Cursor cursor, IvWorldData worldData, BlockPos pos, double density, TransformerMulti transformer, TransformerMulti.InstanceData transformerID)
     {
-        return destMatcher.evaluate(() -> PositionedBlockExpression.Argument.at(environment.world, pos));
+        return destMatcher.test(cursor.move(pos));
     }
 
     @Override
@@ -108,11 +107,20 @@ public class TransformerNaturalAir extends TransformerAbstractCloud<TransformerN
             BlockPos lowerCoord = StructureBoundingBoxes.min(context.boundingBox);
 
             // Remove dying foliage
-            HashSet<BlockPos> check = instanceData.cloud.keySet().stream()
-                    .flatMap(pos -> new BlockArea(pos.subtract(new Vec3i(2, 2, 2)), pos.add(new Vec3i(2, 2, 2))).stream())
-                    .filter(pos -> !instanceData.cloud.containsKey(pos))
-                    .map(pos -> context.transform.apply(pos, areaSize).add(lowerCoord))
-                    .collect(Collectors.toCollection(HashSet::new));
+            HashSet<BlockPos> check = new HashSet<>();
+            BlockPos.MutableBlockPos checkPos = new BlockPos.MutableBlockPos();
+            instanceData.cloud.forEachKey(packed ->
+            {
+                int x = PackedBlockPos.x(packed), y = PackedBlockPos.y(packed), z = PackedBlockPos.z(packed);
+                for (int cx = x - 2; cx <= x + 2; cx++)
+                    for (int cy = y - 2; cy <= y + 2; cy++)
+                        for (int cz = z - 2; cz <= z + 2; cz++)
+                        {
+                            if (!instanceData.contains(cx, cy, cz))
+                                check.add(context.transform.apply(checkPos.setPos(cx, cy, cz), areaSize).add(lowerCoord));
+                        }
+                return true;
+            });
 
             Set<BlockPos> remove = new HashSet<>();
             HashSet<BlockPos> start = new HashSet<>();
@@ -54,7 +54,7 @@ public class TransformerNegativeSpace extends Transformer<NBTNone>
     @Override
     public boolean skipGeneration(NBTNone instanceData, StructureLiveContext context, BlockPos pos, IBlockState state, IvWorldData worldData, BlockPos sourcePos)
     {
-        return sourceMatcher.test(state) && (destMatcher.evaluate(() -> PositionedBlockExpression.Argument.at(context.environment.world, pos)));
+        return sourceMatcher.test(state) && (destMatcher.test(context.cursor().move(pos)));
     }
 
     @SideOnly(Side.CLIENT)
@@ -10,6 +10,7 @@ import com.google.gson.reflect.TypeToken;
 import ivorius.ivtoolkit.blocks.BlockStates;
 import ivorius.ivtoolkit.tools.IvWorldData;
 import ivorius.reccomplex.utils.algebra.ExpressionCache;
+import ivorius.reccomplex.world.gen.feature.CachedInstanceData;
 import ivorius.reccomplex.world.gen.feature.structure.Environment;
 import ivorius.reccomplex.utils.presets.PresettedObjects;
 import ivorius.reccomplex.world.gen.feature.structure.generic.GenericStructure;
@@ -150,7 +151,7 @@ public class TransformerReplace extends TransformerSingleBlock<TransformerReplac
         return phase == Phase.BEFORE;
     }
 
-    public static class InstanceData implements NBTStorable
+    public static class InstanceData implements NBTStorable, CachedInstanceData
     {
         public WeightedBlockState blockState;
         public NBTTagCompound tileEntityInfo;
@@ -182,6 +183,19 @@ public class TransformerReplace extends TransformerSingleBlock<TransformerReplac
 
             return compound;
         }
+
+        @Override
+        public boolean isShareable()
+        {
+            // The tile entity info is copied before it is placed
+            return true;
+        }
+
+        @Override
+        public long estimateSize()
+        {
+            return 128;
+        }
     }
 
     public static class Serializer implements JsonDeserializer<TransformerReplace>, JsonSerializer<TransformerReplace>
@@ -5,11 +5,12 @@
 
 package ivorius.reccomplex.world.gen.feature.structure.generic.transformers;
 
-import com.google.common.collect.ImmutableList;
-import com.google.common.collect.Sets;
 import com.google.gson.*;
 import gnu.trove.map.TObjectDoubleMap;
+import gnu.trove.iterator.TLongIterator;
 import gnu.trove.map.hash.TObjectDoubleHashMap;
+import gnu.trove.set.TLongSet;
+import gnu.trove.set.hash.TLongHashSet;
 import ivorius.ivtoolkit.blocks.*;
 import ivorius.ivtoolkit.random.BlurredValueField;
 import ivorius.ivtoolkit.tools.*;
@@ -24,6 +25,9 @@ import ivorius.reccomplex.gui.table.TableNavigator;
 import ivorius.reccomplex.gui.table.datasource.TableDataSource;
 import ivorius.reccomplex.json.JsonUtils;
 import ivorius.reccomplex.nbt.NBTStorable;
+import ivorius.reccomplex.utils.CompactPositions;
+import ivorius.reccomplex.utils.PackedBlockPos;
+import ivorius.reccomplex.world.gen.feature.CachedInstanceData;
 import ivorius.reccomplex.world.gen.feature.structure.Structures;
 import ivorius.reccomplex.world.gen.feature.structure.context.StructureLiveContext;
 import ivorius.reccomplex.world.gen.feature.structure.context.StructureLoadContext;
@@ -52,30 +56,16 @@ import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.lang.reflect.Type;
 import java.util.*;
-import java.util.stream.Collectors;
 
 /**
  * Created by lukas on 25.05.14.
  */
 public class TransformerRuins extends Transformer<TransformerRuins.InstanceData>
 {
-    private static final List<BlockPos> neighbors;
     public static final TObjectDoubleMap<Material> stability = new TObjectDoubleHashMap<>(gnu.trove.impl.Constants.DEFAULT_CAPACITY, gnu.trove.impl.Constants.DEFAULT_LOAD_FACTOR, 1);
 
     static
     {
-        ImmutableList.Builder<BlockPos> builder = ImmutableList.builder();
-
-        for (int x = -1; x <= 1; x++)
-            for (int y = -1; y <= 1; y++)
-                for (int z = -1; z <= 1; z++)
-                {
-                    if (x != 0 || y != 0 || z != 0)
-                        builder.add(new BlockPos(x, y, z));
-                }
-
-        neighbors = builder.build();
-
         stability.put(Material.GLASS, 0.1);
         stability.put(Material.LAVA, 2);
         stability.put(Material.CIRCUITS, 0.2);
@@ -148,7 +138,7 @@ public class TransformerRuins extends Transformer<TransformerRuins.InstanceData>
     @Override
     public boolean skipGeneration(InstanceData instanceData, StructureLiveContext context, BlockPos pos, IBlockState state, IvWorldData worldData, BlockPos sourcePos)
     {
-        if (instanceData.fallingBlocks.contains(sourcePos))
+        if (instanceData.fallingBlocks.contains(PackedBlockPos.pack(sourcePos)))
             return true;
 
         double decay = getDecay(instanceData, sourcePos, state);
@@ -198,8 +188,9 @@ public class TransformerRuins extends Transformer<TransformerRuins.InstanceData>
             }
 
             BlockPos.MutableBlockPos dest = new BlockPos.MutableBlockPos(lowerCoord);
-            for (BlockPos sourcePos : instanceData.fallingBlocks)
+            for (TLongIterator iterator = instanceData.fallingBlocks.iterator(); iterator.hasNext(); )
             {
+                BlockPos sourcePos = BlockPos.fromLong(iterator.next());
                 IBlockState source = blockCollection.getBlockState(sourcePos);
 
                 if (!canLand(source))
@@ -408,68 +399,89 @@ public class TransformerRuins extends Transformer<TransformerRuins.InstanceData>
         if (gravity)
         {
             IvBlockCollection blockCollection = worldData.blockCollection;
-            int[] areaSize = new int[]{blockCollection.width, blockCollection.height, blockCollection.length};
+            int width = blockCollection.width, height = blockCollection.height, length = blockCollection.length;
+            int[] areaSize = new int[]{width, height, length};
             BlockPos lowerCoord = StructureBoundingBoxes.min(context.boundingBox);
 
+            BlockPos.MutableBlockPos sourcePos = new BlockPos.MutableBlockPos();
             BlockPos.MutableBlockPos dest = new BlockPos.MutableBlockPos(lowerCoord);
 
-            for (BlockPos sourcePos : BlockAreas.mutablePositions(blockCollection.area()))
-            {
-                IBlockState state = blockCollection.getBlockState(sourcePos);
-                IvMutableBlockPos.add(context.transform.applyOn(sourcePos, dest, areaSize), lowerCoord);
+            // Cells are indexed ((x * height) + y) * length + z
+            int volume = product(areaSize);
+            BitSet fallable = new BitSet(volume);
+            BitSet falling = new BitSet(volume);
 
-                if (transformer.transformer.skipGeneration(transformer.instanceData, context, dest, state, worldData, sourcePos))
-                    continue;
+            int index = 0;
+            for (int x = 0; x < width; x++)
+                for (int y = 0; y < height; y++)
+                    for (int z = 0; z < length; z++, index++)
+                    {
+                        sourcePos.setPos(x, y, z);
+                        IBlockState state = blockCollection.getBlockState(sourcePos);
+                        IvMutableBlockPos.add(context.transform.applyOn(sourcePos, dest, areaSize), lowerCoord);
 
-                if (!canFall(context, worldData, transformer, dest, sourcePos, state))
-                    continue;
+                        if (!canFall(context, worldData, transformer, dest, sourcePos, state))
+                            continue;
 
-                double stability = getStability(worldData, sourcePos);
-                double decay = getDecay(instanceData, sourcePos, state);
-                double stabilitySQ = stability * stability;
-                if (!(stability < decay) && stabilitySQ * stabilitySQ < decay) // Almost decay
-                    instanceData.fallingBlocks.add(sourcePos.toImmutable());
-            }
+                        fallable.set(index);
 
-            Set<BlockPos> complete = new HashSet<>(product(areaSize));
+                        double stability = getStability(worldData, sourcePos);
+                        double decay = getDecay(instanceData, sourcePos, state);
+                        double stabilitySQ = stability * stability;
+                        if (!(stability < decay) && stabilitySQ * stabilitySQ < decay) // Almost decay
+                            falling.set(index);
+                    }
 
-            HashSet<BlockPos> connected = new HashSet<>();
-            boolean[] hasFloor = new boolean[1];
+            // Flood fill connected groups of blocks, and let the small ones without floor fall
+            BitSet complete = new BitSet(volume);
+            int[] queue = new int[volume];
 
-            for (BlockPos startPos : BlockAreas.positions(blockCollection.area()))
+            for (int start = 0; start < volume; start++)
             {
-                if (complete.contains(startPos))
+                if (complete.get(start))
                     continue;
 
-                hasFloor[0] = false;
-                connected.clear();
-
-                // Try to fall
-                TransformerAbstractCloud.visitRecursively(Sets.newHashSet(startPos), (changed, sourcePos) ->
-                {
-                    if (!complete.add(sourcePos) || instanceData.fallingBlocks.contains(sourcePos))
-                        return true;
-
-                    IvMutableBlockPos.add(context.transform.applyOn(sourcePos, dest, areaSize), lowerCoord);
-
-                    IBlockState state = blockCollection.getBlockState(sourcePos);
+                complete.set(start);
+                if (!fallable.get(start) || falling.get(start))
+                    continue;
 
-                    if (canFall(context, worldData, transformer, dest, sourcePos, state))
-                    {
-                        if (state.getBlock() == RCBlocks.genericSolid
-                                && state.getValue(BlockGenericSolid.TYPE) == 0)
-                            hasFloor[0] = true; // TODO Make configurable?
+                int head = 0, tail = 0;
+                queue[tail++] = start;
+                boolean hasFloor = false;
 
-                        connected.add(sourcePos);
-                        neighbors.stream().map(sourcePos::add).forEach(changed::add);
-                    }
-
-                    return true;
-                });
+                while (head < tail)
+                {
+                    int cell = queue[head++];
+                    int x = cell / (height * length), y = (cell / length) % height, z = cell % length;
+
+                    IBlockState state = blockCollection.getBlockState(sourcePos.setPos(x, y, z));
+                    if (state.getBlock() == RCBlocks.genericSolid
+                            && state.getValue(BlockGenericSolid.TYPE) == 0)
+                        hasFloor = true; // TODO Make configurable?
+
+                    for (int nx = Math.max(x - 1, 0); nx <= Math.min(x + 1, width - 1); nx++)
+                        for (int ny = Math.max(y - 1, 0); ny <= Math.min(y + 1, height - 1); ny++)
+                            for (int nz = Math.max(z - 1, 0); nz <= Math.min(z + 1, length - 1); nz++)
+                            {
+                                int neighbor = (nx * height + ny) * length + nz;
+                                if (complete.get(neighbor))
+                                    continue;
+
+                                complete.set(neighbor);
+                                if (fallable.get(neighbor) && !falling.get(neighbor))
+                                    queue[tail++] = neighbor;
+                            }
+                }
 
-                if (connected.size() > 0 && connected.size() < 200 && !hasFloor[0]) // Now we fall
-                    instanceData.fallingBlocks.addAll(connected);
+                if (tail < 200 && !hasFloor) // Now we fall
+                {
+                    for (int i = 0; i < tail; i++)
+                        falling.set(queue[i]);
+                }
             }
+
+            for (int cell = falling.nextSetBit(0); cell >= 0; cell = falling.nextSetBit(cell + 1))
+                instanceData.fallingBlocks.add(PackedBlockPos.pack(cell / (height * length), (cell / length) % height, cell % length));
         }
     }
 
@@ -492,14 +504,20 @@ public class TransformerRuins extends Transformer<TransformerRuins.InstanceData>
         return new InstanceData(nbt instanceof NBTTagCompound ? (NBTTagCompound) nbt : new NBTTagCompound());
     }
 
-    public static class InstanceData implements NBTStorable
+    public static class InstanceData implements NBTStorable, CachedInstanceData
     {
         public Double baseDecay;
         public BlurredValueField surfaceField;
         public BlurredValueField volumeField;
-        public final Set<BlockPos> fallingBlocks = new HashSet<>();
-
-        public Double[] decayCache;
+        /**
+         * Source positions, packed with {@link PackedBlockPos}.
+         */
+        public final TLongSet fallingBlocks = new TLongHashSet();
+
+        /**
+         * Decay by source position, NaN where it hasn't been calculated yet.
+         */
+        public double[] decayCache;
         public int[] decayCacheSize;
 
         public InstanceData()
@@ -515,7 +533,18 @@ public class TransformerRuins extends Transformer<TransformerRuins.InstanceData>
             volumeField = compound.hasKey("volumeField", Constants.NBT.TAG_COMPOUND)
                     ? NBTCompoundObjects.read(compound.getCompoundTag("volumeField"), BlurredValueField::new)
                     : null;
-            fallingBlocks.addAll(NBTTagLists.intArraysFrom(compound, "fallingBlocks").stream().map(BlockPositions::fromIntArray).collect(Collectors.toList()));
+            if (compound.hasKey("fallingBlocksData", Constants.NBT.TAG_BYTE_ARRAY))
+            {
+                boolean read = CompactPositions.read(compound.getByteArray("fallingBlocksData"), (pos, value) ->
+                {
+                    fallingBlocks.add(pos);
+                    return true;
+                });
+                if (!read)
+                    RecurrentComplex.logger.warn("Failed reading ruins falling blocks");
+            }
+            else
+                NBTTagLists.intArraysFrom(compound, "fallingBlocks").forEach(pos -> fallingBlocks.add(PackedBlockPos.pack(BlockPositions.fromIntArray(pos))));
             clearDecayCache();
         }
 
@@ -529,18 +558,31 @@ public class TransformerRuins extends Transformer<TransformerRuins.InstanceData>
                 compound.setTag("field", NBTCompoundObjects.write(surfaceField));
             if (volumeField != null)
                 compound.setTag("volumeField", NBTCompoundObjects.write(volumeField));
-            NBTTagLists.writeIntArraysTo(compound, "fallingBlocks", fallingBlocks.stream().map(BlockPositions::toIntArray).collect(Collectors.toList()));
+            compound.setByteArray("fallingBlocksData", CompactPositions.write(fallingBlocks, null));
             return compound;
         }
 
-        private Integer getIndex(BlockPos pos)
+        @Override
+        public boolean isShareable()
+        {
+            // The decay cache is filled in during generation
+            return false;
+        }
+
+        @Override
+        public long estimateSize()
+        {
+            return 256 + (decayCache != null ? decayCache.length * 8L : 0) + fallingBlocks.size() * (8 + 1) * 2L;
+        }
+
+        private int getIndex(BlockPos pos)
         {
             if (decayCacheSize == null)
-                return null;
+                return -1;
 
             if (pos.getX() < 0 || pos.getY() < 0 || pos.getZ() < 0
                     || pos.getX() >= decayCacheSize[0] || pos.getY() >= decayCacheSize[1] || pos.getZ() >= decayCacheSize[2])
-                return null;
+                return -1;
 
             return ((pos.getX() * decayCacheSize[1])
                     + pos.getY()) * decayCacheSize[2]
@@ -552,11 +594,11 @@ public class TransformerRuins extends Transformer<TransformerRuins.InstanceData>
             if (!hasDecay())
                 return 0;
 
-            Integer index = getIndex(pos);
-            if (index != null)
+            int index = getIndex(pos);
+            if (index >= 0)
             {
-                Double decay = decayCache[index];
-                return decay != null ? decay : (decayCache[index] = calculateDecay(pos));
+                double decay = decayCache[index];
+                return !Double.isNaN(decay) ? decay : (decayCache[index] = calculateDecay(pos));
             }
             else
                 return calculateDecay(pos);
@@ -567,7 +609,8 @@ public class TransformerRuins extends Transformer<TransformerRuins.InstanceData>
             if (volumeField != null)
             {
                 decayCacheSize = volumeField.getSize();
-                decayCache = new Double[product(decayCacheSize)];
+                decayCache = new double[product(decayCacheSize)];
+                Arrays.fill(decayCache, Double.NaN);
             }
             else
             {
@@ -17,6 +17,7 @@ import ivorius.reccomplex.gui.table.TableNavigator;
 import ivorius.reccomplex.json.JsonUtils;
 import ivorius.reccomplex.json.NBTToJson;
 import ivorius.reccomplex.utils.algebra.ExpressionCache;
+import ivorius.reccomplex.world.gen.feature.CachedInstanceData;
 import ivorius.reccomplex.world.gen.feature.StructureGenerator;
 import ivorius.reccomplex.world.gen.script.WorldScriptMulti;
 import ivorius.reccomplex.world.gen.feature.structure.Environment;
@@ -107,7 +108,7 @@ public class TransformerWorldScript extends TransformerSingleBlock<TransformerWo
         return phase == Phase.BEFORE;
     }
 
-    public static class InstanceData implements NBTStorable
+    public static class InstanceData implements NBTStorable, CachedInstanceData
     {
         @Override
         public NBTBase writeToNBT()
@@ -119,6 +120,18 @@ public class TransformerWorldScript extends TransformerSingleBlock<TransformerWo
         public void readFromNBT(TransformerWorldScript transformer, StructureLoadContext context, NBTBase nbt)
         {
         }
+
+        @Override
+        public boolean isShareable()
+        {
+            return true;
+        }
+
+        @Override
+        public long estimateSize()
+        {
+            return 16;
+        }
     }
 
     public static class Serializer implements JsonDeserializer<TransformerWorldScript>, JsonSerializer<TransformerWorldScript>
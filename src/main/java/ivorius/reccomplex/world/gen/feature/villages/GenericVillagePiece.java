@@ -34,6 +34,7 @@ import javax.annotation.Nullable;
 import javax.annotation.ParametersAreNonnullByDefault;
 import java.util.Optional;
 import java.util.Random;
+import java.util.UUID;
 
 /**
  * Created by lukas on 18.01.15.
@@ -48,6 +49,8 @@ public class GenericVillagePiece extends StructureVillagePieces.Village
 
     public boolean startedGeneration;
     public NBTBase instanceData;
+    // Pieces have no structure entry until they generate, so they get their own key for the instance data cache
+    protected final UUID instanceDataKey = UUID.randomUUID();
 
     public GenericVillagePiece()
     {
@@ -183,12 +186,13 @@ public class GenericVillagePiece extends StructureVillagePieces.Village
         StructureGenerator.GenerationResult result = new StructureGenerator<>(structure).environment(environment(world, generationType))
                 .seed(seed).lowerCoord(StructureBoundingBoxes.min(boundingBox)).transform(transform).generationBB(StructureBoundingBoxes.wholeHeightBoundingBox(world, generationBB))
                 .generationLayer(componentType).structureID(structureID).maturity(firstTime ? StructureSpawnContext.GenerateMaturity.FIRST : StructureSpawnContext.GenerateMaturity.COMPLEMENT)
-                .instanceData(this.instanceData).generate();
+                .instanceData(this.instanceData, instanceDataKey).generate();
 
         if (result instanceof StructureGenerator.GenerationResult.Success.New) {
             WorldStructureGenerationData.StructureEntry sight = ((StructureGenerator.GenerationResult.Success.New) result).sight;
             
             sight.setPreventComplementation(true);
+            WorldStructureGenerationData.get(world).markDirty(sight);
         }
 
         startedGeneration = true;
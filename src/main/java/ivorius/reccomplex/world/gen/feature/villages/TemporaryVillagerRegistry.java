@@ -6,10 +6,10 @@
 package ivorius.reccomplex.world.gen.feature.villages;
 
 import com.google.common.collect.Sets;
+import ivorius.reccomplex.utils.accessor.SafeReflector;
 import net.minecraftforge.fml.common.registry.VillagerRegistry;
-import net.minecraftforge.fml.relauncher.ReflectionHelper;
 
-import java.lang.reflect.Field;
+import java.lang.invoke.MethodHandle;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
@@ -19,7 +19,7 @@ import java.util.Set;
  */
 public class TemporaryVillagerRegistry
 {
-    protected static Field handlerField;
+    protected static final MethodHandle villageCreationHandlers = SafeReflector.getter(VillagerRegistry.class, "villageCreationHandlers");
     protected static TemporaryVillagerRegistry INSTANCE = new TemporaryVillagerRegistry();
 
     protected Set<VillagerRegistry.IVillageCreationHandler> registeredHandlers = new HashSet<>();
@@ -31,15 +31,12 @@ public class TemporaryVillagerRegistry
 
     protected static Map<Class<?>, VillagerRegistry.IVillageCreationHandler> getMap()
     {
-        if (handlerField == null)
-            handlerField = ReflectionHelper.findField(VillagerRegistry.class, "villageCreationHandlers");
-
         try
         {
             //noinspection unchecked
-            return (Map<Class<?>, VillagerRegistry.IVillageCreationHandler>) handlerField.get(VillagerRegistry.instance());
+            return (Map<Class<?>, VillagerRegistry.IVillageCreationHandler>) villageCreationHandlers.invoke(VillagerRegistry.instance());
         }
-        catch (IllegalAccessException e)
+        catch (Throwable e)
         {
             e.printStackTrace();
         }
@@ -29,7 +29,6 @@ import ivorius.reccomplex.world.gen.feature.structure.context.StructureLoadConte
 import ivorius.reccomplex.world.gen.feature.structure.context.StructurePrepareContext;
 import ivorius.reccomplex.world.gen.feature.structure.context.StructureSpawnContext;
 import ivorius.reccomplex.world.gen.feature.structure.generic.Selection;
-import ivorius.reccomplex.world.gen.feature.structure.generic.generation.MazeGeneration;
 import ivorius.reccomplex.world.gen.feature.structure.generic.maze.*;
 import ivorius.reccomplex.world.gen.feature.structure.generic.maze.rules.BlockedConnectorStrategy;
 import ivorius.reccomplex.world.gen.feature.structure.generic.maze.rules.LimitAABBStrategy;
@@ -46,7 +45,8 @@ import net.minecraftforge.fml.relauncher.Side;
 import net.minecraftforge.fml.relauncher.SideOnly;
 
 import java.util.*;
-import java.util.concurrent.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
 import java.util.stream.Collectors;
 
 /**
@@ -230,11 +230,19 @@ public class WorldScriptMazeGenerator implements WorldScript<WorldScriptMazeGene
         if (mazeComponent.rooms.isEmpty())
             return null;
 
-        ConnectorFactory factory = new ConnectorFactory();
+        Collection<String> blockedConnectors = Collections.singleton(ConnectorStrategy.DEFAULT_WALL); // TODO Make configurable
+
+        MazeComponentCache cache = StructureRegistry.INSTANCE.module(MazeComponentCache.class);
+        MazeComponentCache.Components components = cache != null
+                ? cache.get(mazeID, transform, environment, blockedConnectors)
+                : MazeComponentCache.build(mazeID, transform, environment, blockedConnectors);
+
+        // Connectors must come from the components' factory to match theirs
+        ConnectorFactory factory = components.factory;
+        Set<Connector> blockedConnections = components.blockedConnections;
+        List<MazeComponentStructure<Connector>> transformedComponents = components.components;
 
-        Connector wallConnector = factory.get(ConnectorStrategy.DEFAULT_WALL);
         Connector defaultConnector = mazeComponent.defaultConnector.toConnector(factory);
-        Set<Connector> blockedConnections = Collections.singleton(wallConnector); // TODO Make configurable
 
         int[] boundsHigher = mazeComponent.rooms.boundsHigher();
         int[] boundsLower = mazeComponent.rooms.boundsLower();
@@ -245,12 +253,6 @@ public class WorldScriptMazeGenerator implements WorldScript<WorldScriptMazeGene
         final int[] outsideBoundsHigher = IvVecMathHelper.add(boundsHigher, oneArray);
         final int[] outsideBoundsLower = IvVecMathHelper.sub(boundsLower, oneArray);
 
-        List<MazeComponentStructure<Connector>> transformedComponents = MazeGeneration.structures(StructureRegistry.INSTANCE, mazeID)
-                .flatMap(pair -> pair.getLeft().declaredVariables().omega(environment, true)
-                        .flatMap(domain -> WorldGenMaze.transforms(pair.getLeft(), pair.getRight(), transform, factory, environment.copy(domain), blockedConnections))
-                )
-                .collect(Collectors.toList());
-
         MorphingMazeComponent<Connector> maze = new SetMazeComponent<>();
 
         WorldScriptMazeGenerator.enclose(maze, new MazeRoom(outsideBoundsLower), new MazeRoom(outsideBoundsHigher), defaultConnector);
@@ -271,22 +273,21 @@ public class WorldScriptMazeGenerator implements WorldScript<WorldScriptMazeGene
 
         int totalRooms = mazeComponent.rooms.compile(true).size();
 
-        final ExecutorService executor = Executors.newSingleThreadExecutor();
-        Future<List<PlacedMazeComponent<MazeComponentStructure<Connector>, Connector>>> future = executor.submit(() -> MazeComponentConnector.connect(maze,
-                transformedComponents, connectorStrategy,
-                new MazePredicateMany<>(predicates),
-                random,
-                RCConfig.mazePlacementReversesPerRoom >= 0 ? MathHelper.floor(totalRooms * RCConfig.mazePlacementReversesPerRoom + 0.5f) : MazeComponentConnector.INFINITE_REVERSES
-        ));
-        executor.shutdown();
+        int reverses = RCConfig.mazePlacementReversesPerRoom >= 0 ? MathHelper.floor(totalRooms * RCConfig.mazePlacementReversesPerRoom + 0.5f) : MazeComponentConnector.INFINITE_REVERSES;
 
         try
         {
-            return future.get(RCConfig.mazeTimeout, TimeUnit.MILLISECONDS);
+            return MazeSolverPool.<Connector, List<PlacedMazeComponent<MazeComponentStructure<Connector>, Connector>>>solve(RCConfig.mazeTimeout, cancellation ->
+            {
+                // Checked first, so that the solve stops even when other predicates would reject
+                List<MazePredicate<Connector>> cancellable = new ArrayList<>(predicates);
+                cancellable.add(0, cancellation);
+
+                return MazeComponentConnector.connect(maze, transformedComponents, connectorStrategy, new MazePredicateMany<>(cancellable), random, reverses);
+            });
         }
         catch (TimeoutException e)
         {
-            future.cancel(true);
             throw new GenerationException("Maze generation timed out: " + mazeID);
         }
         catch (ExecutionException | InterruptedException e)